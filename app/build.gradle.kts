@@ -22,6 +22,9 @@ dependencies {
 
     // This dependency is used by the application.
     implementation(libs.guava)
+    implementation(libs.zstd.jni)
+    implementation(libs.arrow.vector)
+    runtimeOnly(libs.arrow.memory.netty)
     implementation("com.google.code.gson:gson:2.13.1")
     implementation("info.picocli:picocli:4.7.7")
     implementation("org.projectlombok:lombok:1.18.38")
@@ -41,9 +44,10 @@ tasks.register<JavaExec>("logGenerator") {
     val outputFile: String by project
     val numDevices: String by project
 
-    args = listOf(
+    args = listOfNotNull(
         project.findProperty("output")?.toString() ?: "test_log.txt",
-        project.findProperty("numDevices")?.toString() ?: "1000"
+        project.findProperty("numDevices")?.toString() ?: "1000",
+        project.findProperty("seed")?.toString()
     )
 }
 
@@ -51,9 +55,12 @@ application {
     // Define the main class for the application.
     mainClass = "com.torfstack.ateloganalyzer.ATELogAnalyzer"
     applicationName = "atelog-analyzer"
+    // Arrow's memory module accesses direct buffer internals
+    applicationDefaultJvmArgs = listOf("--add-opens=java.base/java.nio=ALL-UNNAMED")
 }
 
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
     useJUnitPlatform()
+    jvmArgs("--add-opens=java.base/java.nio=ALL-UNNAMED")
 }
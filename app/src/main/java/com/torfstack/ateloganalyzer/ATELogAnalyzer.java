@@ -2,11 +2,38 @@ package com.torfstack.ateloganalyzer;
 
 import com.torfstack.ateloganalyzer.analysis.Analysis;
 import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.AnomalyDetector;
+import com.torfstack.ateloganalyzer.analysis.EventStore;
+import com.torfstack.ateloganalyzer.analysis.EwmaDetector;
+import com.torfstack.ateloganalyzer.analysis.GroupedStatistics;
+import com.torfstack.ateloganalyzer.analysis.LiveAnalysis;
+import com.torfstack.ateloganalyzer.analysis.MadDetector;
+import com.torfstack.ateloganalyzer.analysis.MultiFileAnalysis;
+import com.torfstack.ateloganalyzer.analysis.StdDevDetector;
+import com.torfstack.ateloganalyzer.analysis.StreamingAnalysis;
 import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.analysis.TestStatistic;
+import com.torfstack.ateloganalyzer.analysis.TopAnomalies;
+import com.torfstack.ateloganalyzer.analysis.WindowedStatistics;
+import com.torfstack.ateloganalyzer.input.AnalysisCheckpoint;
+import com.torfstack.ateloganalyzer.input.CompressedLogScanner;
+import com.torfstack.ateloganalyzer.input.CompressedLogScanner.Compression;
+import com.torfstack.ateloganalyzer.input.EventCache;
 import com.torfstack.ateloganalyzer.input.Input;
+import com.torfstack.ateloganalyzer.input.LogDialect;
+import com.torfstack.ateloganalyzer.input.LogFiles;
+import com.torfstack.ateloganalyzer.input.LogTailer;
+import com.torfstack.ateloganalyzer.input.MappedLogScanner;
+import com.torfstack.ateloganalyzer.input.ParallelLogScanner;
+import com.torfstack.ateloganalyzer.input.PipelinedLogScanner;
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics;
+import com.torfstack.ateloganalyzer.metrics.StageTimer;
+import com.torfstack.ateloganalyzer.output.ArrowFileSerializer;
 import com.torfstack.ateloganalyzer.output.JsonFileSerializer;
 import com.torfstack.ateloganalyzer.output.PrintConsoleSerializer;
 import com.torfstack.ateloganalyzer.output.ResultSerializer;
+import com.torfstack.ateloganalyzer.output.StreamingResultSerializer;
+import com.torfstack.ateloganalyzer.server.AnalysisServer;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Help.Ansi.Style;
@@ -15,19 +42,152 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 @Command(name = "ATELogAnalyzer", description = "Analyzes ATE log files for test durations and anomalies")
 public class ATELogAnalyzer implements Runnable {
+    private static final long FOLLOW_POLL_INTERVAL_MILLIS = 10;
+    private static final int MAX_SERVED_ANOMALIES = 100_000;
 
     @Option(names = {"-j", "--json"}, fallbackValue = "test_analysis.json", arity = "0..1",
             description = "Write results to JSON file (default: test_analysis.json)")
     private String jsonOutputFile;
 
-    @Parameters(index = "0", description = "Log file to analyze")
-    private String logFileToAnalyze;
+    @Option(names = {"--compact"}, description = "Write the JSON file without indentation")
+    private boolean compactJson;
+
+    @Option(names = {"--arrow"}, fallbackValue = "test_analysis", arity = "0..1", paramLabel = "<prefix>",
+            description = "Export events and anomalies as Arrow IPC streams <prefix>-events.arrows and "
+                    + "<prefix>-anomalies.arrows (default prefix: test_analysis)")
+    private String arrowOutputPrefix;
+
+    @Option(names = {"-p", "--parser"}, defaultValue = "regex",
+            description = "Log parser to use: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}). "
+                    + "Gzip and zstd compressed logs are always scanned as bytes, and decompressed in parallel "
+                    + "by the parallel parser where possible. The pipelined parser reads, parses and analyzes on "
+                    + "separate threads at the same time")
+    private Parser parser;
+
+    @Option(names = {"--dialect"}, paramLabel = "<dialect file>",
+            description = "JSON file with the markers and timestamp layout of another tester's log format "
+                    + "(needs the mapped, parallel or pipelined parser)")
+    private Path dialectFile;
+
+    @Option(names = {"-e", "--engine"}, defaultValue = "list",
+            description = "Analysis engine to use: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private Engine engine;
+
+    @Option(names = {"-d", "--detector"}, defaultValue = "global",
+            description = "Anomaly detector to use: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}). The global "
+                    + "detector compares every event with the mean and standard deviation of all events. The others "
+                    + "judge every event as it arrives against the events before it: by standard deviation, by a "
+                    + "moving average control band or by median absolute deviation. Follow and server mode use "
+                    + "stddev instead of global")
+    private Detector detector;
+
+    @Option(names = {"-f", "--follow"},
+            description = "Keep following the log file as it grows, like tail -f")
+    private boolean follow;
+
+    @Option(names = {"--serve"}, fallbackValue = "8080", arity = "0..1", paramLabel = "<port>",
+            description = "Keep following the log files and answer queries on http://localhost:<port> (default: "
+                    + "8080): /stats?from=HH:mm&to=HH:mm and /anomalies?device=&from=&to=&limit=")
+    private Integer servePort;
+
+    @Option(names = {"--refresh"}, defaultValue = "5", paramLabel = "<seconds>",
+            description = "Interval between output refreshes in follow mode (default: ${DEFAULT-VALUE})")
+    private int refreshSeconds;
+
+    @Option(names = {"--cache"},
+            description = "Cache the parsed events next to every log file (<log>.atecache) and only parse what was "
+                    + "appended to the log on later runs")
+    private boolean cache;
+
+    @Option(names = {"--per-file"}, description = "Also report statistics for every file separately")
+    private boolean perFile;
+
+    @Option(names = {"--window"}, paramLabel = "<length>", converter = DurationConverter.class,
+            description = "Also report the statistics of every subtest in time windows of this length, by begin "
+                    + "time (e.g. 5m or 1h)")
+    private Duration windowLength;
+
+    @Option(names = {"--slide"}, paramLabel = "<interval>", converter = DurationConverter.class,
+            description = "Start a window every <interval> instead of after the previous one, so that windows "
+                    + "overlap (default: the window length)")
+    private Duration windowSlide;
+
+    @Option(names = {"--sites"},
+            description = "Also report statistics per device lot, per test site and per test type at every site, "
+                    + "and call out sites where a test type is significantly slower")
+    private boolean sites;
+
+    @Option(names = {"--device-pattern"}, paramLabel = "<regex>",
+            description = "Regular expression with the named groups 'lot' and 'site' that finds them in the device "
+                    + "string of BEGIN INSERTION (default: 'lot <lot>' and 'site <site>' anywhere in it)")
+    private String devicePattern;
+
+    @Option(names = {"--date"}, paramLabel = "<yyyy-MM-dd>",
+            description = "Date on which the logs begin. The columnar engine counts events from midnight of it and "
+                    + "rolls over to the next day when the timestamps wrap around, and windows are dated from it "
+                    + "(default: 1970-01-01)")
+    private LocalDate baseDate = LocalDate.EPOCH;
+
+    @Option(names = {"--file-threads"}, paramLabel = "<threads>",
+            description = "Number of files parsed concurrently (default: number of processors)")
+    private int fileThreads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"--checkpoint"}, paramLabel = "<file>",
+            description = "Keep the state of the analysis in the file and on later runs only parse what was appended "
+                    + "to the log since. Needs a single uncompressed log file and a detector other than global")
+    private Path checkpointFile;
+
+    @Option(names = {"--top"}, defaultValue = "100", paramLabel = "<count>",
+            description = "Instead of every anomaly, report the anomaly count and the <count> slowest anomalies of "
+                    + "every subtest and the <count> devices with the most time beyond average (default: "
+                    + "${DEFAULT-VALUE})")
+    private int topCount;
+
+    @Option(names = {"--all-anomalies"},
+            description = "Report every anomaly instead of the slowest ones. Implied by the Arrow export")
+    private boolean allAnomalies;
+
+    @Option(names = {"--metrics"}, paramLabel = "<file>",
+            description = "Write the counters and timers of every stage to the file when done, as JSON if it ends in "
+                    + ".json and in the Prometheus text format otherwise. They are always available over JMX as "
+                    + PipelineMetrics.OBJECT_NAME)
+    private Path metricsFile;
+
+    @Parameters(arity = "1..*", paramLabel = "<log files>",
+            description = "Log files, directories or glob patterns (e.g. 'logs/*.log') to analyze")
+    private List<String> logFilesToAnalyze;
+
+    private List<Path> logFiles;
+    private LogDialect dialect = LogDialect.DEFAULT;
+    private ArrowFileSerializer arrowExport;
+    private WindowedStatistics windows;
+    private GroupedStatistics groups;
 
     public static void main(String[] args) {
         int exitCode = new CommandLine(new ATELogAnalyzer())
@@ -36,40 +196,669 @@ public class ATELogAnalyzer implements Runnable {
                         .options(Style.fg_yellow)
                         .parameters(Style.fg_green)
                         .build())
+                .setCaseInsensitiveEnumValuesAllowed(true)
                 .execute(args);
         System.exit(exitCode);
     }
 
     @Override
     public void run() {
-        List<TestEvent> events;
+        PipelineMetrics.get().register();
+        runAnalysis();
+        if (metricsFile != null) writeMetrics();
+    }
+
+    private void runAnalysis() {
         try {
-            events = Input.parseLogFile(logFileToAnalyze);
+            logFiles = LogFiles.resolve(logFilesToAnalyze);
+        } catch (IOException e) {
+            System.err.println("Error finding log files: " + e.getMessage());
+            return;
+        }
+
+        if (dialectFile != null) {
+            if (parser == Parser.REGEX || cache) {
+                System.err.println("A dialect needs the mapped, parallel or pipelined parser and no cache.");
+                return;
+            }
+            try {
+                dialect = LogDialect.load(dialectFile);
+            } catch (IOException e) {
+                System.err.println("Error reading dialect: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (windowLength != null) {
+            try {
+                windows = new WindowedStatistics(windowLength, windowSlide != null ? windowSlide : windowLength,
+                        baseDate);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid window: " + e.getMessage());
+                return;
+            }
+        } else if (windowSlide != null) {
+            System.err.println("A slide needs a window length.");
+            return;
+        }
+        if (windows != null && logFiles.size() > 1) {
+            // The logs only have times of day, so nothing tells which day each file begins on
+            System.err.println("Windows of every log file are dated from " + baseDate + ", so files of different "
+                    + "days are counted in the same windows. Analyze them separately with their --date.");
+        }
+
+        if (devicePattern != null && !sites) {
+            System.err.println("A device pattern needs --sites.");
+            return;
+        }
+        if (sites) {
+            try {
+                groups = devicePattern != null
+                        ? new GroupedStatistics(Pattern.compile(devicePattern))
+                        : new GroupedStatistics();
+            } catch (PatternSyntaxException e) {
+                System.err.println("Invalid device pattern: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (topCount < 1) {
+            System.err.println("The number of top anomalies must be positive.");
+            return;
+        }
+
+        if (checkpointFile != null && !checkpointable()) return;
+
+        if (servePort != null) {
+            if (follow || arrowOutputPrefix != null || windows != null || groups != null) {
+                System.err.println("Server mode cannot be combined with follow mode, the Arrow export, windows or "
+                        + "sites.");
+                return;
+            }
+            if (!followable()) return;
+            untilStopped(this::serve);
+            return;
+        }
+
+        if (follow) {
+            if (logFiles.size() != 1) {
+                System.err.println("Follow mode needs exactly one log file.");
+                return;
+            }
+            if (arrowOutputPrefix != null || windows != null || groups != null) {
+                System.err.println("Follow mode cannot export to Arrow or report windows or sites.");
+                return;
+            }
+            if (!followable()) return;
+            follow();
+            return;
+        }
+
+        if (arrowOutputPrefix != null) {
+            try (ArrowFileSerializer export = new ArrowFileSerializer(arrowOutputPrefix + "-events.arrows",
+                    arrowOutputPrefix + "-anomalies.arrows")) {
+                arrowExport = export;
+                analyze();
+            } catch (IOException e) {
+                System.err.println("Error writing Arrow export: " + e.getMessage());
+            } catch (UncheckedIOException e) {
+                System.err.println("Error writing Arrow export: " + e.getCause().getMessage());
+            }
+            return;
+        }
+        analyze();
+    }
+
+    private void writeMetrics() {
+        try (Writer writer = Files.newBufferedWriter(metricsFile)) {
+            if (metricsFile.getFileName().toString().endsWith(".json")) {
+                PipelineMetrics.get().writeJson(writer);
+            } else {
+                PipelineMetrics.get().writePrometheus(writer);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the analysis can be checkpointed, printing why not otherwise.
+     */
+    private boolean checkpointable() {
+        if (logFiles.size() != 1 || perFile || cache || follow || servePort != null || arrowOutputPrefix != null
+                || windows != null || groups != null) {
+            System.err.println("A checkpoint needs exactly one log file and cannot be combined with per-file "
+                    + "statistics, the cache, follow or server mode, the Arrow export, windows or sites.");
+            return false;
+        }
+        if (detector == Detector.GLOBAL) {
+            System.err.println("A checkpoint needs a detector that judges events as they arrive (stddev, ewma or "
+                    + "mad), since global anomalies depend on all events of the log.");
+            return false;
+        }
+        try {
+            if (CompressedLogScanner.detect(logFiles.getFirst()) != Compression.NONE) {
+                System.err.println("A checkpoint needs an uncompressed log file.");
+                return false;
+            }
         } catch (IOException e) {
             System.err.println("Error reading log file: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private void analyze() {
+        if (checkpointFile == null && logFiles.size() == 1 && !perFile && engine == Engine.STREAMING) {
+            analyzeStreaming();
             return;
         }
 
-        if (events.isEmpty()) {
+        AnalysisResult result;
+        try {
+            if (checkpointFile != null) {
+                result = analyzeFromCheckpoint();
+            } else if (logFiles.size() > 1 && !perFile && engine == Engine.COLUMNAR) {
+                result = analyzeColumnarFiles();
+            } else if (logFiles.size() > 1 || perFile) {
+                result = analyzeFiles();
+            } else {
+                result = switch (engine) {
+                    case LIST -> analyzeInMemory();
+                    case COLUMNAR -> analyzeColumnar();
+                    case STREAMING -> throw new IllegalStateException("Streaming analysis writes its own result");
+                };
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading log file: " + e.getMessage());
+            return;
+        }
+
+        if (result.statistics().isEmpty()) {
             System.err.println("No valid test events found in the log file.");
             return;
         }
 
-        AnalysisResult result = Analysis.analyzeTestTimes(events);
+        serialize(withBreakdowns(result));
+    }
+
+    /**
+     * Adds the window and group statistics of all parsed files to the result, as far as they were requested.
+     */
+    private AnalysisResult withBreakdowns(AnalysisResult result) {
+        if (groups != null) result = result.withGroups(groups.groups());
+        if (windows == null) return result;
+        if (windows.lateEvents() > 0) {
+            System.err.printf("Left %d events that began too far out of order out of the windows.%n",
+                    windows.lateEvents());
+        }
+        return result.withWindows(windows.windows());
+    }
 
-        Collection<ResultSerializer> serializers = new ArrayList<>();
+    private List<StreamingResultSerializer> serializers() {
+        List<StreamingResultSerializer> serializers = new ArrayList<>();
         serializers.add(new PrintConsoleSerializer());
         if (jsonOutputFile != null && !jsonOutputFile.isEmpty()) {
-            serializers.add(new JsonFileSerializer(jsonOutputFile));
+            serializers.add(new JsonFileSerializer(jsonOutputFile, compactJson));
+        }
+        if (arrowExport != null) serializers.add(arrowExport);
+        return serializers;
+    }
+
+    /**
+     * Writes the result with all serializers at the same time.
+     *
+     * @return Whether every serializer succeeded.
+     */
+    private boolean serialize(AnalysisResult result) {
+        AnalysisResult summarized = summarized(result);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<StreamingResultSerializer> serializers = serializers();
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (ResultSerializer serializer : serializers) {
+                writes.add(CompletableFuture.runAsync(() -> {
+                    try (StageTimer timer = PipelineMetrics.get().time("serialize:"
+                            + serializer.getClass().getSimpleName())) {
+                        serializer.serialize(summarized);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+
+            boolean succeeded = true, jsonWritten = false;
+            for (int i = 0; i < writes.size(); i++) {
+                try {
+                    writes.get(i).join(); // Not interruptible, so the last refresh of follow mode is still written
+                    jsonWritten |= serializers.get(i) instanceof JsonFileSerializer;
+                } catch (CompletionException e) {
+                    System.err.println("Error serializing test result: " + e.getCause().getMessage());
+                    succeeded = false;
+                }
+            }
+            if (jsonWritten) printJsonDestination();
+            return succeeded;
         }
+    }
 
-        for (ResultSerializer serializer : serializers) {
+    /**
+     * Tells where the JSON file was written, once all serializers are done, so it follows the console output instead
+     * of landing in the middle of it.
+     */
+    private void printJsonDestination() {
+        System.out.println("\nAnalysis results written to: " + jsonOutputFile);
+    }
+
+    /**
+     * Replaces the anomaly list of the result with its summary, unless every anomaly is to be reported or the result
+     * has a summary already.
+     */
+    private AnalysisResult summarized(AnalysisResult result) {
+        TopAnomalies top = top();
+        if (top == null || result.anomalySummary() != null) return result;
+        result.anomalies().forEach(top);
+        return result.withAnomalySummary(top.summary(result.statistics().keySet()));
+    }
+
+    /**
+     * Follows the log file until the process is stopped, refreshing the outputs periodically.
+     */
+    private void follow() {
+        LiveAnalysis analysis = new LiveAnalysis(Integer.MAX_VALUE, liveDetectors());
+        untilStopped(() -> {
+            if (tail(analysis)) serialize(analysis.snapshot());
+        });
+    }
+
+    /**
+     * Runs {@code work} on the current thread, which is interrupted when the process is stopped. Stopping waits
+     * for {@code work} to finish.
+     */
+    private static void untilStopped(Runnable work) {
+        Thread worker = Thread.currentThread();
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            worker.interrupt();
             try {
-                serializer.serialize(result);
-            } catch (Exception e) {
-                System.err.println("Error serializing test result: " + e.getMessage());
+                stopped.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+
+        try {
+            work.run();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Ingests all log files as they grow and answers queries about them over HTTP until interrupted.
+     */
+    private void serve() {
+        LiveAnalysis analysis = new LiveAnalysis(MAX_SERVED_ANOMALIES, liveDetectors());
+        List<LogTailer> tailers = new ArrayList<>();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), servePort);
+        try (AnalysisServer server = new AnalysisServer(analysis, address)) {
+            for (Path logFile : logFiles) tailers.add(new LogTailer(logFile, dialect, analysis));
+            server.start();
+            System.out.printf("Serving the analysis of %d log files on http://localhost:%d%n", logFiles.size(),
+                    server.port());
+
+            while (!Thread.currentThread().isInterrupted()) {
+                long read = 0;
+                for (LogTailer tailer : tailers) read += tailer.poll();
+                if (read == 0) Thread.sleep(FOLLOW_POLL_INTERVAL_MILLIS);
+            }
+        } catch (ClosedByInterruptException | InterruptedException e) {
+            // Stopped
+        } catch (IOException e) {
+            System.err.println("Error serving analysis: " + e.getMessage());
+        } finally {
+            for (LogTailer tailer : tailers) {
+                try {
+                    tailer.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that none of the log files is compressed, since compressed files cannot be followed as they grow.
+     */
+    private boolean followable() {
+        try {
+            for (Path logFile : logFiles) {
+                if (CompressedLogScanner.detect(logFile) != Compression.NONE) {
+                    System.err.println("Cannot follow the compressed log file " + logFile + ".");
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error reading log file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Feeds the log file into the analysis until interrupted.
+     *
+     * @return Whether following stopped without an error.
+     */
+    private boolean tail(LiveAnalysis analysis) {
+        try (LogTailer tailer = new LogTailer(logFiles.getFirst(), dialect, analysis)) {
+            long nextRefresh = System.nanoTime();
+            while (!Thread.currentThread().isInterrupted()) {
+                if (tailer.poll() == 0) Thread.sleep(FOLLOW_POLL_INTERVAL_MILLIS);
+                if (System.nanoTime() - nextRefresh >= 0) {
+                    if (!serialize(analysis.snapshot())) return false;
+                    nextRefresh = System.nanoTime() + refreshSeconds * 1_000_000_000L;
+                }
+            }
+        } catch (ClosedByInterruptException | InterruptedException e) {
+            // Stopped
+        } catch (IOException e) {
+            System.err.println("Error reading log file: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a pool of at most {@code fileThreads} threads, but no more than there are files.
+     */
+    private ExecutorService fileExecutor() {
+        return Executors.newFixedThreadPool(Math.max(1, Math.min(fileThreads, logFiles.size())));
+    }
+
+    private AnalysisResult analyzeFiles() throws IOException {
+        try (ExecutorService executor = fileExecutor()) {
+            long start = System.nanoTime();
+            AnalysisResult result = MultiFileAnalysis.analyzeTestTimes(logFiles, this::parseLogFile, executor, perFile,
+                    detectors(), top());
+            long eventCount = result.statistics().values().stream().mapToLong(TestStatistic::count).sum();
+            printThroughput(eventCount, System.nanoTime() - start);
+            return result;
+        }
+    }
+
+    private AnalysisResult analyzeFromCheckpoint() throws IOException {
+        long start = System.nanoTime();
+        AnalysisCheckpoint.Resumed resumed;
+        try (StageTimer timer = PipelineMetrics.get().time(PipelineMetrics.PARSE_STAGE)) {
+            resumed = AnalysisCheckpoint.analyzeLogFile(logFiles.getFirst().toString(), checkpointFile, dialect,
+                    detector.name().toLowerCase(), detectors(), allAnomalies ? 0 : topCount);
+        }
+        System.out.printf("Resumed at byte %d of %d and analyzed %.1f MB in %d ms%n", resumed.resumedOffset(),
+                resumed.logSize(), (resumed.logSize() - resumed.resumedOffset()) / (1024.0 * 1024.0),
+                (System.nanoTime() - start) / 1_000_000);
+        return resumed.result();
+    }
+
+    private AnalysisResult analyzeInMemory() throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        long start = System.nanoTime();
+        parseLogFile(events::add);
+        printThroughput(events.size(), System.nanoTime() - start);
+        try (StageTimer timer = PipelineMetrics.get().time("analyze")) {
+            return Analysis.analyzeTestTimes(events, detectors(), top());
+        }
+    }
+
+    private AnalysisResult analyzeColumnar() throws IOException {
+        long start = System.nanoTime();
+        EventStore events = parseColumns(logFiles.getFirst().toString());
+        printThroughput(events.size(), System.nanoTime() - start);
+        return analyzeColumns(events);
+    }
+
+    /**
+     * Parses every file into columns of its own concurrently and merges them in begin order, so that detectors see
+     * the events of all files in the order they happened.
+     */
+    private AnalysisResult analyzeColumnarFiles() throws IOException {
+        try (ExecutorService executor = fileExecutor()) {
+            long start = System.nanoTime();
+            List<CompletableFuture<EventStore>> parses = new ArrayList<>();
+            for (Path logFile : logFiles) {
+                parses.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return parseColumns(logFile.toString());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            List<EventStore> stores = new ArrayList<>();
+            for (CompletableFuture<EventStore> parse : parses) {
+                try {
+                    stores.add(parse.join());
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof IOException io) throw io;
+                    throw e;
+                }
+            }
+            EventStore events = EventStore.merge(stores);
+            printThroughput(events.size(), System.nanoTime() - start);
+            return analyzeColumns(events);
+        }
+    }
+
+    private AnalysisResult analyzeColumns(EventStore events) {
+        try (StageTimer timer = PipelineMetrics.get().time("analyze")) {
+            return Analysis.analyzeTestTimes(events, detectors(), top());
+        }
+    }
+
+    private EventStore parseColumns(String logFile) throws IOException {
+        EventStore events = new EventStore(baseDate);
+        if (isPrimitiveParse(logFile)) {
+            try (StageTimer timer = PipelineMetrics.get().time(PipelineMetrics.PARSE_STAGE)) {
+                MappedLogScanner.parseLogFile(logFile, dialect, events);
+            }
+        } else {
+            parseLogFile(logFile, events);
+        }
+        return events;
+    }
+
+    /**
+     * Analyzes the log in a single pass and, while the second pass over the spill finds the anomalies, keeps the
+     * slowest of them or writes every one of them, so they are never all in memory.
+     */
+    private void analyzeStreaming() {
+        try (StreamingAnalysis analysis = detectors() != null
+                ? new StreamingAnalysis(detectors())
+                : new StreamingAnalysis()) {
+            long start = System.nanoTime();
+            try {
+                parseLogFile(analysis);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            printThroughput(analysis.eventCount(), System.nanoTime() - start);
+
+            AnalysisResult summary = withBreakdowns(analysis.summary());
+            if (summary.statistics().isEmpty()) {
+                System.err.println("No valid test events found in the log file.");
                 return;
             }
+            TopAnomalies top = top();
+            if (top == null) {
+                writeStreaming(analysis, summary);
+                return;
+            }
+            try (StageTimer timer = PipelineMetrics.get().time("analyze")) {
+                analysis.findAnomalies(summary.statistics(), top);
+            }
+            serialize(summary.withAnomalySummary(top.summary(summary.statistics().keySet())));
+        } catch (IOException e) {
+            System.err.println("Error reading log file: " + e.getMessage());
+        }
+    }
+
+    private void writeStreaming(StreamingAnalysis analysis, AnalysisResult summary) {
+        List<StreamingResultSerializer> serializers = serializers();
+        try (StageTimer timer = PipelineMetrics.get().time("serialize")) {
+            for (StreamingResultSerializer serializer : serializers) serializer.begin(summary);
+            analysis.findAnomalies(summary.statistics(), anomaly -> {
+                try {
+                    for (StreamingResultSerializer serializer : serializers) serializer.writeAnomaly(anomaly);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            for (StreamingResultSerializer serializer : serializers) serializer.end();
+            if (serializers.stream().anyMatch(JsonFileSerializer.class::isInstance)) printJsonDestination();
+        } catch (IOException e) {
+            System.err.println("Error serializing test result: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            System.err.println("Error serializing test result: " + e.getCause().getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Whether the events can go straight from the mapped log into the columns, without an event object per line,
+     * because nothing else needs the events.
+     */
+    private boolean isPrimitiveParse(String logFile) throws IOException {
+        return parser == Parser.MAPPED && !cache && arrowExport == null && windows == null && groups == null
+                && CompressedLogScanner.detect(Path.of(logFile)) == Compression.NONE;
+    }
+
+    private void parseLogFile(Consumer<TestEvent> events) throws IOException {
+        parseLogFile(logFiles.getFirst().toString(), events);
+    }
+
+    /**
+     * Parses the log file into {@code events}, the Arrow export, the groups shared by all files and windows of its
+     * own, which are merged into the windows of all files once the file is parsed.
+     */
+    private void parseLogFile(String logFile, Consumer<TestEvent> events) throws IOException {
+        if (arrowExport != null) events = events.andThen(arrowExport);
+        if (groups != null) events = events.andThen(groups);
+        if (windows == null) {
+            scanLogFile(logFile, events);
+            return;
+        }
+
+        WindowedStatistics fileWindows = new WindowedStatistics(windowLength,
+                windowSlide != null ? windowSlide : windowLength, baseDate);
+        scanLogFile(logFile, events.andThen(fileWindows));
+        fileWindows.finish();
+        synchronized (windows) {
+            windows.merge(fileWindows);
+        }
+    }
+
+    private void scanLogFile(String logFile, Consumer<TestEvent> events) throws IOException {
+        try (StageTimer timer = PipelineMetrics.get().time(PipelineMetrics.PARSE_STAGE)) {
+            readLogFile(logFile, events);
+        }
+    }
+
+    private void readLogFile(String logFile, Consumer<TestEvent> events) throws IOException {
+        Compression compression = CompressedLogScanner.detect(Path.of(logFile));
+        if (cache && compression == Compression.NONE) {
+            EventCache.parseLogFile(logFile, events);
+            return;
+        }
+        if (parser == Parser.PIPELINED) {
+            PipelinedLogScanner.parseLogFile(logFile, dialect, events);
+            return;
+        }
+        if (compression != Compression.NONE) {
+            if (parser == Parser.PARALLEL) {
+                CompressedLogScanner.parseLogFile(logFile, ForkJoinPool.commonPool(), dialect, events);
+            } else {
+                CompressedLogScanner.parseLogFile(logFile, dialect, events);
+            }
+            return;
+        }
+        switch (parser) {
+            case REGEX -> Input.parseLogFile(logFile, events);
+            case MAPPED -> MappedLogScanner.parseLogFile(logFile, dialect, events);
+            case PARALLEL -> ParallelLogScanner.parseLogFile(logFile, ForkJoinPool.commonPool(), dialect, events);
+            case PIPELINED -> throw new IllegalStateException("Pipelined parsing is handled above");
+        }
+    }
+
+    /**
+     * Returns what creates the anomaly detector of every test type, or null to judge events against the statistics
+     * of all events.
+     */
+    private Supplier<AnomalyDetector> detectors() {
+        return switch (detector) {
+            case GLOBAL -> null;
+            case STDDEV -> StdDevDetector::new;
+            case EWMA -> EwmaDetector::new;
+            case MAD -> MadDetector::new;
+        };
+    }
+
+    /**
+     * Returns what keeps the slowest anomalies in place of the anomaly list, or null to report every anomaly.
+     */
+    private TopAnomalies top() {
+        return allAnomalies || arrowOutputPrefix != null ? null : new TopAnomalies(topCount);
+    }
+
+    /**
+     * Returns the detectors for events that arrive while the log is written, where the statistics of all events are
+     * never known.
+     */
+    private Supplier<AnomalyDetector> liveDetectors() {
+        return detector == Detector.GLOBAL ? StdDevDetector::new : detectors();
+    }
+
+    private void printThroughput(long eventCount, long elapsedNanos) throws IOException {
+        long bytes = 0;
+        for (Path logFile : logFiles) bytes += Files.size(logFile);
+        double megabytes = bytes / (1024.0 * 1024.0);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("Parsed %d events from %.1f MB in %d ms (%.1f MB/s, %s parser)%n",
+                eventCount, megabytes, elapsedNanos / 1_000_000, seconds > 0 ? megabytes / seconds : 0.0,
+                parser.name().toLowerCase());
+    }
+
+    /**
+     * Converts durations like {@code 500ms}, {@code 30s}, {@code 5m} or {@code 1h}, or ISO-8601 durations like
+     * {@code PT5M}.
+     */
+    static class DurationConverter implements CommandLine.ITypeConverter<Duration> {
+        private static final Pattern SHORT_DURATION = Pattern.compile("(\\d+)(ms|s|m|h)");
+
+        @Override
+        public Duration convert(String value) {
+            Matcher matcher = SHORT_DURATION.matcher(value);
+            if (matcher.matches()) {
+                long amount = Long.parseLong(matcher.group(1));
+                return switch (matcher.group(2)) {
+                    case "ms" -> Duration.ofMillis(amount);
+                    case "s" -> Duration.ofSeconds(amount);
+                    case "m" -> Duration.ofMinutes(amount);
+                    default -> Duration.ofHours(amount);
+                };
+            }
+            try {
+                return Duration.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new CommandLine.TypeConversionException("Invalid duration " + value + ", expected e.g. 5m");
+            }
+        }
+    }
+
+    enum Parser {
+        REGEX, MAPPED, PARALLEL, PIPELINED
+    }
+
+    enum Engine {
+        LIST, STREAMING, COLUMNAR
+    }
+
+    enum Detector {
+        GLOBAL, STDDEV, EWMA, MAD
+    }
+}
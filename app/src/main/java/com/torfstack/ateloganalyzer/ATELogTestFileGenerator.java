@@ -1,16 +1,40 @@
 package com.torfstack.ateloganalyzer;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
-import java.util.Random;
+import lombok.NonNull;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Help.Ansi.Style;
+import picocli.CommandLine.Help.ColorScheme;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
 
-import static com.torfstack.ateloganalyzer.constants.Constants.TIME_FORMATTER;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 
-public class ATELogTestFileGenerator {
-    private static final String[] SUBTESTS = {
+/**
+ * Generates synthetic ATE logs, e.g. to load test the analyzer.
+ * <p>
+ * Devices are generated in chunks of {@value #DEVICES_PER_CHUNK} on a thread pool. Every chunk renders its lines from
+ * pre-encoded byte templates into a direct buffer of its own, and the buffers are written to the file in chunk order
+ * while later chunks are still being rendered. Every chunk draws from its own {@link SplittableRandom}, split off the
+ * seed in chunk order, so a seed always produces the same file however many threads generate it.
+ */
+@Command(name = "ATELogTestFileGenerator", description = "Generates synthetic ATE log files")
+public class ATELogTestFileGenerator implements Runnable {
+    static final List<String> SUBTESTS = List.of(
             "check connection",
             "measure leakage current",
             "test digital logic",
@@ -18,74 +42,302 @@ public class ATELogTestFileGenerator {
             "calibrate sensors",
             "validate memory",
             "stress test"
+    );
+    private static final int DEVICES_PER_CHUNK = 1024;
+    private static final int MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+    private static final int FIRST_DEVICE_MILLIS = 8 * 60 * 60 * 1000;
+    private static final int MILLIS_BETWEEN_DEVICES = 10_000;
+    private static final int MAX_DECIMAL_DIGITS = 10;
+
+    private static final byte[] TIMESTAMP_PREFIX = ascii("#PE[");
+    private static final byte[] TIMESTAMP_SUFFIX = ascii("] : ");
+    private static final byte[] BEGIN_INSERTION = ascii("BEGIN INSERTION \"device #");
+    private static final byte[] SITE = ascii(" site ");
+    private static final byte[] QUOTE = ascii("\"");
+    private static final byte[] END_INSERTION = ascii("END INSERTION");
+    private static final byte[] BEGIN_DEVICE_TEST = ascii("BEGIN DEVICE_TEST");
+    private static final byte[] END_SUBTEST = ascii("END DEVICE_TEST.SUBTEST");
+    private static final byte[] END_DEVICE_TEST = ascii("END DEVICE_TEST");
+    private static final byte[] BEGIN_REMOVAL = ascii("BEGIN REMOVAL");
+    private static final byte[] END_REMOVAL = ascii("END REMOVAL");
+    /**
+     * Lines that every parser skips without changing its state: a line cut off inside its timestamp, a marker
+     * without a timestamp and noise.
+     */
+    private static final byte[][] MALFORMED_LINES = {
+            ascii("#PE[08:1"),
+            ascii("END DEVICE_TEST.SUBTEST"),
+            ascii("*** tester heartbeat lost, retrying ***"),
     };
-    private static final Random random = new Random();
+
+    @Parameters(index = "0", paramLabel = "<output file>", description = "Log file to write")
+    private Path outputFile;
+
+    @Parameters(index = "1", paramLabel = "<devices>", description = "Number of devices to generate")
+    private int numDevices;
+
+    @Parameters(index = "2", arity = "0..1", paramLabel = "<seed>",
+            description = "Seed of the generated file (default: random, printed so the file can be generated again)")
+    private Long seed;
+
+    @Option(names = {"--anomaly-rate"}, paramLabel = "<rate>",
+            description = "Share of subtests that take 5-10 s instead of 50-200 ms (default: ${DEFAULT-VALUE})")
+    private double anomalyRate = Settings.DEFAULT_ANOMALY_RATE;
+
+    @Option(names = {"--subtests"}, split = ",", paramLabel = "<name>",
+            description = "Subtests every device runs, in order (default: the seven standard subtests)")
+    private List<String> subtests;
+
+    @Option(names = {"--sites"}, paramLabel = "<sites>",
+            description = "Number of test sites that take turns with the devices, named in the device string as "
+                    + "'site <n>' (default: 0 for no sites)")
+    private int sites;
+
+    @Option(names = {"--malformed-rate"}, paramLabel = "<rate>",
+            description = "Share of lines followed by a malformed line that parsers must skip (default: 0)")
+    private double malformedRate;
+
+    @Option(names = {"--threads"}, paramLabel = "<threads>",
+            description = "Number of threads generating devices (default: number of processors)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param anomalyRate   Share of subtests that take 5-10 s instead of 50-200 ms.
+     * @param subtests      Subtests every device runs, in order.
+     * @param sites         Number of test sites that take turns with the devices, or 0 to leave sites out of the
+     *                      device strings.
+     * @param malformedRate Share of lines followed by a malformed line.
+     * @param threads       Number of threads generating devices. The file does not depend on it.
+     */
+    public record Settings(long seed, double anomalyRate, @NonNull List<String> subtests, int sites,
+                           double malformedRate, int threads) {
+        static final double DEFAULT_ANOMALY_RATE = 0.02;
+
+        /**
+         * @throws IllegalArgumentException If a rate is not within [0, 1], there are no subtests or the number of
+         *                                  sites or threads is out of range.
+         */
+        public Settings {
+            if (!(anomalyRate >= 0 && anomalyRate <= 1) || !(malformedRate >= 0 && malformedRate <= 1)) {
+                throw new IllegalArgumentException("Rates must be between 0 and 1");
+            }
+            if (subtests.isEmpty()) throw new IllegalArgumentException("At least one subtest is needed");
+            if (sites < 0) throw new IllegalArgumentException("The number of sites must not be negative");
+            if (threads < 1) throw new IllegalArgumentException("At least one thread is needed");
+            subtests = List.copyOf(subtests);
+        }
+
+        public static @NonNull Settings defaults(long seed) {
+            return new Settings(seed, DEFAULT_ANOMALY_RATE, SUBTESTS, 0, 0,
+                    Runtime.getRuntime().availableProcessors());
+        }
+    }
 
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println("Usage: java ATELogGenerator <output_file> <num_devices>");
-            System.out.println("Example: java ATELogGenerator test_log.txt 1000");
+        int exitCode = new CommandLine(new ATELogTestFileGenerator())
+                .setColorScheme(new ColorScheme.Builder()
+                        .commands(Style.bold, Style.fg_blue)
+                        .options(Style.fg_yellow)
+                        .parameters(Style.fg_green)
+                        .build())
+                .execute(args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public void run() {
+        Settings settings;
+        try {
+            settings = new Settings(seed != null ? seed : new SplittableRandom().nextLong(), anomalyRate,
+                    subtests != null ? subtests : SUBTESTS, sites, malformedRate, threads);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid settings: " + e.getMessage());
+            return;
+        }
+        if (seed == null) System.out.println("Seed: " + settings.seed());
+
+        long start = System.nanoTime();
+        int[] reported = {0};
+        try {
+            generateLogFile(outputFile, numDevices, settings, generated -> {
+                int percent = (int) (100L * generated / numDevices);
+                if (percent / 10 > reported[0] / 10) {
+                    reported[0] = percent;
+                    System.out.printf("Generated logs for %d/%d devices%n", generated, numDevices);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error writing log file: " + e.getMessage());
             return;
         }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double megabytes = outputFile.toFile().length() / (1024.0 * 1024.0);
+        System.out.printf("Log generation complete. File: %s (%.1f MB in %.1f s, %.1f MB/s)%n", outputFile, megabytes,
+                seconds, seconds > 0 ? megabytes / seconds : 0.0);
+    }
+
+    /**
+     * Writes a log file for {@code numDevices} devices with the default settings. The same seed always produces the
+     * same file.
+     */
+    public static void generateLogFile(@NonNull String outputFile, int numDevices, long seed) throws IOException {
+        generateLogFile(Path.of(outputFile), numDevices, Settings.defaults(seed), generated -> {
+        });
+    }
 
-        String outputFile = args[0];
-        int numDevices = Integer.parseInt(args[1]);
+    /**
+     * Writes a log file for {@code numDevices} devices. The same settings always produce the same file.
+     *
+     * @param progress Receives the number of devices written so far after every chunk.
+     */
+    public static void generateLogFile(@NonNull Path outputFile, int numDevices, @NonNull Settings settings,
+                                       @NonNull IntConsumer progress) throws IOException {
+        try (ExecutorService executor = Executors.newFixedThreadPool(settings.threads())) {
+            writeChunks(outputFile, numDevices, new ChunkRenderer(settings), settings, executor, progress);
+        }
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-            for (int i = 1; i <= numDevices; i++) {
-                generateDeviceTest(writer, i);
+    /**
+     * Renders chunks on the executor, at most two per thread at a time, and writes them in order.
+     */
+    private static void writeChunks(Path outputFile, int numDevices, ChunkRenderer renderer, Settings settings,
+                                    ExecutorService executor, IntConsumer progress) throws IOException {
+        Deque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+        for (int i = 0; i < 2 * settings.threads(); i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(renderer.maxChunkBytes()));
+        }
 
-                if (i % 100 == 0) {
-                    System.out.printf("Generated logs for %d/%d devices%n", i, numDevices);
+        try (FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SplittableRandom seeds = new SplittableRandom(settings.seed());
+            Deque<Chunk> pending = new ArrayDeque<>();
+            int nextDevice = 1;
+            while (nextDevice <= numDevices || !pending.isEmpty()) {
+                while (nextDevice <= numDevices && !freeBuffers.isEmpty()) {
+                    int first = nextDevice, last = (int) Math.min(numDevices, (long) first + DEVICES_PER_CHUNK - 1);
+                    SplittableRandom random = seeds.split();
+                    ByteBuffer buffer = freeBuffers.removeFirst();
+                    pending.add(new Chunk(executor.submit(() -> renderer.render(buffer, first, last, random)), last));
+                    nextDevice = last + 1;
                 }
+
+                Chunk chunk = pending.removeFirst();
+                ByteBuffer rendered = chunk.rendered().get();
+                while (rendered.hasRemaining()) channel.write(rendered);
+                freeBuffers.add(rendered.clear());
+                progress.accept(chunk.lastDevice());
             }
-            System.out.println("Log generation complete. File: " + outputFile);
-        } catch (IOException e) {
-            System.err.println("Error writing log file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating " + outputFile, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to generate " + outputFile, e.getCause());
         }
     }
 
-    private static void generateDeviceTest(BufferedWriter writer, int deviceId) throws IOException {
-        LocalTime currentTime = LocalTime.of(8, 0).plusSeconds(deviceId * 10L);
-
-        // Insertion phase
-        writeLogEntry(writer, currentTime, "BEGIN INSERTION \"device #" + deviceId + "\"");
-        currentTime = currentTime.plus(500 + random.nextInt(1500), ChronoUnit.MILLIS);
-        writeLogEntry(writer, currentTime, "END INSERTION");
-
-        // Device test
-        currentTime = currentTime.plus(100 + random.nextInt(400), ChronoUnit.MILLIS);
-        writeLogEntry(writer, currentTime, "BEGIN DEVICE_TEST");
-
-        // Subtests
-        for (String subtest : SUBTESTS) {
-            currentTime = currentTime.plus(50 + random.nextInt(200), ChronoUnit.MILLIS);
-            writeLogEntry(writer, currentTime, "BEGIN DEVICE_TEST.SUBTEST \"" + subtest + "\"");
-
-            // Random duration with occasional long delays
-            long duration;
-            if (random.nextInt(100) < 2) { // 2% chance long delay in subtest
-                duration = 5000 + random.nextInt(5000); // Long delay (5-10s)
-            } else {
-                duration = 50 + random.nextInt(150); // Normal delay (50-200ms)
+    private record Chunk(Future<ByteBuffer> rendered, int lastDevice) {
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Renders the lines of a range of devices into a buffer, from templates encoded once per file.
+     */
+    private static class ChunkRenderer {
+        private final Settings settings;
+        private final byte[][] beginSubtests;
+        private final int maxDeviceBytes;
+
+        ChunkRenderer(Settings settings) {
+            this.settings = settings;
+            this.beginSubtests = new byte[settings.subtests().size()][];
+            int longestMessage = BEGIN_INSERTION.length + MAX_DECIMAL_DIGITS + SITE.length + MAX_DECIMAL_DIGITS
+                    + QUOTE.length;
+            for (int i = 0; i < beginSubtests.length; i++) {
+                beginSubtests[i] = ("BEGIN DEVICE_TEST.SUBTEST \"" + settings.subtests().get(i) + "\"")
+                        .getBytes(StandardCharsets.UTF_8);
+                longestMessage = Math.max(longestMessage, beginSubtests[i].length);
+            }
+            int maxLineBytes = TIMESTAMP_PREFIX.length + "HH:mm:ss.SSS".length() + TIMESTAMP_SUFFIX.length
+                    + longestMessage + 1;
+            int linesPerDevice = 6 + 2 * beginSubtests.length;
+            // Every line may be followed by a malformed one, which is shorter
+            this.maxDeviceBytes = 2 * linesPerDevice * maxLineBytes;
+        }
+
+        int maxChunkBytes() {
+            return DEVICES_PER_CHUNK * maxDeviceBytes;
+        }
+
+        ByteBuffer render(ByteBuffer buffer, int firstDevice, int lastDevice, SplittableRandom random) {
+            for (int device = firstDevice; device <= lastDevice; device++) renderDevice(buffer, device, random);
+            return buffer.flip();
+        }
+
+        private void renderDevice(ByteBuffer buffer, int device, SplittableRandom random) {
+            long millis = FIRST_DEVICE_MILLIS + (long) device * MILLIS_BETWEEN_DEVICES;
+
+            // Insertion phase
+            beginLine(buffer, millis).put(BEGIN_INSERTION);
+            putDecimal(buffer, device);
+            if (settings.sites() > 0) putDecimal(buffer.put(SITE), (device - 1) % settings.sites() + 1);
+            endLine(buffer.put(QUOTE), random);
+            millis += 500 + random.nextInt(1500);
+            endLine(beginLine(buffer, millis).put(END_INSERTION), random);
+
+            // Device test
+            millis += 100 + random.nextInt(400);
+            endLine(beginLine(buffer, millis).put(BEGIN_DEVICE_TEST), random);
+            for (byte[] beginSubtest : beginSubtests) {
+                millis += 50 + random.nextInt(200);
+                endLine(beginLine(buffer, millis).put(beginSubtest), random);
+                millis += random.nextDouble() < settings.anomalyRate()
+                        ? 5000 + random.nextInt(5000)
+                        : 50 + random.nextInt(150);
+                endLine(beginLine(buffer, millis).put(END_SUBTEST), random);
             }
+            millis += 100 + random.nextInt(400);
+            endLine(beginLine(buffer, millis).put(END_DEVICE_TEST), random);
 
-            currentTime = currentTime.plus(duration, ChronoUnit.MILLIS);
-            writeLogEntry(writer, currentTime, "END DEVICE_TEST.SUBTEST");
+            // Removal phase
+            millis += 50 + random.nextInt(200);
+            endLine(beginLine(buffer, millis).put(BEGIN_REMOVAL), random);
+            millis += 300 + random.nextInt(700);
+            endLine(beginLine(buffer, millis).put(END_REMOVAL), random);
         }
 
-        // End device test
-        currentTime = currentTime.plus(100 + random.nextInt(400), ChronoUnit.MILLIS);
-        writeLogEntry(writer, currentTime, "END DEVICE_TEST");
+        /**
+         * Writes the timestamp of a line, wrapping around at midnight.
+         */
+        private static ByteBuffer beginLine(ByteBuffer buffer, long millis) {
+            int millisOfDay = (int) (millis % MILLIS_PER_DAY);
+            buffer.put(TIMESTAMP_PREFIX);
+            putTwoDigits(buffer, millisOfDay / 3_600_000);
+            putTwoDigits(buffer.put((byte) ':'), millisOfDay / 60_000 % 60);
+            putTwoDigits(buffer.put((byte) ':'), millisOfDay / 1000 % 60);
+            int fraction = millisOfDay % 1000;
+            buffer.put((byte) '.').put((byte) ('0' + fraction / 100));
+            putTwoDigits(buffer, fraction % 100);
+            return buffer.put(TIMESTAMP_SUFFIX);
+        }
 
-        // Removal phase
-        currentTime = currentTime.plus(50 + random.nextInt(200), ChronoUnit.MILLIS);
-        writeLogEntry(writer, currentTime, "BEGIN REMOVAL");
-        currentTime = currentTime.plus(300 + random.nextInt(700), ChronoUnit.MILLIS);
-        writeLogEntry(writer, currentTime, "END REMOVAL");
-    }
+        private void endLine(ByteBuffer buffer, SplittableRandom random) {
+            buffer.put((byte) '\n');
+            if (settings.malformedRate() > 0 && random.nextDouble() < settings.malformedRate()) {
+                buffer.put(MALFORMED_LINES[random.nextInt(MALFORMED_LINES.length)]).put((byte) '\n');
+            }
+        }
 
-    private static void writeLogEntry(BufferedWriter writer, LocalTime time, String message) throws IOException {
-        writer.write(String.format("#PE[%s] : %s%n", time.format(TIME_FORMATTER), message));
+        private static void putTwoDigits(ByteBuffer buffer, int value) {
+            buffer.put((byte) ('0' + value / 10)).put((byte) ('0' + value % 10));
+        }
+
+        private static void putDecimal(ByteBuffer buffer, int value) {
+            int divisor = 1;
+            while (divisor <= value / 10) divisor *= 10;
+            for (; divisor > 0; divisor /= 10) buffer.put((byte) ('0' + value / divisor % 10));
+        }
     }
 }
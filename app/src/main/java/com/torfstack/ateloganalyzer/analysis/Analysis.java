@@ -2,20 +2,142 @@ package com.torfstack.ateloganalyzer.analysis;
 
 import lombok.NonNull;
 
-import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Analysis {
     private static final int ACCEPTABLE_DEVIATION_MULTIPLIER = 2;
 
     public static @NonNull AnalysisResult analyzeTestTimes(@NonNull List<TestEvent> events) {
+        return analyzeTestTimes(events, null, null);
+    }
+
+    /**
+     * Like {@link #analyzeTestTimes(List)}, but every event is judged by the anomaly detector of its test type while
+     * the events are visited in log order, instead of against the statistics of all events.
+     */
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull List<TestEvent> events,
+                                                           @NonNull Supplier<AnomalyDetector> detectors) {
+        return analyzeTestTimes(events, detectors, null);
+    }
+
+    /**
+     * @param detectors Creates the anomaly detector of every test type, or null to judge events against the statistics
+     *                  of all events.
+     * @param top       Keeps the anomalies instead of the result's anomaly list, whose summary the result then has, or
+     *                  null to list every anomaly.
+     */
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull List<TestEvent> events,
+                                                           Supplier<AnomalyDetector> detectors, TopAnomalies top) {
         Map<String, Collection<DeviceDuration>> durations = groupDurationsByTestType(events);
         Map<String, TestStatistic> statistics = calculateStatistics(durations);
-        List<TestAnomaly> anomalies = findAnomalies(durations, statistics);
-        return new AnalysisResult(statistics, anomalies);
+        Map<String, List<TestAnomaly>> anomaliesByTestType = new LinkedHashMap<>();
+        durations.keySet().forEach(testType -> anomaliesByTestType.put(testType, new ArrayList<>()));
+        Consumer<TestAnomaly> found = top != null ? top
+                : anomaly -> anomaliesByTestType.get(anomaly.testType()).add(anomaly);
+        Map<String, AnomalyDetector> detectorsByTestType = new HashMap<>();
+        for (TestEvent event : events) {
+            long durationMillis = event.duration().toMillis();
+            if (detectors != null) {
+                TestAnomaly anomaly = detectorsByTestType.computeIfAbsent(event.eventType(), k -> detectors.get())
+                        .observe(event.eventType(), event.deviceInfo(), durationMillis);
+                if (anomaly != null) found.accept(anomaly);
+                continue;
+            }
+            TestStatistic statistic = statistics.get(event.eventType());
+            if (isAnomaly(durationMillis, statistic)) {
+                found.accept(new TestAnomaly(event.eventType(), event.deviceInfo(), durationMillis,
+                        statistic.avgMillis(), statistic.stdDevMillis()));
+            }
+        }
+
+        // Analysis reports anomalies grouped by test type
+        List<TestAnomaly> anomalies = new ArrayList<>();
+        anomaliesByTestType.values().forEach(anomalies::addAll);
+        return result(new AnalysisResult(statistics, calculatePercentiles(durations), anomalies), top);
+    }
+
+    /**
+     * Computes statistics and anomalies directly on the columns of the store, without allocating per event.
+     */
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull EventStore events) {
+        return analyzeTestTimes(events, null, null);
+    }
+
+    /**
+     * Like {@link #analyzeTestTimes(EventStore)}, but every event is judged by the anomaly detector of its test type
+     * while the events are visited in log order, instead of against the statistics of all events.
+     */
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull EventStore events,
+                                                           @NonNull Supplier<AnomalyDetector> detectors) {
+        return analyzeTestTimes(events, detectors, null);
+    }
+
+    /**
+     * @param detectors Creates the anomaly detector of every test type, or null to judge events against the statistics
+     *                  of all events.
+     * @param top       Keeps the anomalies instead of the result's anomaly list, whose summary the result then has, or
+     *                  null to list every anomaly.
+     */
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull EventStore events,
+                                                           Supplier<AnomalyDetector> detectors, TopAnomalies top) {
+        int testTypeCount = events.testTypes().size();
+        StatisticSums[] sums = new StatisticSums[testTypeCount];
+        DurationHistogram[] histograms = new DurationHistogram[testTypeCount];
+        for (int testTypeId = 0; testTypeId < testTypeCount; testTypeId++) {
+            sums[testTypeId] = new StatisticSums();
+            histograms[testTypeId] = new DurationHistogram();
+        }
+        for (int event = 0; event < events.size(); event++) {
+            sums[events.testTypeId(event)].add(events.durationMillis(event));
+            histograms[events.testTypeId(event)].record(events.durationMillis(event));
+        }
+
+        Map<String, TestStatistic> statistics = new LinkedHashMap<>();
+        Map<String, DurationPercentiles> percentiles = new LinkedHashMap<>();
+        TestStatistic[] statisticsById = new TestStatistic[testTypeCount];
+        for (int testTypeId = 0; testTypeId < testTypeCount; testTypeId++) {
+            statisticsById[testTypeId] = sums[testTypeId].toTestStatistic();
+            statistics.put(events.testTypes().name(testTypeId), statisticsById[testTypeId]);
+            percentiles.put(events.testTypes().name(testTypeId), histograms[testTypeId].percentiles());
+        }
+
+        List<List<TestAnomaly>> anomaliesById = new ArrayList<>();
+        for (int testTypeId = 0; testTypeId < testTypeCount; testTypeId++) anomaliesById.add(new ArrayList<>());
+        AnomalyDetector[] detectorsById = new AnomalyDetector[testTypeCount];
+        for (int event = 0; event < events.size(); event++) {
+            int testTypeId = events.testTypeId(event);
+            TestStatistic statistic = statisticsById[testTypeId];
+            TestAnomaly anomaly = null;
+            if (detectors != null) {
+                if (detectorsById[testTypeId] == null) detectorsById[testTypeId] = detectors.get();
+                anomaly = detectorsById[testTypeId].observe(events.testTypes().name(testTypeId),
+                        events.devices().name(events.deviceId(event)), events.durationMillis(event));
+            } else if (isAnomaly(events.durationMillis(event), statistic)) {
+                anomaly = new TestAnomaly(
+                        events.testTypes().name(testTypeId),
+                        events.devices().name(events.deviceId(event)),
+                        events.durationMillis(event),
+                        statistic.avgMillis(),
+                        statistic.stdDevMillis()
+                );
+            }
+            if (anomaly == null) continue;
+            if (top != null) top.accept(anomaly);
+            else anomaliesById.get(testTypeId).add(anomaly);
+        }
+        List<TestAnomaly> anomalies = new ArrayList<>();
+        anomaliesById.forEach(anomalies::addAll);
+
+        return result(new AnalysisResult(statistics, percentiles, anomalies), top);
     }
 
-    private record DeviceDuration(String deviceInfo, Duration duration) {
+    private static AnalysisResult result(AnalysisResult result, TopAnomalies top) {
+        return top != null ? result.withAnomalySummary(top.summary(result.statistics().keySet())) : result;
+    }
+
+    private record DeviceDuration(String deviceInfo, long durationMillis) {
     }
 
     private static Map<String, Collection<DeviceDuration>> groupDurationsByTestType(List<TestEvent> events) {
@@ -23,57 +145,38 @@ public class Analysis {
         for (TestEvent event : events) {
             durations
                     .computeIfAbsent(event.eventType(), k -> new ArrayList<>())
-                    .add(new DeviceDuration(event.deviceInfo(), event.duration()));
+                    .add(new DeviceDuration(event.deviceInfo(), event.duration().toMillis()));
         }
         return durations;
     }
 
+    /**
+     * Sums in exact integers, the same way as the columnar and the incremental analysis, so all of them report the
+     * same statistics.
+     */
     private static Map<String, TestStatistic> calculateStatistics(Map<String, Collection<DeviceDuration>> durations) {
         Map<String, TestStatistic> statistics = new LinkedHashMap<>();
-        for (String testType : durations.keySet()) {
-            Duration total = durations.get(testType)
-                    .stream()
-                    .map(deviceDuration -> deviceDuration.duration)
-                    .reduce(Duration.ofMillis(0L), Duration::plus);
-            Duration avg = total.dividedBy(durations.get(testType).size());
-            Duration variance = durations.get(testType)
-                    .stream()
-                    .map(deviceDuration -> deviceDuration.duration.minus(avg))
-                    .map(duration -> duration.multipliedBy(duration.toMillis()))
-                    .reduce(Duration.ofMillis(0L), Duration::plus)
-                    .dividedBy(durations.get(testType).size());
-            Duration stdDev = Duration.ofMillis((long) Math.sqrt(variance.toMillis()));
-
-            TestStatistic testTypeStatistic = new TestStatistic(
-                    durations.get(testType).size(),
-                    total.toMillis(),
-                    avg.toMillis(),
-                    stdDev.toMillis()
-            );
-            statistics.put(testType, testTypeStatistic);
-        }
+        durations.forEach((testType, deviceDurations) -> {
+            StatisticSums sums = new StatisticSums();
+            for (DeviceDuration deviceDuration : deviceDurations) sums.add(deviceDuration.durationMillis);
+            statistics.put(testType, sums.toTestStatistic());
+        });
         return statistics;
     }
 
-    private static List<TestAnomaly> findAnomalies(Map<String, Collection<DeviceDuration>> durations, Map<String, TestStatistic> statistics) {
-        List<TestAnomaly> anomalies = new ArrayList<>();
-        for (String testType : durations.keySet()) {
-            TestStatistic statisticsForTest = statistics.get(testType);
-            Collection<DeviceDuration> deviceDurations = durations.get(testType);
-            for (DeviceDuration deviceDuration : deviceDurations) {
-                Duration differenceToAverage = deviceDuration.duration.minus(Duration.ofMillis(statisticsForTest.avgMillis()));
-                if (differenceToAverage.isNegative()) differenceToAverage = differenceToAverage.negated();
-                if (Math.abs(differenceToAverage.toMillis()) > ACCEPTABLE_DEVIATION_MULTIPLIER * statisticsForTest.stdDevMillis()) {
-                    anomalies.add(new TestAnomaly(
-                            testType,
-                            deviceDuration.deviceInfo,
-                            deviceDuration.duration.toMillis(),
-                            statisticsForTest.avgMillis(),
-                            statisticsForTest.stdDevMillis()
-                    ));
-                }
-            }
-        }
-        return anomalies;
+    private static Map<String, DurationPercentiles> calculatePercentiles(
+            Map<String, Collection<DeviceDuration>> durations) {
+        Map<String, DurationPercentiles> percentiles = new LinkedHashMap<>();
+        durations.forEach((testType, deviceDurations) -> {
+            DurationHistogram histogram = new DurationHistogram();
+            deviceDurations.forEach(deviceDuration -> histogram.record(deviceDuration.durationMillis));
+            percentiles.put(testType, histogram.percentiles());
+        });
+        return percentiles;
+    }
+
+    static boolean isAnomaly(long durationMillis, TestStatistic statistic) {
+        long differenceToAverage = Math.abs(durationMillis - statistic.avgMillis());
+        return differenceToAverage > ACCEPTABLE_DEVIATION_MULTIPLIER * statistic.stdDevMillis();
     }
 }
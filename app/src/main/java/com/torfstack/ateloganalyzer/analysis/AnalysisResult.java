@@ -3,5 +3,65 @@ package com.torfstack.ateloganalyzer.analysis;
 import java.util.List;
 import java.util.Map;
 
-public record AnalysisResult(Map<String, TestStatistic> statistics, List<TestAnomaly> anomalies) {
+/**
+ * @param percentiles    Duration percentiles of every test type.
+ * @param fileStatistics Statistics of every analyzed file by file name, or null if no per-file breakdown was
+ *                       requested.
+ * @param windows        Statistics of every test type in every time window, or null if no windows were requested.
+ * @param groups         Statistics per device lot, site and test type at a site, or null if no groups were
+ *                       requested.
+ * @param anomalySummary Anomaly counts, slowest anomalies and worst devices, or null if every anomaly is listed in
+ *                       {@code anomalies} instead.
+ */
+public record AnalysisResult(Map<String, TestStatistic> statistics, Map<String, DurationPercentiles> percentiles,
+                             List<TestAnomaly> anomalies, Map<String, Map<String, TestStatistic>> fileStatistics,
+                             List<WindowStatistic> windows, List<GroupStatistic> groups,
+                             AnomalySummary anomalySummary) {
+
+    public AnalysisResult(Map<String, TestStatistic> statistics, List<TestAnomaly> anomalies) {
+        this(statistics, Map.of(), anomalies, null);
+    }
+
+    public AnalysisResult(Map<String, TestStatistic> statistics, Map<String, DurationPercentiles> percentiles,
+                          List<TestAnomaly> anomalies) {
+        this(statistics, percentiles, anomalies, null);
+    }
+
+    public AnalysisResult(Map<String, TestStatistic> statistics, Map<String, DurationPercentiles> percentiles,
+                          List<TestAnomaly> anomalies, Map<String, Map<String, TestStatistic>> fileStatistics) {
+        this(statistics, percentiles, anomalies, fileStatistics, null);
+    }
+
+    public AnalysisResult(Map<String, TestStatistic> statistics, Map<String, DurationPercentiles> percentiles,
+                          List<TestAnomaly> anomalies, Map<String, Map<String, TestStatistic>> fileStatistics,
+                          List<WindowStatistic> windows) {
+        this(statistics, percentiles, anomalies, fileStatistics, windows, null);
+    }
+
+    public AnalysisResult(Map<String, TestStatistic> statistics, Map<String, DurationPercentiles> percentiles,
+                          List<TestAnomaly> anomalies, Map<String, Map<String, TestStatistic>> fileStatistics,
+                          List<WindowStatistic> windows, List<GroupStatistic> groups) {
+        this(statistics, percentiles, anomalies, fileStatistics, windows, groups, null);
+    }
+
+    /**
+     * Returns this result with the given window statistics.
+     */
+    public AnalysisResult withWindows(List<WindowStatistic> windows) {
+        return new AnalysisResult(statistics, percentiles, anomalies, fileStatistics, windows, groups, anomalySummary);
+    }
+
+    /**
+     * Returns this result with the given group statistics.
+     */
+    public AnalysisResult withGroups(List<GroupStatistic> groups) {
+        return new AnalysisResult(statistics, percentiles, anomalies, fileStatistics, windows, groups, anomalySummary);
+    }
+
+    /**
+     * Returns this result with the given anomaly summary in place of its anomaly list.
+     */
+    public AnalysisResult withAnomalySummary(AnomalySummary anomalySummary) {
+        return new AnalysisResult(statistics, percentiles, List.of(), fileStatistics, windows, groups, anomalySummary);
+    }
 }
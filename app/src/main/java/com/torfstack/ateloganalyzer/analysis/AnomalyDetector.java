@@ -0,0 +1,62 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Decides as events arrive whether a duration is an anomaly, judged against the durations of the same test type
+ * before it.
+ * <p>
+ * A detector is used for a single test type. Deciding and learning a duration each take constant time and memory,
+ * so detection can run while the log is parsed, without a second pass over the durations of every test type.
+ */
+public interface AnomalyDetector {
+    /**
+     * The number of durations a detector learns before it reports anomalies.
+     */
+    int MIN_EVENTS = 10;
+
+    /**
+     * Whether the duration is an anomaly compared to the durations learned so far.
+     */
+    boolean isAnomaly(long durationMillis);
+
+    void learn(long durationMillis);
+
+    /**
+     * The duration the detector currently expects, reported as the average of an anomaly.
+     */
+    long expectedMillis();
+
+    /**
+     * The usual deviation from the expected duration, reported as the standard deviation of an anomaly.
+     */
+    long deviationMillis();
+
+    /**
+     * Writes what the detector has learned, so that a detector of the same kind that reads it judges the durations
+     * after it exactly like this one would.
+     */
+    void writeTo(@NonNull DataOutput out) throws IOException;
+
+    /**
+     * Replaces what the detector has learned with the state written by {@link #writeTo(DataOutput)}.
+     */
+    void readFrom(@NonNull DataInput in) throws IOException;
+
+    /**
+     * Judges the duration of an event and then learns it.
+     *
+     * @return The anomaly, or null if the duration is none.
+     */
+    default TestAnomaly observe(@NonNull String testType, String deviceInfo, long durationMillis) {
+        TestAnomaly anomaly = isAnomaly(durationMillis)
+                ? new TestAnomaly(testType, deviceInfo, durationMillis, expectedMillis(), deviationMillis())
+                : null;
+        learn(durationMillis);
+        return anomaly;
+    }
+}
@@ -0,0 +1,21 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What {@link TopAnomalies} kept of the anomalies of an analysis.
+ *
+ * @param counts       Number of anomalies of every test type.
+ * @param slowest      The slowest anomalies of every test type, slowest first.
+ * @param worstDevices The devices whose anomalies took the longest beyond the average, worst first.
+ */
+public record AnomalySummary(Map<String, Long> counts, Map<String, List<TestAnomaly>> slowest,
+                             List<DeviceExcess> worstDevices) {
+
+    /**
+     * @param excessMillis How much longer than the average of their test types the device's anomalies took in total.
+     */
+    public record DeviceExcess(String deviceInfo, long excessMillis) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Min-heap of at most {@code limit} values with the largest long keys, the keys in a primitive array beside the
+ * values. An offered value that does not beat the smallest key costs one comparison.
+ * <p>
+ * Of values with the same key, those that come first by {@code ties} are kept, so the heap ends up with the same
+ * values in whatever order they are offered.
+ */
+final class BoundedHeap<T> {
+    private final int limit;
+    private final Comparator<T> ties;
+    private final long[] keys;
+    private final Object[] values;
+    private int size = 0;
+
+    BoundedHeap(int limit, Comparator<T> ties) {
+        if (limit < 1) throw new IllegalArgumentException("Limit must be positive: " + limit);
+        this.limit = limit;
+        this.ties = ties;
+        this.keys = new long[limit];
+        this.values = new Object[limit];
+    }
+
+    /**
+     * Keeps the value if it is among the largest keys so far, evicting the smallest one if the heap is full.
+     */
+    void offer(long key, T value) {
+        if (size < limit) {
+            keys[size] = key;
+            values[size] = value;
+            siftUp(size++);
+        } else if (key > keys[0] || key == keys[0] && ties.compare(value, value(0)) < 0) {
+            keys[0] = key;
+            values[0] = value;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Passes the values to {@code consumer} from the largest key to the smallest.
+     */
+    void forEachDescending(ObjLongConsumer<T> consumer) {
+        List<Integer> order = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) order.add(i);
+        order.sort((a, b) -> less(a, b) ? 1 : less(b, a) ? -1 : 0);
+        for (int i : order) consumer.accept(value(i), keys[i]);
+    }
+
+    /**
+     * Passes the values to {@code consumer} in no particular order.
+     */
+    void forEach(ObjLongConsumer<T> consumer) {
+        for (int i = 0; i < size; i++) consumer.accept(value(i), keys[i]);
+    }
+
+    /**
+     * Whether the value at {@code i} would be evicted before the one at {@code j}.
+     */
+    private boolean less(int i, int j) {
+        return keys[i] < keys[j] || keys[i] == keys[j] && ties.compare(value(i), value(j)) > 0;
+    }
+
+    private void siftUp(int child) {
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (!less(child, parent)) return;
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int parent) {
+        while (true) {
+            int smallest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && less(left, smallest)) smallest = left;
+            if (right < size && less(right, smallest)) smallest = right;
+            if (smallest == parent) return;
+            swap(parent, smallest);
+            parent = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int i) {
+        return (T) values[i];
+    }
+}
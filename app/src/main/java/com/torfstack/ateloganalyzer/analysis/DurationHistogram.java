@@ -0,0 +1,146 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-memory histogram of durations with log-linear buckets, like an HDR histogram.
+ * <p>
+ * Durations below {@value #EXACT_LIMIT} ms are counted exactly. Above that, every power of two is split into
+ * {@value #SUB_BUCKETS} buckets, so a quantile is reported within 1% of the true value. Recording a duration only
+ * increments a counter, and two histograms are merged by adding their counters. Negative durations are counted as
+ * 0 ms and durations beyond {@value #MAX_TRACKED_MILLIS} ms in the last bucket.
+ */
+public class DurationHistogram {
+    private static final int PRECISION_BITS = 7;
+    private static final int EXACT_LIMIT = 1 << PRECISION_BITS;
+    private static final int SUB_BUCKETS = EXACT_LIMIT / 2;
+    private static final int MAX_TRACKED_BITS = 32;
+    private static final long MAX_TRACKED_MILLIS = (1L << MAX_TRACKED_BITS) - 1;
+    private static final int BUCKET_COUNT = EXACT_LIMIT + (MAX_TRACKED_BITS - PRECISION_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long minMillis = Long.MAX_VALUE;
+    private long maxMillis = Long.MIN_VALUE;
+
+    public void record(long durationMillis) {
+        long value = Math.max(0, Math.min(durationMillis, MAX_TRACKED_MILLIS));
+        counts[bucketOf(value)]++;
+        count++;
+        minMillis = Math.min(minMillis, value);
+        maxMillis = Math.max(maxMillis, value);
+    }
+
+    /**
+     * Adds all durations recorded by {@code other} to this histogram.
+     */
+    public void merge(@NonNull DurationHistogram other) {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        count += other.count;
+        minMillis = Math.min(minMillis, other.minMillis);
+        maxMillis = Math.max(maxMillis, other.maxMillis);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the duration below or at which {@code quantile} of the recorded durations are, e.g. the median for
+     * 0.5.
+     */
+    public long valueAtQuantile(double quantile) {
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) return Math.max(minMillis, Math.min(middleOf(bucket), maxMillis));
+        }
+        return maxMillis;
+    }
+
+    /**
+     * Returns the median distance of the recorded durations from {@code center}, taking every duration as the middle
+     * of its bucket. The buckets are visited outwards from {@code center}, nearest first.
+     */
+    public long medianAbsoluteDeviation(long center) {
+        if (count == 0) return 0;
+
+        long rank = (count + 1) / 2;
+        long seen = 0;
+        int above = bucketOf(Math.max(0, Math.min(center, MAX_TRACKED_MILLIS))), below = above - 1;
+        while (true) {
+            long aboveDistance = above < BUCKET_COUNT ? Math.abs(middleOf(above) - center) : Long.MAX_VALUE;
+            long belowDistance = below >= 0 ? Math.abs(center - middleOf(below)) : Long.MAX_VALUE;
+            if (aboveDistance <= belowDistance) {
+                seen += counts[above++];
+                if (seen >= rank) return aboveDistance;
+            } else {
+                seen += counts[below--];
+                if (seen >= rank) return belowDistance;
+            }
+        }
+    }
+
+    public @NonNull DurationPercentiles percentiles() {
+        return new DurationPercentiles(valueAtQuantile(0.5), valueAtQuantile(0.9), valueAtQuantile(0.99),
+                valueAtQuantile(0.999));
+    }
+
+    /**
+     * Writes the counts of the buckets that have durations.
+     */
+    public void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(minMillis);
+        out.writeLong(maxMillis);
+        int usedBuckets = 0;
+        for (long bucketCount : counts) if (bucketCount != 0) usedBuckets++;
+        out.writeInt(usedBuckets);
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            if (counts[bucket] == 0) continue;
+            out.writeShort(bucket);
+            out.writeLong(counts[bucket]);
+        }
+    }
+
+    /**
+     * Replaces the durations of this histogram with those written by {@link #writeTo(DataOutput)}.
+     *
+     * @throws IOException If the input is not a histogram.
+     */
+    public void readFrom(@NonNull DataInput in) throws IOException {
+        count = in.readLong();
+        minMillis = in.readLong();
+        maxMillis = in.readLong();
+        Arrays.fill(counts, 0);
+        int usedBuckets = in.readInt();
+        for (int i = 0; i < usedBuckets; i++) {
+            int bucket = in.readUnsignedShort();
+            if (bucket >= BUCKET_COUNT) throw new IOException("Invalid histogram bucket " + bucket);
+            counts[bucket] = in.readLong();
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < EXACT_LIMIT) return (int) value;
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - PRECISION_BITS;
+        return EXACT_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long middleOf(int bucket) {
+        if (bucket < EXACT_LIMIT) return bucket;
+        int shift = (bucket - EXACT_LIMIT) / SUB_BUCKETS + 1;
+        long lowest = (long) ((bucket - EXACT_LIMIT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) - 1) / 2;
+    }
+}
@@ -0,0 +1,4 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+public record DurationPercentiles(long p50Millis, long p90Millis, long p99Millis, long p999Millis) {
+}
@@ -0,0 +1,16 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+/**
+ * Receives test events as primitive columns, without a {@link TestEvent} per event.
+ */
+@FunctionalInterface
+public interface EventColumnConsumer {
+    /**
+     * @param beginMillis The begin as milliseconds of the day.
+     * @param endMillis   The end in milliseconds of the day the event began, so beyond a day for events that ended
+     *                    after midnight.
+     * @param testTypeId  The id of the test type in the dictionary of test types the events were parsed with.
+     * @param deviceId    The id of the device in the dictionary of devices the events were parsed with.
+     */
+    void accept(int beginMillis, int endMillis, int testTypeId, int deviceId);
+}
@@ -0,0 +1,98 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compact temporary file of (test type id, device, duration) triples.
+ * <p>
+ * Durations and ids are written as variable-length integers and a device name is only written when it differs from
+ * the one of the previous event, which makes a spilled event take a few bytes instead of a {@link TestEvent}.
+ */
+class EventSpill implements Closeable {
+    private static final int EVENT = 0;
+    private static final int DEVICE = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    interface Visitor {
+        void accept(int testTypeId, String deviceInfo, long durationMillis);
+    }
+
+    private final Path file;
+    private final DataOutputStream out;
+    private String lastDevice = null;
+
+    EventSpill() throws IOException {
+        file = Files.createTempFile("ateloganalyzer-", ".spill");
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    void append(int testTypeId, String deviceInfo, long durationMillis) throws IOException {
+        if (!deviceInfo.equals(lastDevice)) {
+            byte[] device = deviceInfo.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(DEVICE);
+            writeVarLong(out, device.length);
+            out.write(device);
+            lastDevice = deviceInfo;
+        }
+        out.writeByte(EVENT);
+        writeVarLong(out, testTypeId);
+        writeVarLong(out, zigZag(durationMillis));
+    }
+
+    void replay(Visitor visitor) throws IOException {
+        out.flush();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            String device = null;
+            int tag;
+            while ((tag = in.read()) >= 0) {
+                if (tag == DEVICE) {
+                    byte[] bytes = new byte[(int) readVarLong(in)];
+                    in.readFully(bytes);
+                    device = new String(bytes, StandardCharsets.UTF_8);
+                } else {
+                    int testTypeId = (int) readVarLong(in);
+                    long durationMillis = unZigZag(readVarLong(in));
+                    visitor.accept(testTypeId, device, durationMillis);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+}
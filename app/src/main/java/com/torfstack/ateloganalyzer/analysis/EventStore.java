@@ -0,0 +1,247 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Columnar, primitive store of test events.
+ * <p>
+ * Begin is kept as epoch millis, duration as millis and test type and device as ids into {@link StringDictionary}s,
+ * so an event takes four ints, 16 bytes, in block-allocated arrays instead of a {@link TestEvent} with its
+ * {@link LocalTime}s, {@link java.time.Duration} and strings. The begin is stored as an int offset from the begin of
+ * the first event of its block. Only a block whose begins lie more than 24 days apart, which a log of that many
+ * events hardly ever does, keeps them as longs instead.
+ * <p>
+ * Events are added with the millis of the day they began, in the order of the log, and counted from midnight of the
+ * base date. A begin more than half a day before the latest one is taken as the next day, so a log that runs past
+ * midnight keeps increasing, and one more than half a day after it as the previous day.
+ */
+public class EventStore implements Consumer<TestEvent> {
+    private static final int BLOCK_SHIFT = 16;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final long NO_EVENTS = Long.MIN_VALUE;
+
+    private final StringDictionary testTypes = new StringDictionary();
+    private final StringDictionary devices = new StringDictionary();
+    private long[] blockBeginMillis = new long[0];
+    private int[][] beginBlocks = new int[0][];
+    /**
+     * The begins of every block whose offsets do not fit in an int, null for all others.
+     */
+    private long[][] wideBeginBlocks = new long[0][];
+    private int[][] durationBlocks = new int[0][];
+    private int[][] testTypeBlocks = new int[0][];
+    private int[][] deviceBlocks = new int[0][];
+    private int size = 0;
+
+    private final long baseMillis;
+    private long dayStartMillis;
+    private long latestMillis = NO_EVENTS;
+
+    /**
+     * A store whose events are counted from 1970-01-01, so the begin of events of the first day is their millis of
+     * the day.
+     */
+    public EventStore() {
+        this(LocalDate.EPOCH);
+    }
+
+    /**
+     * @param baseDate The date on which the first event began.
+     */
+    public EventStore(@NonNull LocalDate baseDate) {
+        this.baseMillis = baseDate.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        this.dayStartMillis = baseMillis;
+    }
+
+    /**
+     * Adds an event. Events without timestamps are stored as beginning at midnight of the current day.
+     */
+    @Override
+    public void accept(@NonNull TestEvent event) {
+        int durationMillis = (int) event.duration().toMillis();
+        if (event.begin() == null) {
+            append(dayStartMillis, durationMillis, testTypes.id(event.eventType()), devices.id(event.deviceInfo()));
+            return;
+        }
+        int beginMillis = (int) (event.begin().toNanoOfDay() / 1_000_000);
+        add(beginMillis, beginMillis + durationMillis, event.eventType(), event.deviceInfo());
+    }
+
+    public void add(int beginMillis, int endMillis, @NonNull String testType, @NonNull String deviceInfo) {
+        add(beginMillis, endMillis, testTypes.id(testType), devices.id(deviceInfo));
+    }
+
+    /**
+     * @param beginMillis The begin as millis of the day.
+     * @param endMillis   The end in millis of the day the event began.
+     */
+    public void add(int beginMillis, int endMillis, int testTypeId, int deviceId) {
+        append(toEpochMillis(beginMillis), endMillis - beginMillis, testTypeId, deviceId);
+    }
+
+    /**
+     * Merges stores whose events are each in begin order, e.g. those of several log files, into one store in begin
+     * order. The next event is taken from a heap of the stores keyed by the begin of their next event, so merging
+     * compares primitive keys only. Events of a store that are out of order keep their order within the store.
+     */
+    public static @NonNull EventStore merge(@NonNull List<EventStore> stores) {
+        EventStore merged = new EventStore();
+        int[][] testTypeIds = new int[stores.size()][];
+        int[][] deviceIds = new int[stores.size()][];
+        for (int i = 0; i < stores.size(); i++) {
+            testTypeIds[i] = merged.testTypes.ids(stores.get(i).testTypes);
+            deviceIds[i] = merged.devices.ids(stores.get(i).devices);
+        }
+
+        int[] cursors = new int[stores.size()];
+        int[] heap = new int[stores.size()];
+        int heapSize = 0;
+        for (int i = 0; i < stores.size(); i++) {
+            if (stores.get(i).size > 0) heap[heapSize++] = i;
+        }
+        for (int node = heapSize / 2 - 1; node >= 0; node--) siftDown(heap, heapSize, node, stores, cursors);
+
+        while (heapSize > 0) {
+            int storeIndex = heap[0];
+            EventStore store = stores.get(storeIndex);
+            int event = cursors[storeIndex]++;
+            merged.append(store.beginMillis(event), store.durationMillis(event),
+                    testTypeIds[storeIndex][store.testTypeId(event)], deviceIds[storeIndex][store.deviceId(event)]);
+            if (cursors[storeIndex] == store.size) heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, 0, stores, cursors);
+        }
+        return merged;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the begin of the event as epoch millis.
+     */
+    public long beginMillis(int event) {
+        int block = event >>> BLOCK_SHIFT;
+        long[] wideBegins = wideBeginBlocks[block];
+        if (wideBegins != null) return wideBegins[event & BLOCK_MASK];
+        return blockBeginMillis[block] + beginBlocks[block][event & BLOCK_MASK];
+    }
+
+    /**
+     * Returns the end of the event as epoch millis.
+     */
+    public long endMillis(int event) {
+        return beginMillis(event) + durationMillis(event);
+    }
+
+    public int durationMillis(int event) {
+        return durationBlocks[event >>> BLOCK_SHIFT][event & BLOCK_MASK];
+    }
+
+    public int testTypeId(int event) {
+        return testTypeBlocks[event >>> BLOCK_SHIFT][event & BLOCK_MASK];
+    }
+
+    public int deviceId(int event) {
+        return deviceBlocks[event >>> BLOCK_SHIFT][event & BLOCK_MASK];
+    }
+
+    public @NonNull StringDictionary testTypes() {
+        return testTypes;
+    }
+
+    public @NonNull StringDictionary devices() {
+        return devices;
+    }
+
+    private long toEpochMillis(int millisOfDay) {
+        long millis = dayStartMillis + millisOfDay;
+        if (latestMillis != NO_EVENTS) {
+            if (millis < latestMillis - MILLIS_PER_DAY / 2) {
+                dayStartMillis += MILLIS_PER_DAY;
+                millis += MILLIS_PER_DAY;
+            } else if (millis > latestMillis + MILLIS_PER_DAY / 2 && dayStartMillis > baseMillis) {
+                millis -= MILLIS_PER_DAY; // Began shortly before midnight, but was logged after it
+            }
+        }
+        latestMillis = Math.max(latestMillis, millis);
+        return millis;
+    }
+
+    private void append(long beginMillis, int durationMillis, int testTypeId, int deviceId) {
+        int block = size >>> BLOCK_SHIFT;
+        if (block == beginBlocks.length) addBlock();
+
+        int index = size & BLOCK_MASK;
+        if (index == 0) blockBeginMillis[block] = beginMillis;
+        long offset = beginMillis - blockBeginMillis[block];
+        if (wideBeginBlocks[block] == null && offset != (int) offset) widenBegins(block, index);
+        if (wideBeginBlocks[block] != null) {
+            wideBeginBlocks[block][index] = beginMillis;
+        } else {
+            beginBlocks[block][index] = (int) offset;
+        }
+        durationBlocks[block][index] = durationMillis;
+        testTypeBlocks[block][index] = testTypeId;
+        deviceBlocks[block][index] = deviceId;
+        size++;
+    }
+
+    private void addBlock() {
+        int blocks = beginBlocks.length + 1;
+        blockBeginMillis = Arrays.copyOf(blockBeginMillis, blocks);
+        beginBlocks = Arrays.copyOf(beginBlocks, blocks);
+        wideBeginBlocks = Arrays.copyOf(wideBeginBlocks, blocks);
+        durationBlocks = Arrays.copyOf(durationBlocks, blocks);
+        testTypeBlocks = Arrays.copyOf(testTypeBlocks, blocks);
+        deviceBlocks = Arrays.copyOf(deviceBlocks, blocks);
+        beginBlocks[blocks - 1] = new int[BLOCK_SIZE];
+        durationBlocks[blocks - 1] = new int[BLOCK_SIZE];
+        testTypeBlocks[blocks - 1] = new int[BLOCK_SIZE];
+        deviceBlocks[blocks - 1] = new int[BLOCK_SIZE];
+    }
+
+    /**
+     * Moves the begins of the first {@code events} events of the block from offsets to longs.
+     */
+    private void widenBegins(int block, int events) {
+        long[] wideBegins = new long[BLOCK_SIZE];
+        for (int index = 0; index < events; index++) {
+            wideBegins[index] = blockBeginMillis[block] + beginBlocks[block][index];
+        }
+        wideBeginBlocks[block] = wideBegins;
+        beginBlocks[block] = null;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int node, List<EventStore> stores, int[] cursors) {
+        while (true) {
+            int smallest = node, left = 2 * node + 1, right = left + 1;
+            if (left < heapSize
+                    && nextBegin(heap[left], stores, cursors) < nextBegin(heap[smallest], stores, cursors)) {
+                smallest = left;
+            }
+            if (right < heapSize
+                    && nextBegin(heap[right], stores, cursors) < nextBegin(heap[smallest], stores, cursors)) {
+                smallest = right;
+            }
+            if (smallest == node) return;
+            int swapped = heap[node];
+            heap[node] = heap[smallest];
+            heap[smallest] = swapped;
+            node = smallest;
+        }
+    }
+
+    private static long nextBegin(int storeIndex, List<EventStore> stores, int[] cursors) {
+        return stores.get(storeIndex).beginMillis(cursors[storeIndex]);
+    }
+}
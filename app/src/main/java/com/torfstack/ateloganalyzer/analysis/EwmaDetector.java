@@ -0,0 +1,64 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Control chart on the exponentially weighted moving average and variance of the durations.
+ * <p>
+ * Every duration moves the average by {@value #ALPHA} of its deviation, so the detector follows slow drift, e.g. a
+ * fixture heating up over a shift, and a single outlier barely shifts it. A duration is an anomaly if it is outside
+ * the control band of {@value #BAND_WIDTH} moving standard deviations around the moving average.
+ */
+public class EwmaDetector implements AnomalyDetector {
+    private static final double ALPHA = 0.1;
+    private static final double BAND_WIDTH = 3;
+
+    private long count = 0;
+    private double mean = 0;
+    private double variance = 0;
+
+    @Override
+    public boolean isAnomaly(long durationMillis) {
+        return count >= MIN_EVENTS && Math.abs(durationMillis - mean) > BAND_WIDTH * Math.sqrt(variance);
+    }
+
+    @Override
+    public void learn(long durationMillis) {
+        if (count++ == 0) {
+            mean = durationMillis;
+            return;
+        }
+        double deviation = durationMillis - mean;
+        double increment = ALPHA * deviation;
+        mean += increment;
+        variance = (1 - ALPHA) * (variance + deviation * increment);
+    }
+
+    @Override
+    public long expectedMillis() {
+        return Math.round(mean);
+    }
+
+    @Override
+    public long deviationMillis() {
+        return Math.round(Math.sqrt(variance));
+    }
+
+    @Override
+    public void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(variance);
+    }
+
+    @Override
+    public void readFrom(@NonNull DataInput in) throws IOException {
+        count = in.readLong();
+        mean = in.readDouble();
+        variance = in.readDouble();
+    }
+}
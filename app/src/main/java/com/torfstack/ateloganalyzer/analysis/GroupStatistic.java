@@ -0,0 +1,9 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+/**
+ * Statistics of the events of one group. Only the keys the group is keyed by are set, the others are null.
+ *
+ * @param slow Whether the test type takes significantly longer at this site than at all sites together.
+ */
+public record GroupStatistic(String testType, String lot, String site, TestStatistic statistic, boolean slow) {
+}
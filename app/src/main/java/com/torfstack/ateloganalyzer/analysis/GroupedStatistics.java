@@ -0,0 +1,156 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Statistics per device lot, per test site and per test type and site, with the lot and site taken from the device
+ * string of the {@code BEGIN INSERTION} line.
+ * <p>
+ * Events may be accepted from several threads at once, e.g. while several files are parsed concurrently. Every group
+ * sums its durations in {@link LongAdder}s, which spread concurrent updates over cells, and the groups of a device
+ * are looked up once per device, so threads neither share a lock nor allocate per event.
+ */
+public class GroupedStatistics implements Consumer<TestEvent> {
+    /**
+     * Finds the lot and site wherever they are in the device string, e.g. {@code "device #13 lot A17 site 2"}.
+     * Either may be missing.
+     */
+    public static final Pattern DEFAULT_DEVICE_PATTERN = Pattern.compile(
+            "(?i)^(?=(?:.*?\\blot\\W*(?<lot>[\\w.-]+))?)(?=(?:.*?\\bsite\\W*(?<site>\\w+))?)");
+    static final String UNKNOWN = "unknown";
+    private static final int SLOW_SITE_MULTIPLIER = 2;
+
+    private final Pattern devicePattern;
+    private final Map<String, Origin> origins = new ConcurrentHashMap<>();
+    private final Map<String, Aggregate> lots = new ConcurrentHashMap<>();
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    public GroupedStatistics() {
+        this(DEFAULT_DEVICE_PATTERN);
+    }
+
+    /**
+     * @param devicePattern Finds the lot and site in a device string as the named groups {@code lot} and
+     *                      {@code site}. Devices it does not match, or whose groups did not match, are counted as
+     *                      {@value #UNKNOWN}.
+     */
+    public GroupedStatistics(@NonNull Pattern devicePattern) {
+        this.devicePattern = devicePattern;
+    }
+
+    @Override
+    public void accept(@NonNull TestEvent event) {
+        Origin origin = origins.get(event.deviceInfo());
+        if (origin == null) origin = origins.computeIfAbsent(event.deviceInfo(), this::origin);
+
+        long durationMillis = event.duration().toMillis();
+        origin.lot.add(durationMillis);
+        origin.site.all.add(durationMillis);
+        Aggregate testType = origin.site.testTypes.get(event.eventType());
+        if (testType == null) testType = origin.site.testTypes.computeIfAbsent(event.eventType(), k -> new Aggregate());
+        testType.add(durationMillis);
+    }
+
+    /**
+     * Returns the statistics of every lot, then of every site and then of every test type at every site, each
+     * ordered by key. A test type is slow at a site if its average there exceeds the average at all sites by more
+     * than {@value #SLOW_SITE_MULTIPLIER} standard errors.
+     */
+    public @NonNull List<GroupStatistic> groups() {
+        List<GroupStatistic> groups = new ArrayList<>();
+        new TreeMap<>(lots).forEach((lot, aggregate) ->
+                groups.add(new GroupStatistic(null, lot, null, aggregate.toTestStatistic(), false)));
+        Map<String, Site> sortedSites = new TreeMap<>(sites);
+        sortedSites.forEach((site, aggregates) ->
+                groups.add(new GroupStatistic(null, null, site, aggregates.all.toTestStatistic(), false)));
+
+        Map<String, Aggregate> allSites = new TreeMap<>();
+        sortedSites.values().forEach(site -> site.testTypes.forEach((testType, aggregate) ->
+                allSites.computeIfAbsent(testType, k -> new Aggregate()).add(aggregate)));
+        allSites.forEach((testType, all) -> {
+            TestStatistic overall = all.toTestStatistic();
+            double overallMean = all.total.doubleValue() / all.count.sum();
+            sortedSites.forEach((site, aggregates) -> {
+                Aggregate aggregate = aggregates.testTypes.get(testType);
+                if (aggregate == null) return;
+                long count = aggregate.count.sum();
+                double mean = aggregate.total.doubleValue() / count;
+                boolean slow = mean - overallMean > SLOW_SITE_MULTIPLIER * overall.stdDevMillis() / Math.sqrt(count);
+                groups.add(new GroupStatistic(testType, null, site, aggregate.toTestStatistic(), slow));
+            });
+        });
+        return groups;
+    }
+
+    private Origin origin(String device) {
+        Matcher matcher = devicePattern.matcher(device);
+        boolean found = matcher.find();
+        String lot = found ? group(matcher, "lot") : null;
+        String site = found ? group(matcher, "site") : null;
+        return new Origin(lots.computeIfAbsent(lot != null ? lot : UNKNOWN, k -> new Aggregate()),
+                sites.computeIfAbsent(site != null ? site : UNKNOWN, k -> new Site()));
+    }
+
+    private static String group(Matcher matcher, String name) {
+        try {
+            return matcher.group(name);
+        } catch (IllegalArgumentException e) {
+            return null; // The pattern has no such group
+        }
+    }
+
+    /**
+     * The groups the events of a device are added to.
+     */
+    private record Origin(Aggregate lot, Site site) {
+    }
+
+    private static class Site {
+        final Aggregate all = new Aggregate();
+        final Map<String, Aggregate> testTypes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Count, total and sum of squares of durations, which concurrent threads add to without contending. A square is
+     * split into its upper and lower 32 bits, whose sums cannot overflow, and they are joined into the exact
+     * {@link StatisticSums} when the statistic is taken.
+     */
+    private static class Aggregate {
+        final LongAdder count = new LongAdder();
+        final LongAdder total = new LongAdder();
+        final LongAdder squaresUpper = new LongAdder();
+        final LongAdder squaresLower = new LongAdder();
+
+        void add(long durationMillis) {
+            long square = durationMillis * durationMillis;
+            count.increment();
+            total.add(durationMillis);
+            squaresUpper.add(square >>> 32);
+            squaresLower.add(square & 0xFFFFFFFFL);
+        }
+
+        void add(Aggregate other) {
+            count.add(other.count.sum());
+            total.add(other.total.sum());
+            squaresUpper.add(other.squaresUpper.sum());
+            squaresLower.add(other.squaresLower.sum());
+        }
+
+        TestStatistic toTestStatistic() {
+            long upper = squaresUpper.sum();
+            StatisticSums sums = new StatisticSums(count.sum(), total.sum(), upper >>> 32, upper << 32);
+            sums.addSquares(0, squaresLower.sum());
+            return sums.toTestStatistic();
+        }
+    }
+}
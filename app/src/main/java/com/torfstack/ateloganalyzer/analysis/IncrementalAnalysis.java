@@ -0,0 +1,131 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Analysis whose state can be written out after some events and read back to continue with the events after them.
+ * <p>
+ * Every test type keeps only mergeable accumulators, the {@link StatisticSums} and {@link DurationHistogram} of its
+ * durations and its {@link AnomalyDetector}, besides the anomalies found so far, or the {@link TopAnomalies} of them.
+ * So the result is exactly that of {@link Analysis#analyzeTestTimes(List, Supplier, TopAnomalies)} on all events,
+ * however often the analysis was written and read in between, and continuing costs time in proportion to the new
+ * events only.
+ */
+public class IncrementalAnalysis implements Consumer<TestEvent> {
+    private final Map<String, TestTypeState> testTypes = new LinkedHashMap<>();
+    private final Supplier<AnomalyDetector> detectors;
+    private final TopAnomalies top;
+
+    /**
+     * @param detectors Creates the anomaly detector of every test type.
+     */
+    public IncrementalAnalysis(@NonNull Supplier<AnomalyDetector> detectors) {
+        this(detectors, null);
+    }
+
+    /**
+     * @param detectors Creates the anomaly detector of every test type.
+     * @param top       Keeps the anomalies instead of the result's anomaly list, or null to list every anomaly.
+     */
+    public IncrementalAnalysis(@NonNull Supplier<AnomalyDetector> detectors, TopAnomalies top) {
+        this.detectors = detectors;
+        this.top = top;
+    }
+
+    @Override
+    public void accept(@NonNull TestEvent event) {
+        long durationMillis = event.duration().toMillis();
+        TestTypeState state = testTypes.computeIfAbsent(event.eventType(), k -> new TestTypeState(detectors.get()));
+        TestAnomaly anomaly = state.detector.observe(event.eventType(), event.deviceInfo(), durationMillis);
+        if (anomaly != null) {
+            if (top != null) top.accept(anomaly);
+            else state.anomalies.add(anomaly);
+        }
+        state.sums.add(durationMillis);
+        state.histogram.record(durationMillis);
+    }
+
+    /**
+     * Returns the statistics, percentiles and anomalies of all events so far, anomalies grouped by test type, or
+     * their summary.
+     */
+    public @NonNull AnalysisResult result() {
+        Map<String, TestStatistic> statistics = new LinkedHashMap<>();
+        Map<String, DurationPercentiles> percentiles = new LinkedHashMap<>();
+        List<TestAnomaly> anomalies = new ArrayList<>();
+        testTypes.forEach((testType, state) -> {
+            statistics.put(testType, state.sums.toTestStatistic());
+            percentiles.put(testType, state.histogram.percentiles());
+            anomalies.addAll(state.anomalies);
+        });
+        AnalysisResult result = new AnalysisResult(statistics, percentiles, anomalies);
+        return top != null ? result.withAnomalySummary(top.summary(statistics.keySet())) : result;
+    }
+
+    public void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeBoolean(top != null);
+        if (top != null) top.writeTo(out);
+        out.writeInt(testTypes.size());
+        for (Map.Entry<String, TestTypeState> entry : testTypes.entrySet()) {
+            TestTypeState state = entry.getValue();
+            out.writeUTF(entry.getKey());
+            state.sums.writeTo(out);
+            state.histogram.writeTo(out);
+            state.detector.writeTo(out);
+            out.writeInt(state.anomalies.size());
+            for (TestAnomaly anomaly : state.anomalies) {
+                out.writeUTF(anomaly.deviceInfo());
+                out.writeLong(anomaly.durationMillis());
+                out.writeLong(anomaly.averageMillis());
+                out.writeLong(anomaly.stdDevMillis());
+            }
+        }
+    }
+
+    /**
+     * Reads an analysis written by {@link #writeTo(DataOutput)}, with its {@link TopAnomalies} if it had them.
+     * {@code detectors} must create detectors of the same kind as those of the written analysis.
+     */
+    public static @NonNull IncrementalAnalysis readFrom(@NonNull DataInput in,
+                                                        @NonNull Supplier<AnomalyDetector> detectors)
+            throws IOException {
+        IncrementalAnalysis analysis = new IncrementalAnalysis(detectors,
+                in.readBoolean() ? TopAnomalies.readFrom(in) : null);
+        int testTypeCount = in.readInt();
+        for (int i = 0; i < testTypeCount; i++) {
+            String testType = in.readUTF();
+            TestTypeState state = new TestTypeState(detectors.get());
+            state.sums.readFrom(in);
+            state.histogram.readFrom(in);
+            state.detector.readFrom(in);
+            int anomalyCount = in.readInt();
+            for (int j = 0; j < anomalyCount; j++) {
+                state.anomalies.add(new TestAnomaly(testType, in.readUTF(), in.readLong(), in.readLong(),
+                        in.readLong()));
+            }
+            analysis.testTypes.put(testType, state);
+        }
+        return analysis;
+    }
+
+    private static class TestTypeState {
+        final StatisticSums sums = new StatisticSums();
+        final DurationHistogram histogram = new DurationHistogram();
+        final AnomalyDetector detector;
+        final List<TestAnomaly> anomalies = new ArrayList<>();
+
+        TestTypeState(AnomalyDetector detector) {
+            this.detector = detector;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Incremental analysis of a log that is still being written.
+ * <p>
+ * Statistics are updated as every event arrives. Since the final statistics are never known, an event is checked
+ * for being an anomaly by an {@link AnomalyDetector} of its test type, which only knows the events before it.
+ * <p>
+ * Besides the totals, the statistics of every minute of the day are kept, so statistics of a time range can be
+ * queried by merging the minutes in it. Queries share a read lock, so any number of them can run at the same time
+ * and only wait for the short update of a single event.
+ */
+public class LiveAnalysis implements Consumer<TestEvent> {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final Map<String, StatisticSums> sums = new LinkedHashMap<>();
+    private final Map<String, StatisticSums[]> minuteStatistics = new LinkedHashMap<>();
+    private final Map<String, DurationHistogram> histograms = new LinkedHashMap<>();
+    private final Map<String, AnomalyDetector> detectors = new LinkedHashMap<>();
+    private final Supplier<AnomalyDetector> newDetector;
+    private final Deque<TimedAnomaly> anomalies = new ArrayDeque<>();
+    private final int maxAnomalies;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LiveAnalysis() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxAnomalies The number of most recent anomalies to keep.
+     */
+    public LiveAnalysis(int maxAnomalies) {
+        this(maxAnomalies, StdDevDetector::new);
+    }
+
+    /**
+     * @param maxAnomalies The number of most recent anomalies to keep.
+     * @param detectors    Creates the anomaly detector of every test type.
+     */
+    public LiveAnalysis(int maxAnomalies, @NonNull Supplier<AnomalyDetector> detectors) {
+        this.maxAnomalies = maxAnomalies;
+        this.newDetector = detectors;
+    }
+
+    @Override
+    public void accept(@NonNull TestEvent event) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            long durationMillis = event.duration().toMillis();
+            TestAnomaly anomaly = detectors.computeIfAbsent(event.eventType(), k -> newDetector.get())
+                    .observe(event.eventType(), event.deviceInfo(), durationMillis);
+            if (anomaly != null) {
+                if (anomalies.size() == maxAnomalies) anomalies.removeFirst();
+                anomalies.addLast(new TimedAnomaly(event.end(), anomaly));
+            }
+            sums.computeIfAbsent(event.eventType(), k -> new StatisticSums()).add(durationMillis);
+            histograms.computeIfAbsent(event.eventType(), k -> new DurationHistogram()).record(durationMillis);
+            if (event.end() != null) {
+                StatisticSums[] minutes = minuteStatistics.computeIfAbsent(event.eventType(),
+                        k -> new StatisticSums[MINUTES_PER_DAY]);
+                int minute = minuteOfDay(event.end());
+                if (minutes[minute] == null) minutes[minute] = new StatisticSums();
+                minutes[minute].add(durationMillis);
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics, percentiles and anomalies of all events so far.
+     */
+    public @NonNull AnalysisResult snapshot() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            Map<String, TestStatistic> statistics = new LinkedHashMap<>();
+            sums.forEach((testType, statistic) -> statistics.put(testType, statistic.toTestStatistic()));
+            Map<String, DurationPercentiles> percentiles = new LinkedHashMap<>();
+            histograms.forEach((testType, histogram) -> percentiles.put(testType, histogram.percentiles()));
+            return new AnalysisResult(statistics, percentiles, anomalies.stream().map(TimedAnomaly::anomaly).toList());
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics of the events that ended in the minutes from {@code from} up to, but excluding,
+     * {@code to}. Both are truncated to the minute, and a range whose end is before its start wraps around midnight.
+     */
+    public @NonNull Map<String, TestStatistic> statistics(@NonNull LocalTime from, @NonNull LocalTime to) {
+        int fromMinute = minuteOfDay(from), toMinute = minuteOfDay(to);
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            Map<String, TestStatistic> statistics = new LinkedHashMap<>();
+            minuteStatistics.forEach((testType, minutes) -> {
+                StatisticSums range = new StatisticSums();
+                for (int minute = fromMinute; minute != toMinute; minute = (minute + 1) % MINUTES_PER_DAY) {
+                    if (minutes[minute] != null) range.merge(minutes[minute]);
+                }
+                if (range.count() > 0) statistics.put(testType, range.toTestStatistic());
+            });
+            return statistics;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * Returns the most recent anomalies first.
+     *
+     * @param device Only anomalies of this device, or null for all devices.
+     * @param from   Only anomalies at or after this time, or null. Wraps around midnight like
+     *               {@link #statistics(LocalTime, LocalTime)} if after {@code to}.
+     * @param to     Only anomalies before this time, or null.
+     * @param limit  The maximum number of anomalies to return.
+     */
+    public @NonNull List<TimedAnomaly> anomalies(String device, LocalTime from, LocalTime to, int limit) {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            List<TimedAnomaly> found = new ArrayList<>();
+            Iterator<TimedAnomaly> newestFirst = anomalies.descendingIterator();
+            while (newestFirst.hasNext() && found.size() < limit) {
+                TimedAnomaly anomaly = newestFirst.next();
+                if (device != null && !device.equals(anomaly.anomaly().deviceInfo())) continue;
+                if (!inRange(anomaly.time(), from, to)) continue;
+                found.add(anomaly);
+            }
+            return found;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    private static boolean inRange(LocalTime time, LocalTime from, LocalTime to) {
+        if (from == null && to == null) return true;
+        if (time == null) return false;
+        boolean afterFrom = from == null || !time.isBefore(from);
+        boolean beforeTo = to == null || time.isBefore(to);
+        return from != null && to != null && to.isBefore(from) ? afterFrom || beforeTo : afterFrom && beforeTo;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
@@ -0,0 +1,67 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Reports durations whose robust z-score, the distance from the median in median absolute deviations (MAD), is above
+ * {@value #THRESHOLD}.
+ * <p>
+ * Unlike the mean and standard deviation, median and MAD are hardly moved by the outliers themselves. Both are taken
+ * from a {@link DurationHistogram} of all durations so far, so they are accurate to 1%. They are refreshed after
+ * every duration while there are few, and then after every {@value #REFRESH_INTERVAL} durations, which keeps the cost
+ * of the histogram scans constant per duration. The MAD is reported scaled to the standard deviation it estimates
+ * for normally distributed durations.
+ */
+public class MadDetector implements AnomalyDetector {
+    private static final double THRESHOLD = 3.5;
+    private static final double NORMAL_SCALE = 1.4826;
+    private static final int REFRESH_INTERVAL = 64;
+
+    private final DurationHistogram histogram = new DurationHistogram();
+    private long median = 0;
+    private double scaledMad = 0;
+
+    @Override
+    public boolean isAnomaly(long durationMillis) {
+        // A MAD of 0 ms, e.g. for identical durations, would make every other duration an anomaly
+        return histogram.count() >= MIN_EVENTS
+                && Math.abs(durationMillis - median) > THRESHOLD * Math.max(scaledMad, 1);
+    }
+
+    @Override
+    public void learn(long durationMillis) {
+        histogram.record(durationMillis);
+        if (histogram.count() <= REFRESH_INTERVAL || histogram.count() % REFRESH_INTERVAL == 0) {
+            median = histogram.valueAtQuantile(0.5);
+            scaledMad = NORMAL_SCALE * histogram.medianAbsoluteDeviation(median);
+        }
+    }
+
+    @Override
+    public long expectedMillis() {
+        return median;
+    }
+
+    @Override
+    public long deviationMillis() {
+        return Math.round(scaledMad);
+    }
+
+    @Override
+    public void writeTo(@NonNull DataOutput out) throws IOException {
+        histogram.writeTo(out);
+        out.writeLong(median);
+        out.writeDouble(scaledMad);
+    }
+
+    @Override
+    public void readFrom(@NonNull DataInput in) throws IOException {
+        histogram.readFrom(in);
+        median = in.readLong();
+        scaledMad = in.readDouble();
+    }
+}
@@ -0,0 +1,147 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Analyzes several log files as one.
+ * <p>
+ * Every file is parsed concurrently into its own {@link StreamingAnalysis}. The per-file statistic sums and duration
+ * histograms are then merged, which costs the same no matter how many events each file had, and the anomalies of
+ * every file are found against the merged statistics in a second concurrent pass over the files' spills. With
+ * {@link AnomalyDetector}s, the anomalies of every file are found while it is parsed instead, judged against the
+ * earlier events of the same file.
+ */
+public class MultiFileAnalysis {
+
+    @FunctionalInterface
+    public interface Parser {
+        void parseLogFile(String filename, Consumer<TestEvent> events) throws IOException;
+    }
+
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull List<Path> files, @NonNull Parser parser,
+                                                           @NonNull ExecutorService executor,
+                                                           boolean perFileStatistics) throws IOException {
+        return analyzeTestTimes(files, parser, executor, perFileStatistics, null);
+    }
+
+    /**
+     * @param detectors Creates the anomaly detector of every test type in every file, or null to judge all events
+     *                  against the merged statistics.
+     */
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull List<Path> files, @NonNull Parser parser,
+                                                           @NonNull ExecutorService executor,
+                                                           boolean perFileStatistics,
+                                                           Supplier<AnomalyDetector> detectors) throws IOException {
+        return analyzeTestTimes(files, parser, executor, perFileStatistics, detectors, null);
+    }
+
+    /**
+     * @param detectors Creates the anomaly detector of every test type in every file, or null to judge all events
+     *                  against the merged statistics.
+     * @param top       Keeps the anomalies instead of the result's anomaly list, whose summary the result then has, or
+     *                  null to list every anomaly. The anomalies of every file are kept apart concurrently and then
+     *                  merged into it.
+     */
+    public static @NonNull AnalysisResult analyzeTestTimes(@NonNull List<Path> files, @NonNull Parser parser,
+                                                           @NonNull ExecutorService executor,
+                                                           boolean perFileStatistics,
+                                                           Supplier<AnomalyDetector> detectors, TopAnomalies top)
+            throws IOException {
+        List<StreamingAnalysis> analyses = new ArrayList<>();
+        try {
+            List<Callable<StreamingAnalysis>> parseTasks = new ArrayList<>();
+            for (Path file : files) {
+                parseTasks.add(() -> {
+                    StreamingAnalysis analysis = detectors != null
+                            ? new StreamingAnalysis(detectors)
+                            : new StreamingAnalysis();
+                    try {
+                        parser.parseLogFile(file.toString(), analysis);
+                        return analysis;
+                    } catch (IOException | RuntimeException e) {
+                        analysis.close();
+                        throw e;
+                    }
+                });
+            }
+            ExecutionException failure = null;
+            for (Future<StreamingAnalysis> parsed : executor.invokeAll(parseTasks)) {
+                try {
+                    analyses.add(parsed.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e;
+                }
+            }
+            if (failure != null) throw failure;
+
+            Map<String, StatisticSums> merged = new LinkedHashMap<>();
+            Map<String, DurationHistogram> mergedHistograms = new LinkedHashMap<>();
+            Map<String, Map<String, TestStatistic>> fileStatistics = perFileStatistics ? new LinkedHashMap<>() : null;
+            for (int i = 0; i < files.size(); i++) {
+                Map<String, StatisticSums> statisticsOfFile = analyses.get(i).sums();
+                statisticsOfFile.forEach((testType, statistic) ->
+                        merged.computeIfAbsent(testType, k -> new StatisticSums()).merge(statistic));
+                analyses.get(i).histograms().forEach((testType, histogram) ->
+                        mergedHistograms.computeIfAbsent(testType, k -> new DurationHistogram()).merge(histogram));
+                if (fileStatistics != null) {
+                    fileStatistics.put(files.get(i).toString(), toTestStatistics(statisticsOfFile));
+                }
+            }
+            Map<String, TestStatistic> statistics = toTestStatistics(merged);
+            Map<String, DurationPercentiles> percentiles = new LinkedHashMap<>();
+            mergedHistograms.forEach((testType, histogram) -> percentiles.put(testType, histogram.percentiles()));
+
+            if (top != null) {
+                List<Callable<TopAnomalies>> summaryTasks = new ArrayList<>();
+                for (StreamingAnalysis analysis : analyses) {
+                    summaryTasks.add(() -> {
+                        TopAnomalies found = new TopAnomalies(top.limit());
+                        analysis.findAnomalies(statistics, found);
+                        return found;
+                    });
+                }
+                for (Future<TopAnomalies> found : executor.invokeAll(summaryTasks)) top.merge(found.get());
+                return new AnalysisResult(statistics, percentiles, List.of(), fileStatistics)
+                        .withAnomalySummary(top.summary(statistics.keySet()));
+            }
+
+            List<Callable<List<TestAnomaly>>> anomalyTasks = new ArrayList<>();
+            for (StreamingAnalysis analysis : analyses) {
+                anomalyTasks.add(() -> analysis.findAnomalies(statistics));
+            }
+            List<TestAnomaly> anomalies = new ArrayList<>();
+            for (Future<List<TestAnomaly>> found : executor.invokeAll(anomalyTasks)) {
+                anomalies.addAll(found.get());
+            }
+
+            // Analysis reports anomalies grouped by test type
+            List<String> testTypes = new ArrayList<>(statistics.keySet());
+            anomalies.sort(Comparator.comparingInt(anomaly -> testTypes.indexOf(anomaly.testType())));
+            return new AnalysisResult(statistics, percentiles, anomalies, fileStatistics);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Failed to analyze log files", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing log files", e);
+        } finally {
+            for (StreamingAnalysis analysis : analyses) analysis.close();
+        }
+    }
+
+    private static Map<String, TestStatistic> toTestStatistics(Map<String, StatisticSums> sums) {
+        Map<String, TestStatistic> statistics = new LinkedHashMap<>();
+        sums.forEach((testType, statistic) -> statistics.put(testType, statistic.toTestStatistic()));
+        return statistics;
+    }
+}
@@ -0,0 +1,142 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Count, total and sum of squares of durations, kept as exact integers.
+ * <p>
+ * The sum of squares is a 128-bit integer, so nothing is rounded however many durations are added, and the standard
+ * deviation is the exact one, truncated to whole milliseconds. Adding the durations in any order or in any number of
+ * parts that are merged later gives the same statistic, and subtracting a part again leaves no error behind. Every
+ * analysis keeps its durations in these sums, so all of them report the same statistics for the same events.
+ */
+public class StatisticSums {
+    /**
+     * Below this, the root of a 128-bit integer is found from the root of its nearest double, which is off by at most
+     * one.
+     */
+    private static final long MAX_FAST_ROOT_HIGH = 1L << 40;
+
+    private long count = 0;
+    private long totalMillis = 0;
+    private long squaresHigh = 0;
+    private long squaresLow = 0;
+
+    public StatisticSums() {
+    }
+
+    /**
+     * Sums with the given count and total whose sum of squares is {@code squaresHigh * 2^64 + squaresLow}, with
+     * {@code squaresLow} unsigned.
+     */
+    StatisticSums(long count, long totalMillis, long squaresHigh, long squaresLow) {
+        this.count = count;
+        this.totalMillis = totalMillis;
+        this.squaresHigh = squaresHigh;
+        this.squaresLow = squaresLow;
+    }
+
+    public void add(long durationMillis) {
+        count++;
+        totalMillis += durationMillis;
+        addSquares(Math.multiplyHigh(durationMillis, durationMillis), durationMillis * durationMillis);
+    }
+
+    /**
+     * Adds all durations seen by {@code other} to these sums.
+     */
+    public void merge(@NonNull StatisticSums other) {
+        count += other.count;
+        totalMillis += other.totalMillis;
+        addSquares(other.squaresHigh, other.squaresLow);
+    }
+
+    /**
+     * Removes the durations seen by {@code other}, which must all have been added to these sums, again.
+     */
+    public void subtract(@NonNull StatisticSums other) {
+        count -= other.count;
+        totalMillis -= other.totalMillis;
+        addSquares(~other.squaresHigh + (other.squaresLow == 0 ? 1 : 0), -other.squaresLow);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public @NonNull TestStatistic toTestStatistic() {
+        if (count == 0) return new TestStatistic(0, 0, 0, 0);
+        return new TestStatistic((int) count, totalMillis, totalMillis / count, stdDevMillis());
+    }
+
+    public void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(totalMillis);
+        out.writeLong(squaresHigh);
+        out.writeLong(squaresLow);
+    }
+
+    /**
+     * Replaces these sums with those written by {@link #writeTo(DataOutput)}.
+     */
+    public void readFrom(@NonNull DataInput in) throws IOException {
+        count = in.readLong();
+        totalMillis = in.readLong();
+        squaresHigh = in.readLong();
+        squaresLow = in.readLong();
+    }
+
+    void addSquares(long high, long low) {
+        long sum = squaresLow + low;
+        squaresHigh += high + (Long.compareUnsigned(sum, squaresLow) < 0 ? 1 : 0);
+        squaresLow = sum;
+    }
+
+    /**
+     * count^2 * variance = count * sum(d^2) - sum(d)^2, and the truncated root of it divided by count is the truncated
+     * standard deviation. It is worked out in pairs of longs while the sum of squares fits in 63 bits, as it does
+     * for any realistic log, and with {@link BigInteger}s otherwise.
+     */
+    private long stdDevMillis() {
+        if (squaresHigh == 0 && squaresLow >= 0) {
+            long productLow = count * squaresLow;
+            long productHigh = Math.multiplyHigh(count, squaresLow);
+            long totalLow = totalMillis * totalMillis;
+            long totalHigh = Math.multiplyHigh(totalMillis, totalMillis);
+            long low = productLow - totalLow;
+            long high = productHigh - totalHigh - (Long.compareUnsigned(productLow, totalLow) < 0 ? 1 : 0);
+            if (high < MAX_FAST_ROOT_HIGH) return sqrt(high, low) / count;
+        }
+
+        BigInteger n = BigInteger.valueOf(count);
+        BigInteger total = BigInteger.valueOf(totalMillis);
+        BigInteger squares = BigInteger.valueOf(squaresHigh).shiftLeft(Long.SIZE)
+                .add(new BigInteger(Long.toUnsignedString(squaresLow)));
+        return squares.multiply(n).subtract(total.multiply(total)).sqrt().divide(n).longValue();
+    }
+
+    /**
+     * The truncated root of {@code high * 2^64 + low}, with {@code low} unsigned and {@code high} below
+     * {@link #MAX_FAST_ROOT_HIGH}.
+     */
+    private static long sqrt(long high, long low) {
+        double value = high * 0x1p64 + (low >>> 1) * 2.0 + (low & 1);
+        long root = (long) Math.sqrt(value);
+        while (root > 0 && compare(root, high, low) > 0) root--;
+        while (compare(root + 1, high, low) <= 0) root++;
+        return root;
+    }
+
+    /**
+     * Compares {@code root^2} with {@code high * 2^64 + low}.
+     */
+    private static int compare(long root, long high, long low) {
+        long squareHigh = Math.multiplyHigh(root, root);
+        return squareHigh != high ? Long.compare(squareHigh, high) : Long.compareUnsigned(root * root, low);
+    }
+}
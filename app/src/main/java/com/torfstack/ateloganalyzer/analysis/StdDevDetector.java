@@ -0,0 +1,45 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Reports durations further than twice the standard deviation from the mean of all durations before them, like
+ * {@link Analysis} does with the mean and standard deviation of all durations.
+ */
+public class StdDevDetector implements AnomalyDetector {
+    private final StatisticSums statistic = new StatisticSums();
+
+    @Override
+    public boolean isAnomaly(long durationMillis) {
+        return statistic.count() >= MIN_EVENTS && Analysis.isAnomaly(durationMillis, statistic.toTestStatistic());
+    }
+
+    @Override
+    public void learn(long durationMillis) {
+        statistic.add(durationMillis);
+    }
+
+    @Override
+    public long expectedMillis() {
+        return statistic.toTestStatistic().avgMillis();
+    }
+
+    @Override
+    public long deviationMillis() {
+        return statistic.toTestStatistic().stdDevMillis();
+    }
+
+    @Override
+    public void writeTo(@NonNull DataOutput out) throws IOException {
+        statistic.writeTo(out);
+    }
+
+    @Override
+    public void readFrom(@NonNull DataInput in) throws IOException {
+        statistic.readFrom(in);
+    }
+}
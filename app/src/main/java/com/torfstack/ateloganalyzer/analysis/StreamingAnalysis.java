@@ -0,0 +1,151 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Single-pass alternative to {@link Analysis} that consumes events as the parser emits them.
+ * <p>
+ * Statistics are kept as one {@link StatisticSums} per test type, and every event is appended to a compact
+ * {@link EventSpill} on disk. Anomalies need the final statistics, so {@link #finish()} finds them in a second pass
+ * over the spill instead of over retained events. With {@link AnomalyDetector}s, anomalies are found as the events
+ * arrive instead, and nothing is spilled.
+ */
+public class StreamingAnalysis implements Consumer<TestEvent>, Closeable {
+    private final Map<String, Integer> testTypeIds = new LinkedHashMap<>();
+    private final List<StatisticSums> sums = new ArrayList<>();
+    private final List<DurationHistogram> histograms = new ArrayList<>();
+    private final EventSpill spill;
+    private final Supplier<AnomalyDetector> newDetector;
+    private final List<AnomalyDetector> detectors = new ArrayList<>();
+    private final List<TestAnomaly> detectedAnomalies = new ArrayList<>();
+    private long eventCount = 0;
+
+    public StreamingAnalysis() throws IOException {
+        spill = new EventSpill();
+        newDetector = null;
+    }
+
+    /**
+     * @param detectors Creates the anomaly detector of every test type.
+     */
+    public StreamingAnalysis(@NonNull Supplier<AnomalyDetector> detectors) {
+        spill = null;
+        newDetector = detectors;
+    }
+
+    @Override
+    public void accept(@NonNull TestEvent event) {
+        long durationMillis = event.duration().toMillis();
+        int testTypeId = testTypeIds.computeIfAbsent(event.eventType(), k -> {
+            sums.add(new StatisticSums());
+            histograms.add(new DurationHistogram());
+            if (newDetector != null) detectors.add(newDetector.get());
+            return sums.size() - 1;
+        });
+        sums.get(testTypeId).add(durationMillis);
+        histograms.get(testTypeId).record(durationMillis);
+        eventCount++;
+
+        if (spill == null) {
+            TestAnomaly anomaly = detectors.get(testTypeId).observe(event.eventType(), event.deviceInfo(),
+                    durationMillis);
+            if (anomaly != null) detectedAnomalies.add(anomaly);
+            return;
+        }
+        try {
+            spill.append(testTypeId, event.deviceInfo(), durationMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill test event", e);
+        }
+    }
+
+    public long eventCount() {
+        return eventCount;
+    }
+
+    public @NonNull AnalysisResult finish() throws IOException {
+        AnalysisResult summary = summary();
+        return new AnalysisResult(summary.statistics(), summary.percentiles(), findAnomalies(summary.statistics()));
+    }
+
+    /**
+     * Returns the statistics and percentiles of all events so far, without looking for anomalies.
+     */
+    public @NonNull AnalysisResult summary() {
+        Map<String, TestStatistic> statistics = new LinkedHashMap<>();
+        sums().forEach((testType, statistic) -> statistics.put(testType, statistic.toTestStatistic()));
+        Map<String, DurationPercentiles> percentiles = new LinkedHashMap<>();
+        histograms().forEach((testType, histogram) -> percentiles.put(testType, histogram.percentiles()));
+        return new AnalysisResult(statistics, percentiles, List.of());
+    }
+
+    /**
+     * Returns the sums of the durations of every test type seen so far, in order of first appearance.
+     */
+    public @NonNull Map<String, StatisticSums> sums() {
+        Map<String, StatisticSums> statistics = new LinkedHashMap<>();
+        testTypeIds.forEach((testType, id) -> statistics.put(testType, sums.get(id)));
+        return statistics;
+    }
+
+    /**
+     * Returns the duration histogram of every test type seen so far, in order of first appearance.
+     */
+    public @NonNull Map<String, DurationHistogram> histograms() {
+        Map<String, DurationHistogram> histogramsByTestType = new LinkedHashMap<>();
+        testTypeIds.forEach((testType, id) -> histogramsByTestType.put(testType, histograms.get(id)));
+        return histogramsByTestType;
+    }
+
+    /**
+     * Finds the anomalies among the spilled events, judged against the given statistics. These may cover more
+     * events than this analysis has seen, e.g. when several files are analyzed together. With detectors, the
+     * statistics are ignored and the anomalies the detectors found are returned.
+     */
+    public @NonNull List<TestAnomaly> findAnomalies(@NonNull Map<String, TestStatistic> statistics) throws IOException {
+        List<TestAnomaly> anomalies = new ArrayList<>();
+        findAnomalies(statistics, anomalies::add);
+
+        // Analysis reports anomalies grouped by test type
+        anomalies.sort(Comparator.comparingInt(anomaly -> testTypeIds.get(anomaly.testType())));
+        return anomalies;
+    }
+
+    /**
+     * Hands the anomalies among the spilled events to {@code anomalies} as they are found, in the order of the log
+     * rather than grouped by test type, so that they never have to be collected.
+     */
+    public void findAnomalies(@NonNull Map<String, TestStatistic> statistics, @NonNull Consumer<TestAnomaly> anomalies)
+            throws IOException {
+        if (spill == null) {
+            detectedAnomalies.forEach(anomalies);
+            return;
+        }
+
+        List<String> testTypes = new ArrayList<>(testTypeIds.keySet());
+        TestStatistic[] statisticsById = new TestStatistic[testTypes.size()];
+        for (int id = 0; id < testTypes.size(); id++) {
+            statisticsById[id] = statistics.get(testTypes.get(id));
+        }
+
+        spill.replay((testTypeId, deviceInfo, durationMillis) -> {
+            TestStatistic statistic = statisticsById[testTypeId];
+            if (Analysis.isAnomaly(durationMillis, statistic)) {
+                anomalies.accept(new TestAnomaly(testTypes.get(testTypeId), deviceInfo, durationMillis,
+                        statistic.avgMillis(), statistic.stdDevMillis()));
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spill != null) spill.close();
+    }
+}
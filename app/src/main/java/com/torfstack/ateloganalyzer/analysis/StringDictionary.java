@@ -0,0 +1,174 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns strings as dense int ids, assigned in order of first appearance.
+ * <p>
+ * The UTF-8 bytes of all names are appended to one off-heap arena, and names are looked up by their bytes in an
+ * open-addressing table over it, so looking up a known name neither decodes nor allocates. ASCII strings are looked
+ * up the same way, char by char. A name is only decoded into a {@link String} when {@link #name(int)} is first asked
+ * for it, e.g. when a result is written, so a dictionary of many devices costs little more than their bytes.
+ */
+public class StringDictionary {
+    private static final int INITIAL_ARENA_SIZE = 4096;
+
+    private ByteBuffer arena = ByteBuffer.allocateDirect(INITIAL_ARENA_SIZE);
+    /**
+     * Where every name starts in the arena, followed by where the next name would start.
+     */
+    private int[] offsets = new int[17];
+    private int[] hashes = new int[16];
+    private String[] names = new String[16];
+    private int size = 0;
+    /**
+     * The id plus one of the encoded name in every slot, 0 for free slots.
+     */
+    private int[] slots = new int[32];
+
+    public int id(@NonNull String name) {
+        if (!isAscii(name)) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            return id(ByteBuffer.wrap(encoded), 0, encoded.length);
+        }
+
+        int hash = hash(name);
+        for (int slot = hash & (slots.length - 1); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && equals(id, name)) return id;
+        }
+        return add(ByteBuffer.wrap(name.getBytes(StandardCharsets.US_ASCII)), 0, name.length(), hash);
+    }
+
+    /**
+     * Returns the id of the UTF-8 encoded name in {@code [from, to)} of {@code bytes}.
+     */
+    public int id(@NonNull ByteBuffer bytes, int from, int to) {
+        int hash = hash(bytes, from, to);
+        for (int slot = hash & (slots.length - 1); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && equals(id, bytes, from, to)) return id;
+        }
+        if (isAscii(bytes, from, to)) return add(bytes, from, to, hash);
+
+        byte[] encoded = new byte[to - from];
+        bytes.get(from, encoded);
+        String name = new String(encoded, StandardCharsets.UTF_8);
+        byte[] reencoded = name.getBytes(StandardCharsets.UTF_8);
+        if (!Arrays.equals(encoded, reencoded)) {
+            return id(ByteBuffer.wrap(reencoded), 0, reencoded.length); // Invalid UTF-8 that decodes like another name
+        }
+        int id = add(bytes, from, to, hash);
+        names[id] = name;
+        return id;
+    }
+
+    /**
+     * Interns all names of {@code other} and returns their ids in this dictionary, indexed by their ids in
+     * {@code other}.
+     */
+    public int[] ids(@NonNull StringDictionary other) {
+        int[] ids = new int[other.size()];
+        for (int id = 0; id < ids.length; id++) ids[id] = id(other.arena, other.offsets[id], other.offsets[id + 1]);
+        return ids;
+    }
+
+    public @NonNull String name(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("No name with id " + id);
+        String name = names[id];
+        if (name == null) {
+            byte[] encoded = new byte[offsets[id + 1] - offsets[id]];
+            arena.get(offsets[id], encoded);
+            name = new String(encoded, StandardCharsets.UTF_8);
+            names[id] = name;
+        }
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int add(ByteBuffer bytes, int from, int to, int hash) {
+        int id = size++;
+        int start = offsets[id];
+        int end = start + (to - from);
+        if (end > arena.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(end, arena.capacity() * 2));
+            grown.put(0, arena, 0, start);
+            arena = grown;
+        }
+        arena.put(start, bytes, from, to - from);
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            names = Arrays.copyOf(names, id * 2);
+            offsets = Arrays.copyOf(offsets, id * 2 + 1);
+        }
+        offsets[id + 1] = end;
+        hashes[id] = hash;
+
+        if (2 * (id + 1) > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int existing = 0; existing < id; existing++) insert(existing);
+        }
+        insert(id);
+        return id;
+    }
+
+    private void insert(int id) {
+        int slot = hashes[id] & (slots.length - 1);
+        while (slots[slot] != 0) slot = (slot + 1) & (slots.length - 1);
+        slots[slot] = id + 1;
+    }
+
+    private static int hash(ByteBuffer bytes, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) hash = 31 * hash + bytes.get(i);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The same hash as that of the bytes of an ASCII string.
+     */
+    private static int hash(String ascii) {
+        int hash = 1;
+        for (int i = 0; i < ascii.length(); i++) hash = 31 * hash + ascii.charAt(i);
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean equals(int id, ByteBuffer bytes, int from, int to) {
+        int start = offsets[id];
+        if (offsets[id + 1] - start != to - from) return false;
+        for (int i = 0; i < to - from; i++) {
+            if (arena.get(start + i) != bytes.get(from + i)) return false;
+        }
+        return true;
+    }
+
+    private boolean equals(int id, String ascii) {
+        int start = offsets[id];
+        if (offsets[id + 1] - start != ascii.length()) return false;
+        for (int i = 0; i < ascii.length(); i++) {
+            if (arena.get(start + i) != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAscii(ByteBuffer bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes.get(i) < 0) return false;
+        }
+        return true;
+    }
+}
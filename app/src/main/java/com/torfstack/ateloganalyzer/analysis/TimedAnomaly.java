@@ -0,0 +1,9 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import java.time.LocalTime;
+
+/**
+ * An anomaly together with the end time of its event.
+ */
+public record TimedAnomaly(LocalTime time, TestAnomaly anomaly) {
+}
@@ -0,0 +1,170 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the anomalies of an analysis without listing them: how many every test type had, the {@code limit} slowest of
+ * every test type and the {@code limit} devices with the most excess time, the time their anomalies took beyond the
+ * average of their test types.
+ * <p>
+ * The slowest anomalies are kept in a {@link BoundedHeap} per test type, so an anomaly that is not among them costs a
+ * comparison. The excess time of every device with a slow anomaly is added up exactly, as a long per device id in a
+ * {@link StringDictionary}, and only ranked when the summary is taken, so a device with many small anomalies is
+ * ranked by its total. That costs a few bytes more than the name per such device, instead of an object per anomaly.
+ * Summaries of different threads or files are combined with {@link #merge(TopAnomalies)}, which gives the same
+ * summary as keeping all anomalies in one. Not thread-safe.
+ */
+public class TopAnomalies implements Consumer<TestAnomaly> {
+    private static final Comparator<TestAnomaly> TIES = Comparator.comparing(TestAnomaly::deviceInfo)
+            .thenComparingLong(TestAnomaly::averageMillis)
+            .thenComparingLong(TestAnomaly::stdDevMillis);
+
+    private final int limit;
+    private final Map<String, TestTypeAnomalies> testTypes = new LinkedHashMap<>();
+    private final StringDictionary devices = new StringDictionary();
+    private long[] excessMillisByDevice = new long[16];
+
+    /**
+     * @param limit How many of the slowest anomalies of every test type and of the worst devices to keep.
+     */
+    public TopAnomalies(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Limit must be positive: " + limit);
+        this.limit = limit;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void accept(@NonNull TestAnomaly anomaly) {
+        TestTypeAnomalies anomalies = testTypes.computeIfAbsent(anomaly.testType(), k -> new TestTypeAnomalies(limit));
+        anomalies.count++;
+        anomalies.slowest.offer(anomaly.durationMillis(), anomaly);
+        long excessMillis = anomaly.durationMillis() - anomaly.averageMillis();
+        if (excessMillis > 0) addExcess(devices.id(anomaly.deviceInfo()), excessMillis);
+    }
+
+    /**
+     * Adds the anomalies kept by {@code other} to these.
+     */
+    public void merge(@NonNull TopAnomalies other) {
+        other.testTypes.forEach((testType, otherAnomalies) -> {
+            TestTypeAnomalies anomalies = testTypes.computeIfAbsent(testType, k -> new TestTypeAnomalies(limit));
+            anomalies.count += otherAnomalies.count;
+            otherAnomalies.slowest.forEach((anomaly, durationMillis) ->
+                    anomalies.slowest.offer(durationMillis, anomaly));
+        });
+        int[] ids = devices.ids(other.devices);
+        for (int device = 0; device < ids.length; device++) addExcess(ids[device], other.excessMillisByDevice[device]);
+    }
+
+    /**
+     * Returns the summary with the test types in the order they first had anomalies.
+     */
+    public @NonNull AnomalySummary summary() {
+        return summary(testTypes.keySet());
+    }
+
+    /**
+     * Returns the summary with the given test types in their order, those without anomalies with a count of 0.
+     */
+    public @NonNull AnomalySummary summary(@NonNull Collection<String> testTypesInOrder) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        Map<String, List<TestAnomaly>> slowest = new LinkedHashMap<>();
+        for (String testType : testTypesInOrder) {
+            TestTypeAnomalies anomalies = testTypes.get(testType);
+            List<TestAnomaly> slowestOfType = new ArrayList<>();
+            if (anomalies != null) {
+                anomalies.slowest.forEachDescending((anomaly, durationMillis) -> slowestOfType.add(anomaly));
+            }
+            counts.put(testType, anomalies != null ? anomalies.count : 0);
+            slowest.put(testType, slowestOfType);
+        }
+
+        BoundedHeap<String> worst = new BoundedHeap<>(limit, Comparator.<String>naturalOrder());
+        for (int device = 0; device < devices.size(); device++) {
+            worst.offer(excessMillisByDevice[device], devices.name(device));
+        }
+        List<AnomalySummary.DeviceExcess> worstDevices = new ArrayList<>();
+        worst.forEachDescending((device, excessMillis) ->
+                worstDevices.add(new AnomalySummary.DeviceExcess(device, excessMillis)));
+        return new AnomalySummary(counts, slowest, worstDevices);
+    }
+
+    public void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeInt(limit);
+        out.writeInt(testTypes.size());
+        for (Map.Entry<String, TestTypeAnomalies> entry : testTypes.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue().count);
+            List<TestAnomaly> slowest = new ArrayList<>();
+            entry.getValue().slowest.forEachDescending((anomaly, durationMillis) -> slowest.add(anomaly));
+            out.writeInt(slowest.size());
+            for (TestAnomaly anomaly : slowest) {
+                out.writeUTF(anomaly.deviceInfo());
+                out.writeLong(anomaly.durationMillis());
+                out.writeLong(anomaly.averageMillis());
+                out.writeLong(anomaly.stdDevMillis());
+            }
+        }
+        out.writeInt(devices.size());
+        for (int device = 0; device < devices.size(); device++) {
+            out.writeUTF(devices.name(device));
+            out.writeLong(excessMillisByDevice[device]);
+        }
+    }
+
+    /**
+     * Reads the anomalies written by {@link #writeTo(DataOutput)}.
+     */
+    public static @NonNull TopAnomalies readFrom(@NonNull DataInput in) throws IOException {
+        TopAnomalies top = new TopAnomalies(in.readInt());
+        int testTypeCount = in.readInt();
+        for (int i = 0; i < testTypeCount; i++) {
+            String testType = in.readUTF();
+            TestTypeAnomalies anomalies = new TestTypeAnomalies(top.limit);
+            anomalies.count = in.readLong();
+            int slowestCount = in.readInt();
+            for (int j = 0; j < slowestCount; j++) {
+                TestAnomaly anomaly = new TestAnomaly(testType, in.readUTF(), in.readLong(), in.readLong(),
+                        in.readLong());
+                anomalies.slowest.offer(anomaly.durationMillis(), anomaly);
+            }
+            top.testTypes.put(testType, anomalies);
+        }
+        int deviceCount = in.readInt();
+        for (int device = 0; device < deviceCount; device++) {
+            top.addExcess(top.devices.id(in.readUTF()), in.readLong());
+        }
+        return top;
+    }
+
+    private void addExcess(int device, long excessMillis) {
+        if (device >= excessMillisByDevice.length) {
+            excessMillisByDevice = Arrays.copyOf(excessMillisByDevice, Math.max(device + 1, 2 * device));
+        }
+        excessMillisByDevice[device] += excessMillis;
+    }
+
+    private static class TestTypeAnomalies {
+        long count = 0;
+        final BoundedHeap<TestAnomaly> slowest;
+
+        TestTypeAnomalies(int limit) {
+            slowest = new BoundedHeap<>(limit, TIES);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import java.time.LocalDateTime;
+
+/**
+ * Statistics of the events of a test type that began in {@code [start, end)}.
+ */
+public record WindowStatistic(String testType, LocalDateTime start, LocalDateTime end, TestStatistic statistic) {
+}
@@ -0,0 +1,234 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Statistics of every test type in tumbling or sliding time windows, by the begin time of the events.
+ * <p>
+ * Windows are {@code length} long and one starts every {@code slide}, counted from midnight of the day the log
+ * begins on, so windows overlap unless the slide equals the length. Time is cut into panes of the greatest common
+ * divisor of both, and every test type keeps the {@link StatisticSums} of the panes of the current window in a ring,
+ * along with their sum over the whole window. An event is added to its pane and to the window sums, and a pane that
+ * leaves the window is subtracted from them, so every event costs the same however long the windows are.
+ * <p>
+ * Events are expected roughly in the order of the log. An event that begins before the window of the latest event
+ * is counted as late and left out. A begin time more than half a day before the latest one is taken as the next day,
+ * and one more than half a day after it as the previous day. Windows are kept by their epoch millis, so windows of
+ * different days stay apart, also when the windows of logs that begin on different days are merged.
+ */
+public class WindowedStatistics implements Consumer<TestEvent> {
+    private static final long MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+    private static final int MAX_PANES_PER_WINDOW = 1 << 16;
+    private static final long NO_EVENTS = Long.MIN_VALUE;
+
+    private final long lengthMillis;
+    private final long slideMillis;
+    private final long paneMillis;
+    private final int panesPerWindow;
+    private final long panesPerSlide;
+    private final long baseMillis;
+
+    private final Map<String, Ring> rings = new LinkedHashMap<>();
+    private final TreeMap<Long, Map<String, StatisticSums>> closedWindows = new TreeMap<>();
+    private long currentPane = NO_EVENTS;
+    private long openEvents = 0;
+    private long latestMillis = -1;
+    private long dayOffsetMillis = 0;
+    private long lateEvents = 0;
+
+    /**
+     * Windows of a log that begins on 1970-01-01.
+     *
+     * @throws IllegalArgumentException If the windows are not whole milliseconds, the slide is longer than the
+     *                                  windows or the windows would need too many panes.
+     */
+    public WindowedStatistics(@NonNull Duration length, @NonNull Duration slide) {
+        this(length, slide, LocalDate.EPOCH);
+    }
+
+    /**
+     * @param baseDate The date on which the first event began.
+     * @throws IllegalArgumentException If the windows are not whole milliseconds, the slide is longer than the
+     *                                  windows or the windows would need too many panes.
+     */
+    public WindowedStatistics(@NonNull Duration length, @NonNull Duration slide, @NonNull LocalDate baseDate) {
+        if (length.toMillis() <= 0 || slide.toMillis() <= 0 || length.toNanos() % 1_000_000 != 0
+                || slide.toNanos() % 1_000_000 != 0) {
+            throw new IllegalArgumentException("Windows must be positive whole milliseconds");
+        }
+        if (slide.compareTo(length) > 0) {
+            throw new IllegalArgumentException("The slide " + slide + " is longer than the window " + length);
+        }
+        this.lengthMillis = length.toMillis();
+        this.slideMillis = slide.toMillis();
+        this.paneMillis = gcd(lengthMillis, slideMillis);
+        if (lengthMillis / paneMillis > MAX_PANES_PER_WINDOW) {
+            throw new IllegalArgumentException("A window of " + length + " sliding by " + slide + " needs more than "
+                    + MAX_PANES_PER_WINDOW + " panes");
+        }
+        this.panesPerWindow = (int) (lengthMillis / paneMillis);
+        this.panesPerSlide = slideMillis / paneMillis;
+        this.baseMillis = baseDate.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Windows of the given length that do not overlap.
+     */
+    public static @NonNull WindowedStatistics tumbling(@NonNull Duration length) {
+        return new WindowedStatistics(length, length);
+    }
+
+    @Override
+    public void accept(@NonNull TestEvent event) {
+        if (event.begin() == null) return;
+
+        long millis = event.begin().toNanoOfDay() / 1_000_000 + dayOffsetMillis;
+        if (millis < latestMillis - MILLIS_PER_DAY / 2) {
+            dayOffsetMillis += MILLIS_PER_DAY;
+            millis += MILLIS_PER_DAY;
+        } else if (millis > latestMillis + MILLIS_PER_DAY / 2 && dayOffsetMillis > 0) {
+            millis -= MILLIS_PER_DAY; // Began shortly before midnight, but was logged after it
+        }
+        latestMillis = Math.max(latestMillis, millis);
+
+        long pane = millis / paneMillis;
+        if (currentPane == NO_EVENTS) {
+            currentPane = pane;
+        } else if (pane > currentPane) {
+            advanceTo(pane);
+        } else if (pane <= currentPane - panesPerWindow) {
+            lateEvents++;
+            return;
+        }
+        rings.computeIfAbsent(event.eventType(), k -> new Ring(panesPerWindow))
+                .add(slot(pane), event.duration().toMillis());
+        openEvents++;
+    }
+
+    /**
+     * Closes the windows that are still open. Call it after the last event.
+     */
+    public void finish() {
+        if (currentPane != NO_EVENTS) advanceTo(currentPane + panesPerWindow);
+    }
+
+    /**
+     * Adds the closed windows of {@code other}, e.g. of another log file, to those of this one.
+     *
+     * @throws IllegalArgumentException If the windows of {@code other} have another length or slide.
+     */
+    public void merge(@NonNull WindowedStatistics other) {
+        if (other.lengthMillis != lengthMillis || other.slideMillis != slideMillis) {
+            throw new IllegalArgumentException("Cannot merge windows of different lengths or slides");
+        }
+        other.closedWindows.forEach((end, statistics) -> {
+            Map<String, StatisticSums> merged = closedWindows.computeIfAbsent(end, k -> new LinkedHashMap<>());
+            statistics.forEach((testType, sums) ->
+                    merged.computeIfAbsent(testType, k -> new StatisticSums()).merge(sums));
+        });
+        lateEvents += other.lateEvents;
+    }
+
+    /**
+     * Returns the statistics of every test type in every closed window that has events of it, ordered by window.
+     */
+    public @NonNull List<WindowStatistic> windows() {
+        List<WindowStatistic> windows = new ArrayList<>();
+        closedWindows.forEach((end, statistics) -> statistics.forEach((testType, sums) ->
+                windows.add(new WindowStatistic(testType, dateTime(end - lengthMillis), dateTime(end),
+                        sums.toTestStatistic()))));
+        return windows;
+    }
+
+    /**
+     * Returns the number of events that were left out for beginning before the window of the latest event.
+     */
+    public long lateEvents() {
+        return lateEvents;
+    }
+
+    private void advanceTo(long pane) {
+        while (currentPane < pane) {
+            if (openEvents == 0) {
+                // Nothing to close or evict in the panes in between
+                currentPane = pane;
+                return;
+            }
+            currentPane++;
+            if (currentPane % panesPerSlide == 0) closeWindow(currentPane * paneMillis);
+
+            // The pane that leaves the window has the slot of the new pane
+            int slot = slot(currentPane);
+            for (Ring ring : rings.values()) openEvents -= ring.evict(slot);
+        }
+    }
+
+    private void closeWindow(long endMillis) {
+        rings.forEach((testType, ring) -> {
+            if (ring.window.count() == 0) return;
+            closedWindows.computeIfAbsent(baseMillis + endMillis, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(testType, k -> new StatisticSums())
+                    .merge(ring.window);
+        });
+    }
+
+    private int slot(long pane) {
+        return (int) (pane % panesPerWindow);
+    }
+
+    private static LocalDateTime dateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * The panes of the current window of one test type, and their sum.
+     */
+    private static class Ring {
+        final StatisticSums[] panes;
+        final StatisticSums window = new StatisticSums();
+
+        Ring(int panes) {
+            this.panes = new StatisticSums[panes];
+        }
+
+        void add(int slot, long durationMillis) {
+            if (panes[slot] == null) panes[slot] = new StatisticSums();
+            panes[slot].add(durationMillis);
+            window.add(durationMillis);
+        }
+
+        /**
+         * Subtracts the pane in {@code slot} from the window and empties it.
+         *
+         * @return The number of events that were in the pane.
+         */
+        long evict(int slot) {
+            StatisticSums pane = panes[slot];
+            if (pane == null) return 0;
+            window.subtract(pane);
+            panes[slot] = null;
+            return pane.count();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.AnomalyDetector;
+import com.torfstack.ateloganalyzer.analysis.IncrementalAnalysis;
+import com.torfstack.ateloganalyzer.analysis.TopAnomalies;
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Analyzes a growing log in runs that each parse only what was appended since the previous one.
+ * <p>
+ * After every run, the checkpoint file holds the end of the last complete line, the {@link ParseContext} after it
+ * and the {@link IncrementalAnalysis} of the events before it. The next run on the same log reads it, parses from
+ * that offset on with {@link MappedLogScanner} and writes the checkpoint again, so its result is the same as that of
+ * analyzing the whole log. The checkpoint fingerprints the log like {@link EventCache} does, and records the dialect
+ * and detector it was written with and how many top anomalies it keeps; if any of them does not match, the log is
+ * analyzed from the start. With top anomalies, the checkpoint keeps those instead of every anomaly. An incomplete
+ * last line is analyzed, but left out of the checkpoint, since it may still be completed.
+ */
+public class AnalysisCheckpoint {
+    private static final int MAGIC = 0x41544350; // "ATCP"
+    private static final int VERSION = 3; // 3: the standard deviation detector keeps exact sums
+    private static final int CHECKSUM_SIZE = Long.BYTES;
+
+    /**
+     * @param result        The analysis of the whole log.
+     * @param resumedOffset The offset in the log the run started parsing at, 0 if there was no usable checkpoint.
+     * @param logSize       The size of the log, up to which it was parsed.
+     */
+    public record Resumed(AnalysisResult result, long resumedOffset, long logSize) {
+    }
+
+    private record Saved(long offset, IncrementalAnalysis analysis) {
+    }
+
+    /**
+     * Analyzes the log file like {@link #analyzeLogFile(String, Path, LogDialect, String, Supplier, int)}, keeping
+     * every anomaly.
+     */
+    public static @NonNull Resumed analyzeLogFile(@NonNull String filename, @NonNull Path checkpoint,
+                                                  @NonNull LogDialect dialect, @NonNull String detector,
+                                                  @NonNull Supplier<AnomalyDetector> detectors) throws IOException {
+        return analyzeLogFile(filename, checkpoint, dialect, detector, detectors, 0);
+    }
+
+    /**
+     * Analyzes the log file, resuming from the checkpoint if it matches the log, and brings the checkpoint up to
+     * date.
+     *
+     * @param detector  The name of the kind of detectors that {@code detectors} creates.
+     * @param detectors Creates the anomaly detector of every test type.
+     * @param topLimit  How many of the slowest anomalies and worst devices to keep in {@link TopAnomalies} instead of
+     *                  every anomaly, or 0 to keep every anomaly.
+     */
+    public static @NonNull Resumed analyzeLogFile(@NonNull String filename, @NonNull Path checkpoint,
+                                                  @NonNull LogDialect dialect, @NonNull String detector,
+                                                  @NonNull Supplier<AnomalyDetector> detectors, int topLimit)
+            throws IOException {
+        try (FileChannel log = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = log.size();
+            ParseContext context = new ParseContext(dialect);
+            Saved saved = read(checkpoint, log, dialect, detector, topLimit, detectors, context);
+            long from = saved != null ? saved.offset() : 0;
+            IncrementalAnalysis analysis = saved != null ? saved.analysis()
+                    : new IncrementalAnalysis(detectors, topLimit > 0 ? new TopAnomalies(topLimit) : null);
+
+            long covered = EventCache.lastLineEnd(log, from, size);
+            if (covered > from) MappedLogScanner.scan(log, from, covered, context, analysis);
+            if (saved == null || covered > from) {
+                write(checkpoint, log, dialect, detector, topLimit, covered, context, analysis);
+            }
+
+            if (covered < size) {
+                ParseContext tail = new ParseContext(dialect);
+                tail.currentDevice = context.currentDevice;
+                tail.currentSubtest = context.currentSubtest;
+                tail.currentBeginTimestamp = context.currentBeginTimestamp;
+                MappedLogScanner.scan(log, covered, size, tail, analysis);
+            }
+            return new Resumed(analysis.result(), from, size);
+        }
+    }
+
+    /**
+     * Reads the checkpoint into {@code context} and returns the analysis in it, or null if there is no checkpoint or
+     * it does not belong to the log, dialect, detector and top limit.
+     */
+    private static Saved read(Path checkpoint, FileChannel log, LogDialect dialect, String detector, int topLimit,
+                              Supplier<AnomalyDetector> detectors, ParseContext context) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(checkpoint);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try {
+            if (bytes.length < CHECKSUM_SIZE) throw new IOException("Truncated checkpoint");
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, 0, bytes.length - CHECKSUM_SIZE);
+            if (crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - CHECKSUM_SIZE, CHECKSUM_SIZE).getLong()) {
+                throw new IOException("Corrupt checkpoint");
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0,
+                    bytes.length - CHECKSUM_SIZE));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Not a checkpoint");
+            if (!in.readUTF().equals(dialect.definition.toString()) || !in.readUTF().equals(detector)) {
+                throw new IOException("Written with another dialect or detector");
+            }
+            if (in.readInt() != topLimit) throw new IOException("Written with another number of top anomalies");
+            long offset = in.readLong();
+            long headHash = in.readLong();
+            long tailHash = in.readLong();
+            if (log.size() < offset
+                    || EventCache.hash(log, 0, Math.min(EventCache.FINGERPRINT_SIZE, offset)) != headHash
+                    || EventCache.hash(log, Math.max(0, offset - EventCache.FINGERPRINT_SIZE), offset) != tailHash) {
+                throw new IOException("The log was changed before the checkpoint");
+            }
+            context.currentDevice = in.readUTF();
+            context.currentSubtest = in.readUTF();
+            long beginNanos = in.readLong();
+            context.currentBeginTimestamp = beginNanos >= 0 ? LocalTime.ofNanoOfDay(beginNanos) : null;
+            return new Saved(offset, IncrementalAnalysis.readFrom(in, detectors));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Checkpoint " + checkpoint + " does not match the log (" + e.getMessage()
+                    + "), analyzing it from the start.");
+            context.currentDevice = ParseContext.UNKNOWN_DEVICE;
+            context.clearSubtest();
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the checkpoint with the state after the line that ends at {@code offset}.
+     */
+    private static void write(Path checkpoint, FileChannel log, LogDialect dialect, String detector, int topLimit,
+                              long offset, ParseContext context, IncrementalAnalysis analysis) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(dialect.definition.toString());
+        out.writeUTF(detector);
+        out.writeInt(topLimit);
+        out.writeLong(offset);
+        out.writeLong(EventCache.hash(log, 0, Math.min(EventCache.FINGERPRINT_SIZE, offset)));
+        out.writeLong(EventCache.hash(log, Math.max(0, offset - EventCache.FINGERPRINT_SIZE), offset));
+        out.writeUTF(context.currentDevice);
+        out.writeUTF(context.currentSubtest);
+        LocalTime begin = context.currentBeginTimestamp;
+        out.writeLong(begin != null ? begin.toNanoOfDay() : -1);
+        analysis.writeTo(out);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Warning: Cannot write checkpoint " + checkpoint + ": " + e.getMessage());
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.input.CompressedLogScanner.Compression;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a log file on a separate thread and hands it, decompressed if needed, to the parsing thread in blocks
+ * through a bounded queue. A full queue makes the reader wait for the parser, so at most
+ * {@value #QUEUED_BLOCKS} blocks are in memory. The queue ends with {@link #END_OF_INPUT}, after which
+ * {@link #failure} tells whether the whole file was read.
+ */
+class BlockReader extends Thread {
+    static final byte[] END_OF_INPUT = new byte[0];
+    private static final int QUEUED_BLOCKS = 8;
+
+    final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+    private final Path file;
+    private final Compression compression;
+    volatile IOException failure = null;
+
+    BlockReader(Path file, Compression compression) {
+        super("log-reader-" + file.getFileName());
+        setDaemon(true);
+        this.file = file;
+        this.compression = compression;
+    }
+
+    @Override
+    public void run() {
+        int blockSize = CompressedLogScanner.BLOCK_SIZE;
+        try {
+            try (InputStream in = CompressedLogScanner.decompress(
+                    new BufferedInputStream(Files.newInputStream(file), blockSize), compression)) {
+                byte[] block;
+                while ((block = in.readNBytes(blockSize)).length > 0) {
+                    blocks.put(block);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            blocks.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            // Parsing stopped
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.EventColumnConsumer;
+import com.torfstack.ateloganalyzer.analysis.StringDictionary;
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics;
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics.Mismatch;
+
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Primitive counterpart of {@link ParseContext}: the open subtest is kept as millis of the day and names as ids into
+ * dictionaries, and completed events go to an {@link EventColumnConsumer}. The name of the open subtest is copied
+ * out of its BEGIN line, which may be unmapped by the time the END line is read, and only interned once the event is
+ * complete, so every id in the test type dictionary has events.
+ */
+class ColumnParseContext {
+    private static final int MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+    private static final int NONE = -1;
+
+    final LogDialect dialect;
+    final StringDictionary testTypes;
+    final StringDictionary devices;
+    final LineMarkers markers = new LineMarkers();
+    final LineCounters counters = new LineCounters();
+    private final EventColumnConsumer events;
+    private int deviceId = NONE;
+    private ByteBuffer subtestName = ByteBuffer.allocate(64);
+    private int subtestNameLength = NONE;
+    private int beginMillis = NONE;
+    private long[] eventsByTestType = new long[16];
+
+    ColumnParseContext(LogDialect dialect, StringDictionary testTypes, StringDictionary devices,
+                       EventColumnConsumer events) {
+        this.dialect = dialect;
+        this.testTypes = testTypes;
+        this.devices = devices;
+        this.events = events;
+    }
+
+    void beginInsertion(int deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Opens a subtest, unless another one is still active.
+     *
+     * @param line      The line that holds the subtest name.
+     * @param nameRange The range of the name in the line as returned by {@link LogDialect#nameRange}, or -1 if the
+     *                  line did not carry one.
+     */
+    void beginSubtest(int millisOfDay, ByteBuffer line, long nameRange) {
+        if (beginMillis != NONE || subtestNameLength != NONE) {
+            warn(Mismatch.BEGIN_WITHOUT_END, "Warning: " + dialect.definition.beginSubtestMarker()
+                    + " without matching END at " + LocalTime.ofNanoOfDay(millisOfDay * 1_000_000L));
+            return;
+        }
+        beginMillis = millisOfDay;
+        if (nameRange >= 0) {
+            int start = LogDialect.rangeStart(nameRange);
+            subtestNameLength = LogDialect.rangeEnd(nameRange) - start;
+            if (subtestNameLength > subtestName.capacity()) {
+                subtestName = ByteBuffer.allocate(Math.max(subtestNameLength, 2 * subtestName.capacity()));
+            }
+            subtestName.put(0, line, start, subtestNameLength);
+        }
+    }
+
+    /**
+     * Completes the active subtest. A subtest that ends before it began ran past midnight.
+     */
+    void endSubtest(int millisOfDay) {
+        if (beginMillis == NONE) {
+            warn(Mismatch.END_WITHOUT_BEGIN, "Warning: " + dialect.definition.endSubtestMarker()
+                    + " without matching BEGIN at " + LocalTime.ofNanoOfDay(millisOfDay * 1_000_000L));
+            return;
+        }
+        int durationMillis = millisOfDay - beginMillis;
+        if (durationMillis < 0) durationMillis += MILLIS_PER_DAY;
+        int testTypeId = subtestNameLength != NONE ? testTypes.id(subtestName, 0, subtestNameLength)
+                : testTypes.id(ParseContext.UNKNOWN_SUBTEST);
+        events.accept(beginMillis, beginMillis + durationMillis, testTypeId,
+                deviceId != NONE ? deviceId : devices.id(ParseContext.UNKNOWN_DEVICE));
+        if (testTypeId >= eventsByTestType.length) {
+            eventsByTestType = Arrays.copyOf(eventsByTestType, Math.max(testTypeId + 1, eventsByTestType.length * 2));
+        }
+        eventsByTestType[testTypeId]++;
+        subtestNameLength = NONE;
+        beginMillis = NONE;
+    }
+
+    /**
+     * Adds the lines and the events of every test type counted so far to {@link PipelineMetrics}.
+     */
+    void flushMetrics() {
+        counters.flush();
+        for (int testTypeId = 0; testTypeId < eventsByTestType.length; testTypeId++) {
+            if (eventsByTestType[testTypeId] == 0) continue;
+            PipelineMetrics.get().events(testTypes.name(testTypeId), eventsByTestType[testTypeId]);
+            eventsByTestType[testTypeId] = 0;
+        }
+    }
+
+    void warn(Mismatch mismatch, String message) {
+        PipelineMetrics.get().mismatch(mismatch);
+        System.err.println(message);
+    }
+}
@@ -0,0 +1,276 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import lombok.NonNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Parses gzip or zstd compressed log files without decompressing them to disk first.
+ * <p>
+ * The compression is detected from the magic bytes at the start of the file. The file is decompressed on a
+ * separate thread that hands blocks of log bytes to the parsing thread through a bounded queue, so decompression and
+ * parsing overlap. Files made of independently decodable pieces, i.e. the BGZF gzip members written by
+ * {@code bgzip} and the multiple zstd frames written by {@code zstd -B} or {@code pzstd}, can also be decompressed in
+ * parallel on a fork-join pool. The lines are scanned like {@link MappedLogScanner} does.
+ */
+public class CompressedLogScanner {
+    static final int BLOCK_SIZE = 1 << 20;
+    private static final long SPLIT_GROUP_SIZE = 1L << 20;
+    private static final int TASKS_PER_THREAD = 2;
+
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+    private static final int ZSTD_SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final int ZSTD_SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+    private static final int[] ZSTD_DICTIONARY_ID_SIZES = {0, 1, 2, 4};
+    private static final int[] ZSTD_CONTENT_SIZE_SIZES = {0, 2, 4, 8};
+    private static final int GZIP_FEXTRA = 0x04;
+
+    public enum Compression {
+        NONE, GZIP, ZSTD
+    }
+
+    public static @NonNull Compression detect(@NonNull Path file) throws IOException {
+        byte[] magic = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(magic, 0, magic.length);
+        }
+        if (read >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) return Compression.GZIP;
+        if (read == 4 && ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt() == ZSTD_MAGIC) {
+            return Compression.ZSTD;
+        }
+        return Compression.NONE;
+    }
+
+    public static @NonNull List<TestEvent> parseLogFile(@NonNull String filename) throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        parseLogFile(filename, events::add);
+        return events;
+    }
+
+    /**
+     * Parses the log file while a separate thread decompresses it.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull Consumer<TestEvent> events) throws IOException {
+        parseLogFile(filename, LogDialect.DEFAULT, events);
+    }
+
+    public static void parseLogFile(@NonNull String filename, @NonNull LogDialect dialect,
+                                    @NonNull Consumer<TestEvent> events) throws IOException {
+        Path file = Paths.get(filename);
+        BlockReader reader = new BlockReader(file, detect(file));
+        reader.start();
+        try {
+            LineBuffer lines = new LineBuffer(BLOCK_SIZE, new ParseContext(dialect), events);
+            byte[] block;
+            while ((block = reader.blocks.take()) != BlockReader.END_OF_INPUT) {
+                lines.write(ByteBuffer.wrap(block));
+            }
+            if (reader.failure != null) throw reader.failure;
+            lines.scanPartialLine();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + filename, e);
+        } finally {
+            reader.interrupt(); // Stops decoding if parsing failed
+        }
+    }
+
+    /**
+     * Parses the log file while its pieces are decompressed in parallel on {@code pool}. Files that cannot be split
+     * are decompressed on a single separate thread like {@link #parseLogFile(String, Consumer)} does.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull ForkJoinPool pool,
+                                    @NonNull Consumer<TestEvent> events) throws IOException {
+        parseLogFile(filename, pool, LogDialect.DEFAULT, events);
+    }
+
+    public static void parseLogFile(@NonNull String filename, @NonNull ForkJoinPool pool, @NonNull LogDialect dialect,
+                                    @NonNull Consumer<TestEvent> events) throws IOException {
+        parseLogFile(filename, pool, SPLIT_GROUP_SIZE, dialect, events);
+    }
+
+    static void parseLogFile(String filename, ForkJoinPool pool, long groupSize, Consumer<TestEvent> events)
+            throws IOException {
+        parseLogFile(filename, pool, groupSize, LogDialect.DEFAULT, events);
+    }
+
+    private static void parseLogFile(String filename, ForkJoinPool pool, long groupSize, LogDialect dialect,
+                                     Consumer<TestEvent> events) throws IOException {
+        Path file = Paths.get(filename);
+        Compression compression = detect(file);
+
+        Deque<ForkJoinTask<byte[]>> decoding = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Long> pieces = splitPoints(channel, compression);
+            List<Long> groups = pieces != null ? group(pieces, groupSize) : List.of();
+            if (groups.size() <= 2) {
+                parseLogFile(filename, dialect, events);
+                return;
+            }
+
+            // Decode a bounded number of groups ahead of the one being parsed
+            int maxDecoding = pool.getParallelism() * TASKS_PER_THREAD;
+            LineBuffer lines = new LineBuffer(BLOCK_SIZE, new ParseContext(dialect), events);
+            int next = 0;
+            while (next + 1 < groups.size() || !decoding.isEmpty()) {
+                while (next + 1 < groups.size() && decoding.size() < maxDecoding) {
+                    long from = groups.get(next), to = groups.get(next + 1);
+                    decoding.add(pool.submit(() -> decode(channel, from, to, compression)));
+                    next++;
+                }
+                lines.write(ByteBuffer.wrap(decoding.removeFirst().get()));
+            }
+            lines.scanPartialLine();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + filename, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException("Failed to decompress " + filename, e.getCause());
+        } finally {
+            decoding.forEach(task -> task.cancel(true));
+        }
+    }
+
+    private static byte[] decode(FileChannel channel, long from, long to, Compression compression) {
+        try {
+            ByteBuffer compressed = read(channel, from, (int) (to - from));
+            try (InputStream in = decompress(new ByteArrayInputStream(compressed.array()), compression)) {
+                return in.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static InputStream decompress(InputStream in, Compression compression) throws IOException {
+        return switch (compression) {
+            case GZIP -> new GZIPInputStream(in, BLOCK_SIZE);
+            case ZSTD -> new ZstdInputStream(in);
+            case NONE -> in;
+        };
+    }
+
+    /**
+     * Finds the offsets of the independently decodable pieces of the file.
+     *
+     * @return The start of every piece followed by the file size, or null if the file cannot be split.
+     */
+    static List<Long> splitPoints(FileChannel channel, Compression compression) throws IOException {
+        return switch (compression) {
+            case GZIP -> bgzfBlocks(channel);
+            case ZSTD -> zstdFrames(channel);
+            case NONE -> null;
+        };
+    }
+
+    /**
+     * Walks the gzip members using the compressed size that BGZF stores in the {@code BC} extra field of every
+     * member header.
+     */
+    private static List<Long> bgzfBlocks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> offsets = new ArrayList<>();
+        long offset = 0;
+        while (offset < size) {
+            offsets.add(offset);
+            ByteBuffer header = read(channel, offset, 12);
+            if ((header.get(0) & 0xff) != 0x1f || (header.get(1) & 0xff) != 0x8b
+                    || (header.get(3) & GZIP_FEXTRA) == 0) {
+                return null;
+            }
+
+            int extraLength = Short.toUnsignedInt(header.getShort(10));
+            ByteBuffer extra = read(channel, offset + 12, extraLength);
+            long blockSize = -1;
+            for (int field = 0; field + 4 <= extraLength; field += 4 + Short.toUnsignedInt(extra.getShort(field + 2))) {
+                if (extra.get(field) == 'B' && extra.get(field + 1) == 'C' && extra.getShort(field + 2) == 2) {
+                    blockSize = Short.toUnsignedInt(extra.getShort(field + 4)) + 1;
+                }
+            }
+            if (blockSize < 0) return null;
+            offset += blockSize;
+        }
+        offsets.add(size);
+        return offsets;
+    }
+
+    /**
+     * Walks the zstd frames using the frame and block headers, without decompressing anything.
+     */
+    private static List<Long> zstdFrames(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> offsets = new ArrayList<>();
+        long offset = 0;
+        while (offset < size) {
+            offsets.add(offset);
+            int magic = read(channel, offset, 4).getInt(0);
+            if ((magic & ZSTD_SKIPPABLE_MAGIC_MASK) == ZSTD_SKIPPABLE_MAGIC) {
+                offset += 8 + Integer.toUnsignedLong(read(channel, offset + 4, 4).getInt(0));
+                continue;
+            }
+            if (magic != ZSTD_MAGIC) throw new IOException("No zstd frame at offset " + offset);
+
+            int descriptor = read(channel, offset + 4, 1).get(0) & 0xff;
+            boolean singleSegment = (descriptor & 0x20) != 0;
+            int contentSizeFlag = descriptor >>> 6;
+            int headerSize = 1 + (singleSegment ? 0 : 1) + ZSTD_DICTIONARY_ID_SIZES[descriptor & 0x03]
+                    + (contentSizeFlag == 0 && singleSegment ? 1 : ZSTD_CONTENT_SIZE_SIZES[contentSizeFlag]);
+            offset += 4 + headerSize;
+
+            boolean lastBlock;
+            do {
+                ByteBuffer blockHeader = read(channel, offset, 3);
+                int header = (blockHeader.get(0) & 0xff) | (blockHeader.get(1) & 0xff) << 8
+                        | (blockHeader.get(2) & 0xff) << 16;
+                lastBlock = (header & 1) != 0;
+                int blockType = (header >>> 1) & 0x03;
+                if (blockType == 3) throw new IOException("Invalid zstd block at offset " + offset);
+                offset += 3 + (blockType == 1 ? 1 : header >>> 3); // RLE blocks store a single byte
+            } while (!lastBlock);
+
+            if ((descriptor & 0x04) != 0) offset += 4; // Content checksum
+        }
+        offsets.add(size);
+        return offsets;
+    }
+
+    /**
+     * Joins consecutive pieces until every group has at least {@code groupSize} compressed bytes.
+     */
+    private static List<Long> group(List<Long> pieces, long groupSize) {
+        List<Long> groups = new ArrayList<>();
+        groups.add(pieces.getFirst());
+        for (int i = 1; i < pieces.size() - 1; i++) {
+            if (pieces.get(i) - groups.getLast() >= groupSize) groups.add(pieces.get(i));
+        }
+        if (pieces.getLast() > groups.getLast()) groups.add(pieces.getLast());
+        return groups;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, offset + bytes.position()) < 0) {
+                throw new EOFException("Truncated compressed log at offset " + (offset + bytes.position()));
+            }
+        }
+        return bytes.flip();
+    }
+}
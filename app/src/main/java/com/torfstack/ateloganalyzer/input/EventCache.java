@@ -0,0 +1,443 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.StringDictionary;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Caches the events parsed from a log file in a binary sidecar file, so that later runs on the same log do not parse
+ * it again.
+ * <p>
+ * The sidecar {@code <log>.atecache} holds a fixed header, the events as records and a trailer with the parser state
+ * after the last cached line. An event record stores the begin as a delta to the begin of the previous event, the
+ * duration, and dictionary ids of test type and device, all as variable-length integers; a name is stored once, when
+ * it first appears. The header fingerprints the log by size, modification time and hashes of its first bytes and of
+ * the bytes before the end of the cached lines.
+ * <p>
+ * If the fingerprint still matches, the cached events are replayed from the memory-mapped sidecar and only lines
+ * appended since are parsed, with {@link MappedLogScanner}, and added to the sidecar. Any other change to the log
+ * makes it be parsed from the start again. Replayed events do not repeat the warnings that parsing them printed.
+ */
+public class EventCache {
+    private static final String SUFFIX = ".atecache";
+    private static final int MAGIC = 0x41544543; // "ATEC"
+    private static final int VERSION = 2; // 2: subtests past midnight no longer have negative durations
+    private static final int HEADER_SIZE = 80;
+    static final int FINGERPRINT_SIZE = 4096;
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int EVENT = 0;
+    private static final int TEST_TYPE = 1;
+    private static final int DEVICE = 2;
+
+    public static @NonNull Path sidecarOf(@NonNull Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + SUFFIX);
+    }
+
+    public static boolean isSidecar(@NonNull Path file) {
+        return file.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    public static @NonNull List<TestEvent> parseLogFile(@NonNull String filename) throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        parseLogFile(filename, events::add);
+        return events;
+    }
+
+    /**
+     * Hands the events of the log file to {@code events}, from the sidecar as far as it is still valid and parsed
+     * from the log for the rest, and brings the sidecar up to date.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull Consumer<TestEvent> events) throws IOException {
+        Path logFile = Paths.get(filename);
+        Path sidecar = sidecarOf(logFile);
+        try (FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = log.size();
+            long modified = Files.getLastModifiedTime(logFile).toMillis();
+
+            Header cached = Header.read(sidecar);
+            if (cached != null && cached.fingerprintMatches(log)) {
+                try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+                    Writer writer = Writer.replay(channel, cached, events);
+                    if (writer != null) {
+                        boolean changed = size != cached.logSize() || modified != cached.logModified();
+                        parse(log, size, modified, cached.coveredOffset(), writer, changed, events);
+                        return;
+                    }
+                }
+                // The sidecar is corrupt, parse the log again
+            }
+
+            Path temporary = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                System.err.println("Warning: Cannot write event cache " + sidecar + ": " + e.getMessage());
+                MappedLogScanner.scan(log, 0, size, new ParseContext(), events);
+                return;
+            }
+            try {
+                try (channel) {
+                    parse(log, size, modified, 0, new Writer(channel), true, events);
+                }
+                Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /**
+     * Parses the complete lines after {@code from} into the sidecar, and the incomplete last line, if any, without
+     * caching it, since it may still be completed.
+     */
+    private static void parse(FileChannel log, long size, long modified, long from, Writer writer, boolean changed,
+                              Consumer<TestEvent> events) throws IOException {
+        long covered = lastLineEnd(log, from, size);
+        if (covered > from) {
+            MappedLogScanner.scan(log, from, covered, writer.context, event -> {
+                writer.append(event);
+                events.accept(event);
+            });
+        }
+        if (changed || covered > from) {
+            writer.finish(size, modified, covered, hash(log, 0, Math.min(FINGERPRINT_SIZE, covered)),
+                    hash(log, Math.max(0, covered - FINGERPRINT_SIZE), covered));
+        }
+
+        if (covered < size) {
+            ParseContext context = new ParseContext();
+            context.currentDevice = writer.context.currentDevice;
+            context.currentSubtest = writer.context.currentSubtest;
+            context.currentBeginTimestamp = writer.context.currentBeginTimestamp;
+            MappedLogScanner.scan(log, covered, size, context, events);
+        }
+    }
+
+    static long lastLineEnd(FileChannel log, long from, long size) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        for (long end = size; end > from; end -= bytes.capacity()) {
+            long start = Math.max(from, end - bytes.capacity());
+            bytes.clear().limit((int) (end - start));
+            while (bytes.hasRemaining()) {
+                if (log.read(bytes, start + bytes.position()) < 0) return from;
+            }
+            for (int i = bytes.limit() - 1; i >= 0; i--) {
+                if (bytes.get(i) == '\n') return start + i + 1;
+            }
+        }
+        return from;
+    }
+
+    static long hash(FileChannel log, long from, long to) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        while (bytes.hasRemaining()) {
+            if (log.read(bytes, from + bytes.position()) < 0) break;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.flip());
+        return crc.getValue();
+    }
+
+    /**
+     * @param coveredOffset The end of the last cached line.
+     * @param recordsHash   CRC32C of the records, which end at {@code trailerOffset}.
+     * @param trailerHash   CRC32C of the trailer, which ends at the end of the sidecar.
+     */
+    private record Header(long logSize, long logModified, long coveredOffset, long headHash, long tailHash,
+                          long eventCount, long trailerOffset, long recordsHash, long trailerHash) {
+
+        static Header read(Path sidecar) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE);
+            try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes) < 0) return null;
+                }
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            bytes.flip();
+            if (bytes.getInt() != MAGIC || bytes.getInt() != VERSION) return null;
+            return new Header(bytes.getLong(), bytes.getLong(), bytes.getLong(), bytes.getLong(), bytes.getLong(),
+                    bytes.getLong(), bytes.getLong(), bytes.getLong(), bytes.getLong());
+        }
+
+        /**
+         * Whether the log still starts with the lines that were cached, i.e. is unchanged or only appended to.
+         */
+        boolean fingerprintMatches(FileChannel log) throws IOException {
+            return log.size() >= coveredOffset
+                    && hash(log, 0, Math.min(FINGERPRINT_SIZE, coveredOffset)) == headHash
+                    && hash(log, Math.max(0, coveredOffset - FINGERPRINT_SIZE), coveredOffset) == tailHash;
+        }
+
+        ByteBuffer toBytes() {
+            return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(logSize)
+                    .putLong(logModified).putLong(coveredOffset).putLong(headHash).putLong(tailHash)
+                    .putLong(eventCount).putLong(trailerOffset).putLong(recordsHash).putLong(trailerHash).flip();
+        }
+    }
+
+    /**
+     * Appends event records to a sidecar and finally writes its trailer and header.
+     */
+    private static class Writer {
+        final ParseContext context = new ParseContext();
+        private final FileChannel channel;
+        private final StringDictionary testTypes;
+        private final StringDictionary devices;
+        private final CRC32C recordsHash;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long position;
+        private long eventCount;
+        private int lastBeginMillis;
+
+        Writer(FileChannel channel) {
+            this(channel, HEADER_SIZE, new StringDictionary(), new StringDictionary(), new CRC32C(), 0, 0);
+        }
+
+        private Writer(FileChannel channel, long position, StringDictionary testTypes, StringDictionary devices,
+                       CRC32C recordsHash, long eventCount, int lastBeginMillis) {
+            this.channel = channel;
+            this.position = position;
+            this.testTypes = testTypes;
+            this.devices = devices;
+            this.recordsHash = recordsHash;
+            this.eventCount = eventCount;
+            this.lastBeginMillis = lastBeginMillis;
+        }
+
+        /**
+         * Replays the events of the sidecar and returns a writer that appends to it, positioned at its trailer.
+         *
+         * @return The writer, or null without replaying anything if the sidecar is corrupt.
+         */
+        static Writer replay(FileChannel channel, Header header, Consumer<TestEvent> events) throws IOException {
+            long size = channel.size();
+            if (header.trailerOffset() < HEADER_SIZE || header.trailerOffset() > size) return null;
+
+            // Check the hashes first, so that nothing is replayed from a corrupt sidecar
+            CRC32C recordsHash = new CRC32C();
+            for (long from = HEADER_SIZE; from < header.trailerOffset(); from += MAX_WINDOW_SIZE) {
+                recordsHash.update(channel.map(FileChannel.MapMode.READ_ONLY, from,
+                        Math.min(MAX_WINDOW_SIZE, header.trailerOffset() - from)));
+            }
+            MappedByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, header.trailerOffset(),
+                    size - header.trailerOffset());
+            CRC32C trailerHash = new CRC32C();
+            trailerHash.update(trailer.duplicate());
+            if (recordsHash.getValue() != header.recordsHash() || trailerHash.getValue() != header.trailerHash()) {
+                return null;
+            }
+
+            Writer writer = new Writer(channel, header.trailerOffset(), new StringDictionary(),
+                    new StringDictionary(), recordsHash, header.eventCount(), 0);
+            try {
+                writer.replayRecords(header.trailerOffset(), events);
+                writer.context.currentDevice = readString(trailer);
+                writer.context.currentSubtest = readString(trailer);
+                long beginMillis = unZigZag(readVarLong(trailer));
+                writer.context.currentBeginTimestamp = beginMillis >= 0 ? toLocalTime(beginMillis) : null;
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                     | DateTimeException e) {
+                throw new IOException("Corrupt event cache", e);
+            }
+            return writer;
+        }
+
+        private void replayRecords(long end, Consumer<TestEvent> events) throws IOException {
+            long windowStart = HEADER_SIZE;
+            while (windowStart < end) {
+                long windowSize = Math.min(MAX_WINDOW_SIZE, end - windowStart);
+                boolean lastWindow = windowStart + windowSize == end;
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+                int recordStart = 0;
+                long replayed = windowSize;
+                try {
+                    while (records.hasRemaining()) {
+                        recordStart = records.position();
+                        replayRecord(records, events);
+                    }
+                } catch (BufferUnderflowException e) {
+                    if (lastWindow || recordStart == 0) throw e;
+                    replayed = recordStart; // The record continues in the next window, remap starting at it
+                }
+                windowStart += replayed;
+            }
+        }
+
+        private void replayRecord(ByteBuffer records, Consumer<TestEvent> events) {
+            int tag = records.get();
+            switch (tag) {
+                case TEST_TYPE -> testTypes.id(readString(records));
+                case DEVICE -> devices.id(readString(records));
+                case EVENT -> {
+                    String testType = testTypes.name((int) readVarLong(records));
+                    String device = devices.name((int) readVarLong(records));
+                    int beginMillis = lastBeginMillis + (int) unZigZag(readVarLong(records));
+                    long durationMillis = unZigZag(readVarLong(records));
+                    lastBeginMillis = beginMillis;
+                    events.accept(new TestEvent(toLocalTime(beginMillis), toLocalTime(beginMillis + durationMillis),
+                            Duration.ofMillis(durationMillis), testType, device));
+                }
+                default -> throw new IllegalArgumentException("Unknown record " + tag);
+            }
+        }
+
+        void append(TestEvent event) {
+            try {
+                int testTypeId = id(testTypes, TEST_TYPE, event.eventType());
+                int deviceId = id(devices, DEVICE, event.deviceInfo());
+                int beginMillis = (int) (event.begin().toNanoOfDay() / 1_000_000);
+                ensureRemaining(1 + 4 * 10);
+                buffer.put((byte) EVENT);
+                writeVarLong(buffer, testTypeId);
+                writeVarLong(buffer, deviceId);
+                writeVarLong(buffer, zigZag(beginMillis - lastBeginMillis));
+                writeVarLong(buffer, zigZag(event.duration().toMillis()));
+                lastBeginMillis = beginMillis;
+                eventCount++;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write event cache", e);
+            }
+        }
+
+        private int id(StringDictionary dictionary, int tag, String name) throws IOException {
+            int size = dictionary.size();
+            int id = dictionary.id(name);
+            if (id == size) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                ensureRemaining(1 + 5 + bytes.length);
+                buffer.put((byte) tag);
+                writeString(buffer, bytes);
+            }
+            return id;
+        }
+
+        /**
+         * Writes the trailer and then the header, which only makes the appended records part of the sidecar.
+         */
+        void finish(long logSize, long logModified, long coveredOffset, long headHash, long tailHash)
+                throws IOException {
+            flush();
+            long trailerOffset = position;
+            CRC32C trailerHash = new CRC32C();
+            ByteBuffer trailer = encodeTrailer();
+            trailerHash.update(trailer.duplicate());
+            write(trailer);
+            channel.truncate(position);
+            channel.force(false);
+
+            Header header = new Header(logSize, logModified, coveredOffset, headHash, tailHash, eventCount,
+                    trailerOffset, recordsHash.getValue(), trailerHash.getValue());
+            ByteBuffer headerBytes = header.toBytes();
+            while (headerBytes.hasRemaining()) channel.write(headerBytes, headerBytes.position());
+            channel.force(false);
+        }
+
+        private ByteBuffer encodeTrailer() {
+            byte[] device = context.currentDevice.getBytes(StandardCharsets.UTF_8);
+            byte[] subtest = context.currentSubtest.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer trailer = ByteBuffer.allocate(3 * 10 + device.length + subtest.length);
+            writeString(trailer, device);
+            writeString(trailer, subtest);
+            LocalTime begin = context.currentBeginTimestamp;
+            writeVarLong(trailer, zigZag(begin != null ? begin.toNanoOfDay() / 1_000_000 : -1));
+            return trailer.flip();
+        }
+
+        private void ensureRemaining(int bytes) {
+            if (buffer.remaining() >= bytes) return;
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write event cache", e);
+            }
+            if (buffer.remaining() < bytes) buffer = ByteBuffer.allocate(bytes);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            recordsHash.update(buffer.duplicate());
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        }
+
+    }
+
+    /**
+     * The end of a subtest that ran past midnight is beyond the day and wraps around.
+     */
+    private static LocalTime toLocalTime(long millisOfDay) {
+        return LocalTime.ofNanoOfDay(Math.floorMod(millisOfDay, MILLIS_PER_DAY) * 1_000_000);
+    }
+
+    private static void writeString(ByteBuffer bytes, byte[] value) {
+        writeVarLong(bytes, value.length);
+        bytes.put(value);
+    }
+
+    private static void writeVarLong(ByteBuffer bytes, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        bytes.put((byte) value);
+    }
+
+    private static String readString(ByteBuffer bytes) {
+        byte[] value = new byte[(int) readVarLong(bytes)];
+        bytes.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(ByteBuffer bytes) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = bytes.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+}
@@ -3,16 +3,20 @@ package com.torfstack.ateloganalyzer.input;
 import com.torfstack.ateloganalyzer.analysis.TestEvent;
 import lombok.NonNull;
 
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.time.Duration;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 import static com.torfstack.ateloganalyzer.constants.Constants.TIME_FORMATTER;
 
@@ -22,62 +26,80 @@ public class Input {
     private static final Pattern DEVICE_PATTERN = Pattern.compile("BEGIN INSERTION \"(.+)\"");
     private static final Pattern SUBTEST_NAME_PATTERN = Pattern.compile("DEVICE_TEST.SUBTEST \"(.+)\"");
 
-    private static class ParseContext {
-        String currentDevice = "Unknown Device";
-        String currentSubtest = "Unknown Subtest";
-        LocalTime currentBeginTimestamp = null;
-
-        void clearSubtest() {
-            currentSubtest = "Unknown Subtest";
-            currentBeginTimestamp = null;
-        }
-
-        boolean isSubtestActive() {
-            return currentBeginTimestamp != null || !currentSubtest.equals("Unknown Subtest");
-        }
-    }
-
     public static @NonNull List<TestEvent> parseLogFile(@NonNull String filename) throws IOException {
         List<TestEvent> events = new ArrayList<>();
+        parseLogFile(filename, events::add);
+        return events;
+    }
+
+    /**
+     * Parses the log file and hands every event to {@code events} as soon as its END line is read. The bytes scanned
+     * are those the reader has taken from the file, so they are counted in steps of its buffer, but add up to the
+     * size of the file like those of the other parsers.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull Consumer<TestEvent> events) throws IOException {
         ParseContext context = new ParseContext();
 
-        try (Stream<String> lines = Files.lines(Paths.get(filename))) {
-            lines.forEach(line -> {
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(Paths.get(filename)));
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()))) {
+            long countedBytes = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                context.counters.line((int) (in.bytes - countedBytes));
+                countedBytes = in.bytes;
                 Matcher deviceMatcher = DEVICE_PATTERN.matcher(line);
-                context.currentDevice = deviceMatcher.find() ? deviceMatcher.group(1) : context.currentDevice;
+                if (deviceMatcher.find()) context.beginInsertion(deviceMatcher.group(1));
 
                 Matcher subtestMatcher = SUBTEST_NAME_PATTERN.matcher(line);
-                String currentSubtest = subtestMatcher.find() ? subtestMatcher.group(1) : context.currentSubtest;
+                String currentSubtest = subtestMatcher.find()
+                        ? context.subtests.name(context.subtests.id(subtestMatcher.group(1)))
+                        : context.currentSubtest;
 
                 Matcher timestampMatcher = TIMESTAMP_PATTERN.matcher(line);
                 String timestampString = timestampMatcher.find() ? timestampMatcher.group(1) : null;
-                if (timestampString == null) return;
+                if (timestampString == null) {
+                    context.counters.withoutTimestamp();
+                    continue;
+                }
                 LocalTime timestamp = LocalTime.parse(timestampString, TIME_FORMATTER);
 
                 boolean isBeginSubtest = line.contains("BEGIN DEVICE_TEST.SUBTEST");
                 boolean isEndSubtest = line.contains("END DEVICE_TEST.SUBTEST");
 
                 if (isBeginSubtest) {
-                    if (context.isSubtestActive()) {
-                        System.err.println("Warning: BEGIN DEVICE_TEST.SUBTEST without matching END at " + timestamp);
-                        return; // Skip this event if a subtest is already active
-                    }
-                    context.currentBeginTimestamp = timestamp;
-                    context.currentSubtest = currentSubtest;
+                    context.beginSubtest(timestamp, currentSubtest);
                 } else if (isEndSubtest) {
-                    if (context.currentBeginTimestamp == null) {
-                        System.err.println("Warning: END DEVICE_TEST.SUBTEST without matching BEGIN at " + timestamp);
-                        return; // Skip this event if no begin timestamp is set
-                    }
-                    TestEvent event = new TestEvent(context.currentBeginTimestamp, timestamp,
-                            Duration.between(context.currentBeginTimestamp, timestamp),
-                            context.currentSubtest, context.currentDevice);
-                    events.add(event);
-                    context.clearSubtest();
+                    TestEvent event = context.endSubtest(timestamp);
+                    if (event != null) events.accept(event);
                 }
-            });
+            }
         }
+        context.counters.flush();
+    }
 
-        return events;
+    /**
+     * Counts the bytes read from the file, which the reader takes in whole buffers.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        long bytes = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) bytes++;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) bytes += read;
+            return read;
+        }
     }
 }
@@ -0,0 +1,74 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Collects log bytes that arrive in pieces and scans every line with {@link MappedLogScanner} as soon as it is
+ * complete. The rest of an incomplete line is kept until the piece that completes it arrives.
+ */
+class LineBuffer {
+    private final ParseContext context;
+    private final Consumer<TestEvent> events;
+    private ByteBuffer buffer;
+
+    LineBuffer(int capacity, ParseContext context, Consumer<TestEvent> events) {
+        this.buffer = ByteBuffer.allocate(capacity);
+        this.context = context;
+        this.events = events;
+    }
+
+    /**
+     * Returns the buffer to put further bytes into. {@link #scanCompleteLines()} must be called after filling it.
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    void write(ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            int length = Math.min(bytes.remaining(), buffer.remaining());
+            buffer.put(bytes.slice(bytes.position(), length));
+            bytes.position(bytes.position() + length);
+            scanCompleteLines();
+        }
+    }
+
+    void scanCompleteLines() {
+        buffer.flip();
+        int lineStart = 0;
+        int lineEnd;
+        while ((lineEnd = MappedLogScanner.indexOf(buffer, (byte) '\n', lineStart, buffer.limit())) >= 0) {
+            MappedLogScanner.scanLine(buffer, lineStart, lineEnd, context, events);
+            lineStart = lineEnd + 1;
+        }
+        buffer.position(lineStart);
+        buffer.compact();
+        context.counters.flush();
+
+        if (!buffer.hasRemaining()) {
+            // A single line longer than the buffer, keep reading into a larger one
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+        }
+    }
+
+    /**
+     * Scans the kept bytes as the last line, for input that will not be continued.
+     */
+    void scanPartialLine() {
+        buffer.flip();
+        if (buffer.hasRemaining()) MappedLogScanner.scanLine(buffer, 0, buffer.limit(), context, events);
+        buffer.clear();
+        context.counters.flush();
+    }
+
+    /**
+     * Drops the kept bytes and the device and subtest of the lines scanned so far, for input that starts over.
+     */
+    void clear() {
+        buffer.clear();
+        context.reset();
+    }
+}
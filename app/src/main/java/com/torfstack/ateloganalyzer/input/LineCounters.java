@@ -0,0 +1,49 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The lines a parse context has scanned and the events it completed, counted in plain fields and added to
+ * {@link PipelineMetrics} every {@value #FLUSH_LINES} lines and once the scan is done, so that counting a line is no
+ * more than incrementing a field, and counting an event no more than looking up its test type in a plain map.
+ */
+class LineCounters {
+    private static final int FLUSH_LINES = 1 << 16;
+
+    private long lines = 0;
+    private long bytes = 0;
+    private long withoutTimestamp = 0;
+    private final Map<String, long[]> eventsByTestType = new HashMap<>();
+
+    /**
+     * @param lineBytes The length of the line, including its line break.
+     */
+    void line(int lineBytes) {
+        bytes += lineBytes;
+        if (++lines == FLUSH_LINES) flush();
+    }
+
+    void withoutTimestamp() {
+        withoutTimestamp++;
+    }
+
+    void event(String testType) {
+        eventsByTestType.computeIfAbsent(testType, k -> new long[1])[0]++;
+    }
+
+    void flush() {
+        PipelineMetrics metrics = PipelineMetrics.get();
+        metrics.linesScanned(lines, bytes);
+        metrics.linesWithoutTimestamp(withoutTimestamp);
+        eventsByTestType.forEach((testType, events) -> {
+            if (events[0] > 0) metrics.events(testType, events[0]);
+            events[0] = 0;
+        });
+        lines = 0;
+        bytes = 0;
+        withoutTimestamp = 0;
+    }
+}
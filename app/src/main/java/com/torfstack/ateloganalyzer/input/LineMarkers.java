@@ -0,0 +1,45 @@
+package com.torfstack.ateloganalyzer.input;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The positions just after the first occurrence of every marker of a {@link LogDialect} in a line, or -1 for markers
+ * that do not occur. Reused for every line, so finding them does not allocate.
+ */
+class LineMarkers {
+    int timestampAt;
+    int insertionAt;
+    int beginSubtestAt;
+    boolean isEndSubtest;
+
+    /**
+     * Finds all markers of the dialect in a single pass over the line.
+     */
+    void find(LogDialect dialect, ByteBuffer line, int start, int end) {
+        int[] transitions = dialect.transitions;
+        byte[] matches = dialect.matches;
+        timestampAt = -1;
+        insertionAt = -1;
+        beginSubtestAt = -1;
+        isEndSubtest = false;
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            state = transitions[(state << 8) | (line.get(i) & 0xff)];
+            int matched = matches[state];
+            if (matched != 0) {
+                if ((matched & LogDialect.TIMESTAMP) != 0 && timestampAt < 0) timestampAt = i + 1;
+                if ((matched & LogDialect.INSERTION) != 0 && insertionAt < 0) insertionAt = i + 1;
+                if ((matched & LogDialect.BEGIN_SUBTEST) != 0 && beginSubtestAt < 0) beginSubtestAt = i + 1;
+                if ((matched & LogDialect.END_SUBTEST) != 0) isEndSubtest = true;
+            }
+        }
+        if (dialect.timestampAtLineStart) timestampAt = start;
+    }
+
+    /**
+     * Whether the line begins a subtest, which an END marker that contains the BEGIN marker rules out.
+     */
+    boolean isBeginSubtest(LogDialect dialect) {
+        return beginSubtestAt >= 0 && !(isEndSubtest && dialect.endContainsBegin);
+    }
+}
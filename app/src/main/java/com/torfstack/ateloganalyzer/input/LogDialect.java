@@ -0,0 +1,266 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The markers and timestamp layout of a tester's log format, compiled for the byte-level scanners.
+ * <p>
+ * All markers of a dialect are compiled into one Aho-Corasick automaton with a transition for every byte, so a
+ * line is matched against all of them in a single pass that costs one table lookup per byte, just like the
+ * hand-written matching it replaces. The timestamp is decoded by a {@link TimestampLayout} compiled from the layout.
+ */
+public class LogDialect {
+    /**
+     * How a quoted name ends: at the last closing quote of the line, so names may contain quotes, or at the first.
+     */
+    public enum QuoteEnd {
+        LAST, FIRST
+    }
+
+    /**
+     * A dialect as written in a JSON dialect file. Without a {@code timestampPrefix}, lines start with the timestamp.
+     * The names of devices and subtests follow their marker, optionally after whitespace, between {@code openQuote}
+     * and {@code closeQuote}, which are double quotes unless given. With an empty {@code openQuote} the rest of the
+     * line is the name.
+     */
+    public record Definition(String name, String timestampPrefix, String timestampLayout, String timestampSuffix,
+                             String insertionMarker, String beginSubtestMarker, String endSubtestMarker,
+                             String openQuote, String closeQuote, QuoteEnd quoteEnd) {
+    }
+
+    public static final Definition ATE = new Definition("ate", "#PE[", "HH:mm:ss.SSS", "]", "BEGIN INSERTION",
+            "BEGIN DEVICE_TEST.SUBTEST", "END DEVICE_TEST.SUBTEST", "\"", "\"", QuoteEnd.LAST);
+
+    public static final LogDialect DEFAULT = compile(ATE);
+
+    static final int TIMESTAMP = 1, INSERTION = 2, BEGIN_SUBTEST = 4, END_SUBTEST = 8;
+    private static final int ALPHABET = 256;
+
+    final Definition definition;
+    final TimestampLayout timestampLayout;
+    final boolean timestampAtLineStart;
+    final byte[] timestampSuffix;
+    final byte[] openQuote;
+    final byte[] closeQuote;
+    final boolean quoteToLastClose;
+    /**
+     * Whether the END marker contains the BEGIN marker, like {@code STEP END} and {@code STEP}, so that END lines
+     * must not be taken for BEGIN lines.
+     */
+    final boolean endContainsBegin;
+    /**
+     * The automaton state after reading a byte in a state is {@code transitions[state * 256 + byte]}.
+     */
+    final int[] transitions;
+    /**
+     * The markers that end when the automaton enters a state, as a combination of {@link #TIMESTAMP},
+     * {@link #INSERTION}, {@link #BEGIN_SUBTEST} and {@link #END_SUBTEST}.
+     */
+    final byte[] matches;
+
+    private LogDialect(Definition definition) {
+        this.definition = definition;
+        this.timestampLayout = TimestampLayout.compile(required(definition.timestampLayout(), "timestampLayout"));
+        this.timestampAtLineStart = bytes(definition.timestampPrefix()).length == 0;
+        this.timestampSuffix = bytes(definition.timestampSuffix());
+        this.openQuote = definition.openQuote() != null ? bytes(definition.openQuote()) : bytes("\"");
+        this.closeQuote = definition.closeQuote() != null ? bytes(definition.closeQuote()) : openQuote;
+        this.quoteToLastClose = definition.quoteEnd() != QuoteEnd.FIRST;
+        if (openQuote.length > 0 && closeQuote.length == 0) {
+            throw new IllegalArgumentException("Dialect " + definition.name() + " has an openQuote but no closeQuote");
+        }
+
+        List<byte[]> markers = List.of(bytes(definition.timestampPrefix()),
+                bytes(required(definition.insertionMarker(), "insertionMarker")),
+                bytes(required(definition.beginSubtestMarker(), "beginSubtestMarker")),
+                bytes(required(definition.endSubtestMarker(), "endSubtestMarker")));
+        this.endContainsBegin = definition.endSubtestMarker().contains(definition.beginSubtestMarker());
+        Automaton automaton = new Automaton(markers);
+        this.transitions = automaton.transitions;
+        this.matches = automaton.matches;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the definition lacks a marker or has an unsupported timestamp layout.
+     */
+    public static @NonNull LogDialect compile(@NonNull Definition definition) {
+        return new LogDialect(definition);
+    }
+
+    /**
+     * Reads a dialect definition from a JSON file whose properties are the components of {@link Definition}.
+     *
+     * @throws IOException If the file cannot be read or does not define a valid dialect.
+     */
+    public static @NonNull LogDialect load(@NonNull Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            Definition definition = new Gson().fromJson(reader, Definition.class);
+            if (definition == null) throw new IOException("Empty dialect file " + file);
+            return compile(definition);
+        } catch (JsonParseException | IllegalArgumentException e) {
+            throw new IOException("Invalid dialect file " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public @NonNull String name() {
+        return definition.name() != null ? definition.name() : "unnamed";
+    }
+
+    /**
+     * Whether the line contains the marker of a {@code BEGIN INSERTION} line.
+     */
+    boolean containsInsertion(ByteBuffer line, int start, int end) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            state = transitions[(state << 8) | (line.get(i) & 0xff)];
+            if ((matches[state] & INSERTION) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the name that starts after a marker ending at {@code from}, or null if there is none.
+     */
+    String name(ByteBuffer line, int from, int end) {
+        long range = nameRange(line, from, end);
+        if (range < 0) return null;
+
+        byte[] name = new byte[rangeEnd(range) - rangeStart(range)];
+        line.get(rangeStart(range), name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the name that starts after a marker ending at {@code from} without decoding it.
+     *
+     * @return The start and end of the name, packed for {@link #rangeStart(long)} and {@link #rangeEnd(long)}, or
+     * -1 if there is none.
+     */
+    long nameRange(ByteBuffer line, int from, int end) {
+        while (from < end && (line.get(from) == ' ' || line.get(from) == '\t')) from++;
+
+        int nameEnd;
+        if (openQuote.length == 0) {
+            nameEnd = end;
+            while (nameEnd > from && Character.isWhitespace(line.get(nameEnd - 1))) nameEnd--;
+        } else {
+            if (!MappedLogScanner.matches(line, from, end, openQuote)) return -1;
+            from += openQuote.length;
+            nameEnd = quoteToLastClose ? lastIndexOf(line, closeQuote, from, end)
+                    : indexOf(line, closeQuote, from, end);
+        }
+        if (nameEnd <= from) return -1;
+        return (long) from << 32 | nameEnd;
+    }
+
+    static int rangeStart(long range) {
+        return (int) (range >>> 32);
+    }
+
+    static int rangeEnd(long range) {
+        return (int) range;
+    }
+
+    private static int indexOf(ByteBuffer line, byte[] literal, int from, int end) {
+        for (int i = from; i + literal.length <= end; i++) {
+            if (MappedLogScanner.matches(line, i, end, literal)) return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(ByteBuffer line, byte[] literal, int from, int end) {
+        for (int i = end - literal.length; i >= from; i--) {
+            if (MappedLogScanner.matches(line, i, end, literal)) return i;
+        }
+        return -1;
+    }
+
+    private String required(String value, String property) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Dialect " + definition.name() + " has no " + property);
+        }
+        return value;
+    }
+
+    private static byte[] bytes(String literal) {
+        return literal != null ? literal.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    /**
+     * Aho-Corasick automaton over up to eight markers, with the failure links resolved into a full transition
+     * table. An empty marker never matches.
+     */
+    private static class Automaton {
+        final int[] transitions;
+        final byte[] matches;
+
+        Automaton(List<byte[]> markers) {
+            // Trie of the markers, -1 for missing edges
+            List<int[]> edges = new ArrayList<>();
+            List<Integer> outputs = new ArrayList<>();
+            edges.add(newState());
+            outputs.add(0);
+            for (int marker = 0; marker < markers.size(); marker++) {
+                if (markers.get(marker).length == 0) continue;
+                int state = 0;
+                for (byte b : markers.get(marker)) {
+                    int next = edges.get(state)[b & 0xff];
+                    if (next < 0) {
+                        next = edges.size();
+                        edges.get(state)[b & 0xff] = next;
+                        edges.add(newState());
+                        outputs.add(0);
+                    }
+                    state = next;
+                }
+                outputs.set(state, outputs.get(state) | 1 << marker);
+            }
+
+            // Breadth-first, so the failure state of every state is complete before the state itself
+            int states = edges.size();
+            int[] failure = new int[states];
+            transitions = new int[states * ALPHABET];
+            matches = new byte[states];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int b = 0; b < ALPHABET; b++) {
+                int next = edges.get(0)[b];
+                transitions[b] = Math.max(next, 0);
+                if (next > 0) queue.add(next);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.remove();
+                matches[state] = (byte) (outputs.get(state) | matches[failure[state]]);
+                for (int b = 0; b < ALPHABET; b++) {
+                    int next = edges.get(state)[b];
+                    if (next < 0) {
+                        transitions[state * ALPHABET + b] = transitions[failure[state] * ALPHABET + b];
+                    } else {
+                        transitions[state * ALPHABET + b] = next;
+                        failure[next] = transitions[failure[state] * ALPHABET + b];
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+
+        private static int[] newState() {
+            int[] edges = new int[ALPHABET];
+            Arrays.fill(edges, -1);
+            return edges;
+        }
+    }
+}
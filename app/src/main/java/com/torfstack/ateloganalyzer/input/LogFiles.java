@@ -0,0 +1,61 @@
+package com.torfstack.ateloganalyzer.input;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class LogFiles {
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * Expands files, directories and glob patterns into the log files they denote.
+     * <p>
+     * Directories contribute all regular files below them, except {@link EventCache} sidecars. Glob patterns such as
+     * {@code logs/tester-*.log} are matched against the files below the directory part that precedes the first
+     * wildcard. Files found for one argument are sorted by name, and arguments keep their order.
+     */
+    public static @NonNull List<Path> resolve(@NonNull List<String> arguments) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String argument : arguments) {
+            int firstWildcard = firstGlobCharacter(argument);
+            if (firstWildcard >= 0) {
+                files.addAll(matchGlob(argument, firstWildcard));
+            } else if (Files.isDirectory(Paths.get(argument))) {
+                files.addAll(regularFilesBelow(Paths.get(argument)));
+            } else {
+                files.add(Paths.get(argument));
+            }
+        }
+        return files;
+    }
+
+    private static List<Path> matchGlob(String pattern, int firstWildcard) throws IOException {
+        int separator = Math.max(pattern.lastIndexOf('/', firstWildcard), pattern.lastIndexOf('\\', firstWildcard));
+        Path base = separator >= 0 ? Paths.get(pattern.substring(0, separator + 1)) : Paths.get(".");
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(separator + 1));
+
+        List<Path> matches = new ArrayList<>();
+        for (Path file : regularFilesBelow(base)) {
+            if (matcher.matches(base.relativize(file))) matches.add(file.normalize());
+        }
+        if (matches.isEmpty()) throw new NoSuchFileException(pattern, null, "No files match the pattern");
+        return matches;
+    }
+
+    private static List<Path> regularFilesBelow(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).filter(file -> !EventCache.isSidecar(file)).sorted().toList();
+        }
+    }
+
+    private static int firstGlobCharacter(String argument) {
+        for (int i = 0; i < argument.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(argument.charAt(i)) >= 0) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,100 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Follows a growing log file, like {@code tail -f}.
+ * <p>
+ * Every {@link #poll()} reads the bytes appended since the last one and feeds the complete lines into a single
+ * {@link ParseContext}, so a subtest that is still running when a poll happens is completed by a later one. A
+ * rotated file (a new file under the same name) is followed from its start after the rest of the old file has
+ * been read, and a truncated file is re-read from its start. Either way, the device and the subtest that was still
+ * open in the old content are forgotten, so they are not attributed to the lines of the new one.
+ */
+public class LogTailer implements Closeable {
+    private static final int READ_SIZE = 1 << 16;
+
+    private final Path file;
+    private final LineBuffer lines;
+    private FileChannel channel = null;
+    private Object fileKey = null;
+    private long offset = 0;
+
+    public LogTailer(@NonNull Path file, @NonNull Consumer<TestEvent> events) {
+        this(file, LogDialect.DEFAULT, events);
+    }
+
+    public LogTailer(@NonNull Path file, @NonNull LogDialect dialect, @NonNull Consumer<TestEvent> events) {
+        this.file = file;
+        this.lines = new LineBuffer(READ_SIZE, new ParseContext(dialect), events);
+    }
+
+    /**
+     * Reads everything appended since the last poll.
+     *
+     * @return The number of bytes read.
+     */
+    public long poll() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return 0; // Rotated away and not recreated yet
+        }
+
+        long bytesRead = 0;
+        if (channel != null && !Objects.equals(fileKey, attributes.fileKey())) {
+            bytesRead += readToEnd(); // Lines written to the old file before it was rotated
+            lines.scanPartialLine(); // The old file will not be completed anymore
+            closeChannel();
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            fileKey = attributes.fileKey();
+            offset = 0;
+        }
+        if (channel.size() < offset) {
+            offset = 0; // Truncated, start over
+            lines.clear();
+        }
+        return bytesRead + readToEnd();
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    private long readToEnd() throws IOException {
+        long bytesRead = 0;
+        int read;
+        while ((read = channel.read(lines.buffer(), offset)) > 0) {
+            offset += read;
+            bytesRead += read;
+            lines.scanCompleteLines();
+        }
+        return bytesRead;
+    }
+
+    private void closeChannel() throws IOException {
+        channel.close();
+        channel = null;
+        lines.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) closeChannel();
+    }
+}
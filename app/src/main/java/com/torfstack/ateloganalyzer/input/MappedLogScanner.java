@@ -0,0 +1,196 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.EventColumnConsumer;
+import com.torfstack.ateloganalyzer.analysis.EventStore;
+import com.torfstack.ateloganalyzer.analysis.StringDictionary;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Byte-level alternative to {@link Input#parseLogFile(String)}.
+ * <p>
+ * The file is memory-mapped in windows and every line is recognized straight from the mapped bytes: the
+ * {@code BEGIN INSERTION} and {@code BEGIN/END DEVICE_TEST.SUBTEST} markers, or those of another
+ * {@link LogDialect}, are found in a single pass over the line and the {@code #PE[HH:mm:ss.SSS]} stamp is decoded
+ * as fixed-width digits. Only device and subtest names are ever decoded to {@link String}. Lines without a
+ * well-formed stamp are skipped.
+ * <p>
+ * The column overloads skip {@link TestEvent}s altogether: timestamps stay millis of the day and names are looked up
+ * by their bytes in {@link StringDictionary}s, so once every subtest and device name has been seen, scanning a line
+ * allocates nothing.
+ */
+public class MappedLogScanner {
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    public static @NonNull List<TestEvent> parseLogFile(@NonNull String filename) throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        parseLogFile(filename, events::add);
+        return events;
+    }
+
+    public static void parseLogFile(@NonNull String filename, @NonNull Consumer<TestEvent> events) throws IOException {
+        parseLogFile(filename, LogDialect.DEFAULT, events);
+    }
+
+    public static void parseLogFile(@NonNull String filename, @NonNull LogDialect dialect,
+                                    @NonNull Consumer<TestEvent> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            scan(channel, 0, channel.size(), new ParseContext(dialect), events);
+        }
+    }
+
+    /**
+     * Parses the log file into the columns of {@code events}.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull LogDialect dialect,
+                                    @NonNull EventStore events) throws IOException {
+        parseLogFile(filename, dialect, events.testTypes(), events.devices(), events::add);
+    }
+
+    /**
+     * Parses the log file into primitive columns, with test types and devices interned into the given dictionaries.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull LogDialect dialect,
+                                    @NonNull StringDictionary testTypes, @NonNull StringDictionary devices,
+                                    @NonNull EventColumnConsumer events) throws IOException {
+        ColumnParseContext context = new ColumnParseContext(dialect, testTypes, devices, events);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            scan(channel, 0, channel.size(), (window, start, end) -> scanLine(window, start, end, context));
+        }
+        context.flushMetrics();
+    }
+
+    /**
+     * Scans the lines in {@code [from, to)} of the channel. {@code from} must be the start of a line.
+     */
+    static void scan(FileChannel channel, long from, long to, ParseContext context, Consumer<TestEvent> events)
+            throws IOException {
+        scan(channel, from, to, (window, start, end) -> scanLine(window, start, end, context, events));
+        context.counters.flush();
+    }
+
+    private static void scan(FileChannel channel, long from, long to, LineScanner lines) throws IOException {
+        long windowStart = from;
+        while (windowStart < to) {
+            long windowSize = Math.min(MAX_WINDOW_SIZE, to - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            boolean lastWindow = windowStart + windowSize == to;
+            int limit = (int) windowSize;
+
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = indexOf(window, (byte) '\n', lineStart, limit);
+                if (lineEnd < 0) {
+                    if (!lastWindow) break; // Incomplete line, remap starting at it
+                    lineEnd = limit;
+                }
+                lines.scanLine(window, lineStart, lineEnd);
+                lineStart = lineEnd + 1;
+            }
+
+            if (lineStart == 0 && !lastWindow) {
+                throw new IOException("Line at offset " + windowStart + " exceeds " + MAX_WINDOW_SIZE + " bytes");
+            }
+            windowStart += Math.min(lineStart, limit);
+        }
+    }
+
+    static void scanLine(ByteBuffer line, int start, int end, ParseContext context, Consumer<TestEvent> events) {
+        context.counters.line(end - start + 1);
+        if (end > start && line.get(end - 1) == '\r') end--;
+
+        LogDialect dialect = context.dialect;
+        LineMarkers markers = context.markers;
+        markers.find(dialect, line, start, end);
+
+        if (markers.insertionAt >= 0) {
+            String device = dialect.name(line, markers.insertionAt, end);
+            if (device != null) context.beginInsertion(device);
+        }
+
+        int millisOfDay = markers.timestampAt >= 0 ? decodeTimestamp(dialect, line, markers.timestampAt, end) : -1;
+        if (millisOfDay < 0) {
+            context.counters.withoutTimestamp();
+            return;
+        }
+        LocalTime timestamp = LocalTime.ofNanoOfDay(millisOfDay * 1_000_000L);
+
+        if (markers.isBeginSubtest(dialect)) {
+            long subtest = dialect.nameRange(line, markers.beginSubtestAt, end);
+            context.beginSubtest(timestamp, subtest >= 0 ? context.subtestName(line, subtest) : null);
+        } else if (markers.isEndSubtest) {
+            TestEvent event = context.endSubtest(timestamp);
+            if (event != null) events.accept(event);
+        }
+    }
+
+    static void scanLine(ByteBuffer line, int start, int end, ColumnParseContext context) {
+        context.counters.line(end - start + 1);
+        if (end > start && line.get(end - 1) == '\r') end--;
+
+        LogDialect dialect = context.dialect;
+        LineMarkers markers = context.markers;
+        markers.find(dialect, line, start, end);
+
+        if (markers.insertionAt >= 0) {
+            long device = dialect.nameRange(line, markers.insertionAt, end);
+            if (device >= 0) {
+                context.beginInsertion(context.devices.id(line, LogDialect.rangeStart(device),
+                        LogDialect.rangeEnd(device)));
+            }
+        }
+
+        int millisOfDay = markers.timestampAt >= 0 ? decodeTimestamp(dialect, line, markers.timestampAt, end) : -1;
+        if (millisOfDay < 0) {
+            context.counters.withoutTimestamp();
+            return;
+        }
+
+        if (markers.isBeginSubtest(dialect)) {
+            context.beginSubtest(millisOfDay, line, dialect.nameRange(line, markers.beginSubtestAt, end));
+        } else if (markers.isEndSubtest) {
+            context.endSubtest(millisOfDay);
+        }
+    }
+
+    /**
+     * Decodes the timestamp at {@code at}, which must be followed by the timestamp suffix of the dialect.
+     *
+     * @return The milliseconds of the day, or -1 if the bytes are not a valid timestamp.
+     */
+    private static int decodeTimestamp(LogDialect dialect, ByteBuffer line, int at, int end) {
+        if (!matches(line, at + dialect.timestampLayout.width(), end, dialect.timestampSuffix)) return -1;
+        return dialect.timestampLayout.decode(line, at, end);
+    }
+
+    @FunctionalInterface
+    private interface LineScanner {
+        void scanLine(ByteBuffer window, int start, int end);
+    }
+
+    static boolean matches(ByteBuffer line, int at, int end, byte[] literal) {
+        if (at + literal.length > end) return false;
+        for (int i = 0; i < literal.length; i++) {
+            if (line.get(at + i) != literal[i]) return false;
+        }
+        return true;
+    }
+
+    static int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,252 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics.Mismatch;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Parses a single log file on a fork-join pool.
+ * <p>
+ * The file is split into byte ranges that start at a {@code BEGIN INSERTION} line where possible, and every range
+ * is scanned with {@link MappedLogScanner} in parallel. A range does not know the parser state it starts in, so
+ * its lines are recorded rather than applied until both the device and the subtest state are known. When the
+ * ranges are merged in file order, those recorded lines are replayed on the state left by the previous range,
+ * which yields exactly the events and warnings of a sequential parse.
+ */
+public class ParallelLogScanner {
+    private static final long MIN_CHUNK_SIZE = 4L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int ALIGNMENT_WINDOW = 1 << 20;
+
+    public static @NonNull List<TestEvent> parseLogFile(@NonNull String filename) throws IOException {
+        return parseLogFile(filename, ForkJoinPool.commonPool());
+    }
+
+    public static @NonNull List<TestEvent> parseLogFile(@NonNull String filename, @NonNull ForkJoinPool pool)
+            throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        parseLogFile(filename, pool, events::add);
+        return events;
+    }
+
+    /**
+     * Parses the log file and hands the events to {@code events} in file order. Ranges are handed over as soon as
+     * they and all ranges before them are parsed.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull ForkJoinPool pool,
+                                    @NonNull Consumer<TestEvent> events) throws IOException {
+        parseLogFile(filename, pool, LogDialect.DEFAULT, events);
+    }
+
+    public static void parseLogFile(@NonNull String filename, @NonNull ForkJoinPool pool, @NonNull LogDialect dialect,
+                                    @NonNull Consumer<TestEvent> events) throws IOException {
+        long size = Files.size(Paths.get(filename));
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD));
+        parseLogFile(filename, pool, chunkSize, dialect, events);
+    }
+
+    static List<TestEvent> parseLogFile(String filename, ForkJoinPool pool, long chunkSize) throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        parseLogFile(filename, pool, chunkSize, LogDialect.DEFAULT, events::add);
+        return events;
+    }
+
+    private static void parseLogFile(String filename, ForkJoinPool pool, long chunkSize, LogDialect dialect,
+                                     Consumer<TestEvent> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            List<Long> boundaries = chunkBoundaries(channel, chunkSize, dialect);
+
+            List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                long from = boundaries.get(i), to = boundaries.get(i + 1);
+                tasks.add(pool.submit(() -> parseChunk(channel, from, to, dialect)));
+            }
+
+            ParseContext context = new ParseContext(dialect);
+            try {
+                for (ForkJoinTask<ChunkResult> task : tasks) {
+                    task.get().mergeInto(context, events);
+                }
+            } finally {
+                context.counters.flush(); // Events completed by replayed lines
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + filename, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException("Failed to parse " + filename, e.getCause());
+        }
+    }
+
+    private static ChunkResult parseChunk(FileChannel channel, long from, long to, LogDialect dialect) {
+        ChunkContext context = new ChunkContext(dialect);
+        try {
+            MappedLogScanner.scan(channel, from, to, context, context.events::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ChunkResult(context);
+    }
+
+    private static List<Long> chunkBoundaries(FileChannel channel, long chunkSize, LogDialect dialect)
+            throws IOException {
+        long size = channel.size();
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        for (long nominal = chunkSize; nominal < size; nominal += chunkSize) {
+            long boundary = alignToInsertion(channel, nominal, Math.min(ALIGNMENT_WINDOW, chunkSize), size,
+                    dialect);
+            if (boundary > boundaries.getLast() && boundary < size) boundaries.add(boundary);
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    /**
+     * Finds the start of the first {@code BEGIN INSERTION} line within {@code window} bytes after {@code offset}, or
+     * the first line start if there is none.
+     *
+     * @return The aligned offset, or -1 if no line starts within the window.
+     */
+    private static long alignToInsertion(FileChannel channel, long offset, long window, long size, LogDialect dialect)
+            throws IOException {
+        int windowSize = (int) Math.min(window, size - offset);
+        MappedByteBuffer lines = channel.map(FileChannel.MapMode.READ_ONLY, offset, windowSize);
+
+        int firstLineStart = MappedLogScanner.indexOf(lines, (byte) '\n', 0, windowSize) + 1;
+        if (firstLineStart == 0) return -1;
+
+        int lineStart = firstLineStart;
+        while (lineStart < windowSize) {
+            int lineEnd = MappedLogScanner.indexOf(lines, (byte) '\n', lineStart, windowSize);
+            if (lineEnd < 0) break;
+            if (dialect.containsInsertion(lines, lineStart, lineEnd)) {
+                return offset + lineStart;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return offset + firstLineStart;
+    }
+
+    private record DeferredLine(LocalTime timestamp, String device, String subtest, Kind kind) {
+        enum Kind {INSERTION, BEGIN_SUBTEST, END_SUBTEST}
+
+        void replay(ParseContext context, Consumer<TestEvent> events) {
+            switch (kind) {
+                case INSERTION -> context.beginInsertion(device);
+                case BEGIN_SUBTEST -> context.beginSubtest(timestamp, subtest);
+                case END_SUBTEST -> {
+                    TestEvent event = context.endSubtest(timestamp);
+                    if (event != null) events.accept(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse context of a range whose starting state is unknown.
+     * <p>
+     * Until a {@code BEGIN INSERTION} has set the device and an END has cleared the subtest, lines are only
+     * recorded. From then on the state no longer depends on earlier ranges and lines are applied directly.
+     * Warnings are collected so they can be printed in file order.
+     */
+    private static class ChunkContext extends ParseContext {
+        final List<DeferredLine> deferred = new ArrayList<>();
+        final List<TestEvent> events = new ArrayList<>();
+        final List<Warning> warnings = new ArrayList<>();
+        boolean resolved = false;
+        boolean deviceKnown = false;
+        boolean subtestKnown = false;
+
+        ChunkContext(LogDialect dialect) {
+            super(dialect);
+        }
+
+        @Override
+        void beginInsertion(String device) {
+            if (resolved) {
+                super.beginInsertion(device);
+                return;
+            }
+            deferred.add(new DeferredLine(null, device, null, DeferredLine.Kind.INSERTION));
+            super.beginInsertion(device);
+            deviceKnown = true;
+            resolveIfKnown();
+        }
+
+        @Override
+        void beginSubtest(LocalTime timestamp, String subtest) {
+            if (resolved) {
+                super.beginSubtest(timestamp, subtest);
+                return;
+            }
+            deferred.add(new DeferredLine(timestamp, null, subtest, DeferredLine.Kind.BEGIN_SUBTEST));
+            if (subtestKnown) super.beginSubtest(timestamp, subtest);
+        }
+
+        @Override
+        TestEvent endSubtest(LocalTime timestamp) {
+            if (resolved) return super.endSubtest(timestamp);
+
+            deferred.add(new DeferredLine(timestamp, null, null, DeferredLine.Kind.END_SUBTEST));
+            // Whatever the state was, an END always leaves no subtest open
+            clearSubtest();
+            subtestKnown = true;
+            resolveIfKnown();
+            return null;
+        }
+
+        @Override
+        void warn(Mismatch mismatch, String message) {
+            warnings.add(new Warning(mismatch, message));
+        }
+
+        private void resolveIfKnown() {
+            if (deviceKnown && subtestKnown) {
+                resolved = true;
+                warnings.clear(); // Warnings of deferred lines are reproduced when they are replayed
+            }
+        }
+    }
+
+    private record Warning(Mismatch mismatch, String message) {
+    }
+
+    private record ChunkResult(List<DeferredLine> deferred, List<TestEvent> events, List<Warning> warnings,
+                               boolean resolved, String device, String subtest, LocalTime beginTimestamp) {
+        ChunkResult(ChunkContext context) {
+            this(context.deferred, context.events, context.warnings, context.resolved, context.currentDevice,
+                    context.currentSubtest, context.currentBeginTimestamp);
+        }
+
+        void mergeInto(ParseContext context, Consumer<TestEvent> merged) {
+            for (DeferredLine line : deferred) {
+                line.replay(context, merged);
+            }
+            if (!resolved) return;
+
+            warnings.forEach(warning -> context.warn(warning.mismatch(), warning.message()));
+            events.forEach(merged);
+            context.currentDevice = device;
+            context.currentSubtest = subtest;
+            context.currentBeginTimestamp = beginTimestamp;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.StringDictionary;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics;
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics.Mismatch;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalTime;
+
+class ParseContext {
+    static final String UNKNOWN_DEVICE = "Unknown Device";
+    static final String UNKNOWN_SUBTEST = "Unknown Subtest";
+
+    final LogDialect dialect;
+    final LineMarkers markers = new LineMarkers();
+    final LineCounters counters = new LineCounters();
+    /**
+     * The subtest names seen so far, so that the events of a subtest share its name instead of each having a copy.
+     */
+    final StringDictionary subtests = new StringDictionary();
+    String currentDevice = UNKNOWN_DEVICE;
+    String currentSubtest = UNKNOWN_SUBTEST;
+    LocalTime currentBeginTimestamp = null;
+
+    ParseContext() {
+        this(LogDialect.DEFAULT);
+    }
+
+    ParseContext(LogDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    void clearSubtest() {
+        currentSubtest = UNKNOWN_SUBTEST;
+        currentBeginTimestamp = null;
+    }
+
+    /**
+     * Forgets the device and the open subtest, for a log that starts over.
+     */
+    void reset() {
+        currentDevice = UNKNOWN_DEVICE;
+        clearSubtest();
+    }
+
+    boolean isSubtestActive() {
+        return currentBeginTimestamp != null || !currentSubtest.equals(UNKNOWN_SUBTEST);
+    }
+
+    void beginInsertion(String device) {
+        currentDevice = device;
+    }
+
+    /**
+     * Returns the interned subtest name in the range of the line, as returned by {@link LogDialect#nameRange}. A
+     * known name is found by its bytes, without decoding it again.
+     */
+    String subtestName(ByteBuffer line, long nameRange) {
+        return subtests.name(subtests.id(line, LogDialect.rangeStart(nameRange), LogDialect.rangeEnd(nameRange)));
+    }
+
+    /**
+     * Opens a subtest, unless another one is still active.
+     *
+     * @param timestamp The timestamp of the BEGIN line.
+     * @param subtest   The subtest name, or null if the line did not carry one.
+     */
+    void beginSubtest(LocalTime timestamp, String subtest) {
+        if (isSubtestActive()) {
+            warn(Mismatch.BEGIN_WITHOUT_END, "Warning: " + dialect.definition.beginSubtestMarker()
+                    + " without matching END at " + timestamp);
+            return; // Skip this event if a subtest is already active
+        }
+        currentBeginTimestamp = timestamp;
+        currentSubtest = subtest != null ? subtest : currentSubtest;
+    }
+
+    /**
+     * Closes the active subtest. A subtest that ends before it began ran past midnight.
+     *
+     * @param timestamp The timestamp of the END line.
+     * @return The completed event, or null if no subtest was open.
+     */
+    TestEvent endSubtest(LocalTime timestamp) {
+        if (currentBeginTimestamp == null) {
+            warn(Mismatch.END_WITHOUT_BEGIN, "Warning: " + dialect.definition.endSubtestMarker()
+                    + " without matching BEGIN at " + timestamp);
+            return null; // Skip this event if no begin timestamp is set
+        }
+        Duration duration = Duration.between(currentBeginTimestamp, timestamp);
+        if (duration.isNegative()) duration = duration.plusDays(1);
+        TestEvent event = new TestEvent(currentBeginTimestamp, timestamp, duration, currentSubtest, currentDevice);
+        clearSubtest();
+        counters.event(event.eventType());
+        return event;
+    }
+
+    /**
+     * Counts the mismatched line and prints {@code message}.
+     */
+    void warn(Mismatch mismatch, String message) {
+        PipelineMetrics.get().mismatch(mismatch);
+        System.err.println(message);
+    }
+}
@@ -0,0 +1,114 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Parses a log file in three stages that run at the same time: a reader thread reads (and decompresses) blocks of
+ * the file, a parser thread scans the blocks for events, and the calling thread hands the events to the consumer.
+ * <p>
+ * The stages are connected by bounded queues, so a slow stage makes the stages before it wait instead of piling up
+ * blocks or events in memory. While the consumer analyzes one batch of events, the next blocks are already being
+ * read and scanned, which hides the latency of slow file systems behind the parsing and analysis work. The lines are
+ * scanned like {@link MappedLogScanner} does.
+ */
+public class PipelinedLogScanner {
+    private static final int QUEUED_BATCHES = 8;
+
+    public static @NonNull List<TestEvent> parseLogFile(@NonNull String filename) throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        parseLogFile(filename, events::add);
+        return events;
+    }
+
+    /**
+     * Parses the log file and hands the events to {@code events} on the calling thread, in file order.
+     */
+    public static void parseLogFile(@NonNull String filename, @NonNull Consumer<TestEvent> events) throws IOException {
+        parseLogFile(filename, LogDialect.DEFAULT, events);
+    }
+
+    public static void parseLogFile(@NonNull String filename, @NonNull LogDialect dialect,
+                                    @NonNull Consumer<TestEvent> events) throws IOException {
+        Path file = Paths.get(filename);
+        BlockReader reader = new BlockReader(file, CompressedLogScanner.detect(file));
+        Parser parser = new Parser(file, reader, new ParseContext(dialect));
+        reader.start();
+        parser.start();
+        try {
+            List<TestEvent> batch;
+            while ((batch = parser.batches.take()) != Parser.END_OF_INPUT) {
+                batch.forEach(events);
+            }
+            if (reader.failure != null) throw reader.failure;
+            if (parser.failure != null) throw parser.failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + filename, e);
+        } finally {
+            // Stops reading and parsing if the consumer failed
+            parser.interrupt();
+            reader.interrupt();
+        }
+    }
+
+    /**
+     * Scans the blocks of the reader and queues the events of every block as one batch.
+     */
+    private static class Parser extends Thread {
+        static final List<TestEvent> END_OF_INPUT = List.of();
+
+        final BlockingQueue<List<TestEvent>> batches = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+        private final BlockReader reader;
+        private final ParseContext context;
+        private List<TestEvent> batch = new ArrayList<>();
+        volatile RuntimeException failure = null;
+
+        Parser(Path file, BlockReader reader, ParseContext context) {
+            super("log-parser-" + file.getFileName());
+            setDaemon(true);
+            this.reader = reader;
+            this.context = context;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    LineBuffer lines = new LineBuffer(CompressedLogScanner.BLOCK_SIZE, context,
+                            event -> batch.add(event));
+                    byte[] block;
+                    while ((block = reader.blocks.take()) != BlockReader.END_OF_INPUT) {
+                        lines.write(ByteBuffer.wrap(block));
+                        handOver();
+                    }
+                    if (reader.failure == null) {
+                        lines.scanPartialLine();
+                        handOver();
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                batches.put(END_OF_INPUT);
+            } catch (InterruptedException e) {
+                // Consuming stopped
+            }
+        }
+
+        private void handOver() throws InterruptedException {
+            if (batch.isEmpty()) return;
+            batches.put(batch);
+            batch = new ArrayList<>(batch.size());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.torfstack.ateloganalyzer.input;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder for a fixed-width timestamp layout like {@code HH:mm:ss.SSS} or {@code yyyy-MM-dd'T'HH:mm:ss,SSS}.
+ * <p>
+ * The layout is compiled once into the offsets of its digit fields and literal bytes, so decoding only checks the
+ * literals and accumulates the digits. Supported fields are {@code yyyy}, {@code MM}, {@code dd}, {@code HH},
+ * {@code mm}, {@code ss} and one to nine {@code S} for the fraction of the second; text in single quotes and any
+ * character that is not a letter is literal. Date fields are validated but not part of the decoded time of day.
+ */
+class TimestampLayout {
+    private static final int YEAR = 0, MONTH = 1, DAY = 2, HOUR = 3, MINUTE = 4, SECOND = 5, FRACTION = 6;
+    private static final int[] MAX_VALUES = {9999, 12, 31, 23, 59, 59, Integer.MAX_VALUE};
+    private static final int[] MIN_VALUES = {0, 1, 1, 0, 0, 0, 0};
+
+    private final int width;
+    private final int[] fieldKinds;
+    private final int[] fieldOffsets;
+    private final int[] fieldWidths;
+    private final int[] literalOffsets;
+    private final byte[] literals;
+
+    private TimestampLayout(int width, List<int[]> fields, List<Integer> literalOffsets, List<Byte> literals) {
+        this.width = width;
+        this.fieldKinds = fields.stream().mapToInt(field -> field[0]).toArray();
+        this.fieldOffsets = fields.stream().mapToInt(field -> field[1]).toArray();
+        this.fieldWidths = fields.stream().mapToInt(field -> field[2]).toArray();
+        this.literalOffsets = literalOffsets.stream().mapToInt(Integer::intValue).toArray();
+        this.literals = new byte[literals.size()];
+        for (int i = 0; i < literals.size(); i++) this.literals[i] = literals.get(i);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the layout contains an unsupported or incomplete field, or no hour.
+     */
+    static TimestampLayout compile(String layout) {
+        List<int[]> fields = new ArrayList<>();
+        List<Integer> literalOffsets = new ArrayList<>();
+        List<Byte> literals = new ArrayList<>();
+        int offset = 0;
+        for (int i = 0; i < layout.length(); ) {
+            char letter = layout.charAt(i);
+            int count = 1;
+            while (i + count < layout.length() && layout.charAt(i + count) == letter) count++;
+
+            if (letter == '\'') {
+                int closing = layout.indexOf('\'', i + 1);
+                if (closing < 0) throw new IllegalArgumentException("Unclosed quote in timestamp layout " + layout);
+                for (int j = i + 1; j < closing; j++) {
+                    literalOffsets.add(offset++);
+                    literals.add(ascii(layout, layout.charAt(j)));
+                }
+                i = closing + 1;
+                continue;
+            }
+            if (!Character.isLetter(letter)) {
+                literalOffsets.add(offset++);
+                literals.add(ascii(layout, letter));
+                i++;
+                continue;
+            }
+
+            int kind = switch (letter) {
+                case 'y' -> count == 4 ? YEAR : -1;
+                case 'M' -> count == 2 ? MONTH : -1;
+                case 'd' -> count == 2 ? DAY : -1;
+                case 'H' -> count == 2 ? HOUR : -1;
+                case 'm' -> count == 2 ? MINUTE : -1;
+                case 's' -> count == 2 ? SECOND : -1;
+                case 'S' -> count <= 9 ? FRACTION : -1;
+                default -> -1;
+            };
+            if (kind < 0) {
+                throw new IllegalArgumentException("Unsupported field " + layout.substring(i, i + count)
+                        + " in timestamp layout " + layout);
+            }
+            fields.add(new int[]{kind, offset, count});
+            offset += count;
+            i += count;
+        }
+
+        if (fields.stream().noneMatch(field -> field[0] == HOUR)) {
+            throw new IllegalArgumentException("Timestamp layout " + layout + " has no hour field HH");
+        }
+        return new TimestampLayout(offset, fields, literalOffsets, literals);
+    }
+
+    int width() {
+        return width;
+    }
+
+    /**
+     * Decodes the timestamp starting at {@code at}.
+     *
+     * @return The milliseconds of the day, or -1 if the bytes do not match the layout.
+     */
+    int decode(ByteBuffer line, int at, int end) {
+        if (at + width > end) return -1;
+        for (int i = 0; i < literals.length; i++) {
+            if (line.get(at + literalOffsets[i]) != literals[i]) return -1;
+        }
+
+        int hours = 0, minutes = 0, seconds = 0, millis = 0;
+        for (int field = 0; field < fieldKinds.length; field++) {
+            int value = 0;
+            int from = at + fieldOffsets[field], to = from + fieldWidths[field];
+            for (int i = from; i < to; i++) {
+                int digit = line.get(i) - '0';
+                if (digit < 0 || digit > 9) return -1;
+                value = value * 10 + digit;
+            }
+
+            int kind = fieldKinds[field];
+            if (value < MIN_VALUES[kind] || value > MAX_VALUES[kind]) return -1;
+            switch (kind) {
+                case HOUR -> hours = value;
+                case MINUTE -> minutes = value;
+                case SECOND -> seconds = value;
+                case FRACTION -> millis = toMillis(value, fieldWidths[field]);
+                default -> {
+                }
+            }
+        }
+        return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+    }
+
+    private static int toMillis(int fraction, int digits) {
+        for (int i = digits; i < 3; i++) fraction *= 10;
+        for (int i = digits; i > 3; i--) fraction /= 10;
+        return fraction;
+    }
+
+    private static byte ascii(String layout, char literal) {
+        if (literal > 127) {
+            throw new IllegalArgumentException("Non-ASCII literal " + literal + " in timestamp layout " + layout);
+        }
+        return (byte) literal;
+    }
+}
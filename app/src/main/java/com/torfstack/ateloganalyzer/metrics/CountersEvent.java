@@ -0,0 +1,38 @@
+package com.torfstack.ateloganalyzer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * Periodic JFR event with the parse counters of {@link PipelineMetrics}.
+ */
+@Name("com.torfstack.ateloganalyzer.Counters")
+@Label("Parse Counters")
+@Category("ATE Log Analyzer")
+@Description("Lines, bytes, skipped lines, subtest mismatches and events parsed so far")
+@Period("1 s")
+class CountersEvent extends Event {
+    @Label("Lines")
+    long lines;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Lines Without Timestamp")
+    long linesWithoutTimestamp;
+
+    @Label("BEGINs Without END")
+    long beginsWithoutEnd;
+
+    @Label("ENDs Without BEGIN")
+    long endsWithoutBegin;
+
+    @Label("Events")
+    long events;
+}
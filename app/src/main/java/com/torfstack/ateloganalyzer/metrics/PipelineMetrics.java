@@ -0,0 +1,334 @@
+package com.torfstack.ateloganalyzer.metrics;
+
+import com.google.gson.stream.JsonWriter;
+import jdk.jfr.FlightRecorder;
+import lombok.NonNull;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Counters and timers of every stage of the pipeline, shared by all parsers, analyses and serializers of the process.
+ * <p>
+ * Counts are added to {@link LongAdder}s, so parsers on many threads do not contend and counting costs no allocation.
+ * Parsers count lines in fields of their own and add them in batches, to keep the cost per line down. Stages are
+ * timed with {@link #time(String)}, which also records the bytes the thread allocated and commits a
+ * {@link StageEvent} to a running flight recording. {@link #register()} exposes the counters as the MBean
+ * {@value #OBJECT_NAME} and as a periodic JFR event, and they can be dumped as JSON or in the Prometheus text format.
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+    public static final String OBJECT_NAME = "com.torfstack.ateloganalyzer:type=PipelineMetrics";
+    public static final String PARSE_STAGE = "parse";
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder linesWithoutTimestamp = new LongAdder();
+    private final LongAdder beginsWithoutEnd = new LongAdder();
+    private final LongAdder endsWithoutBegin = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final Map<String, LongAdder> eventsBySubtest = new ConcurrentHashMap<>();
+    private final Map<String, Stage> stages = new ConcurrentHashMap<>();
+    private final Runnable countersHook = this::commitCounters;
+    private boolean registered = false;
+
+    /**
+     * A BEGIN or END line that was skipped because it did not match the subtest state.
+     */
+    public enum Mismatch {
+        BEGIN_WITHOUT_END,
+        END_WITHOUT_BEGIN
+    }
+
+    PipelineMetrics() {
+    }
+
+    public static @NonNull PipelineMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the MBean and the periodic JFR event. Calling it again does nothing.
+     */
+    public synchronized void register() {
+        if (registered) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Could not register the metrics MBean: " + e.getMessage());
+        }
+        FlightRecorder.addPeriodicEvent(CountersEvent.class, countersHook);
+        registered = true;
+    }
+
+    public void linesScanned(long count, long byteCount) {
+        lines.add(count);
+        bytes.add(byteCount);
+    }
+
+    /**
+     * Counts lines that were skipped for lacking a well-formed timestamp.
+     */
+    public void linesWithoutTimestamp(long count) {
+        linesWithoutTimestamp.add(count);
+    }
+
+    public void mismatch(@NonNull Mismatch mismatch) {
+        (mismatch == Mismatch.BEGIN_WITHOUT_END ? beginsWithoutEnd : endsWithoutBegin).increment();
+    }
+
+    public void events(@NonNull String subtest, long count) {
+        events.add(count);
+        eventsBySubtest.computeIfAbsent(subtest, k -> new LongAdder()).add(count);
+    }
+
+    /**
+     * Starts timing a run of {@code stage} on the current thread. Close the timer on the same thread when the stage
+     * is done.
+     */
+    public @NonNull StageTimer time(@NonNull String stage) {
+        return new StageTimer(stages.computeIfAbsent(stage, Stage::new));
+    }
+
+    /**
+     * Sets all counters and timers back to zero, e.g. between two analyses in one process.
+     */
+    public void reset() {
+        lines.reset();
+        bytes.reset();
+        linesWithoutTimestamp.reset();
+        beginsWithoutEnd.reset();
+        endsWithoutBegin.reset();
+        events.reset();
+        eventsBySubtest.clear();
+        stages.clear();
+    }
+
+    @Override
+    public long getLinesScanned() {
+        return lines.sum();
+    }
+
+    @Override
+    public long getBytesScanned() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getLinesWithoutTimestamp() {
+        return linesWithoutTimestamp.sum();
+    }
+
+    @Override
+    public long getBeginsWithoutEnd() {
+        return beginsWithoutEnd.sum();
+    }
+
+    @Override
+    public long getEndsWithoutBegin() {
+        return endsWithoutBegin.sum();
+    }
+
+    @Override
+    public long getEventsParsed() {
+        return events.sum();
+    }
+
+    @Override
+    public double getLinesPerSecond() {
+        return perParseSecond(getLinesScanned());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perParseSecond(getBytesScanned());
+    }
+
+    @Override
+    public Map<String, Long> getEventsBySubtest() {
+        Map<String, Long> counts = new TreeMap<>();
+        eventsBySubtest.forEach((subtest, count) -> counts.put(subtest, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getStageRuns() {
+        return stageValues(stage -> stage.runs.sum());
+    }
+
+    @Override
+    public Map<String, Long> getStageMillis() {
+        return stageValues(stage -> stage.nanos.sum() / 1_000_000);
+    }
+
+    @Override
+    public Map<String, Long> getStageAllocatedBytes() {
+        return stageValues(stage -> stage.allocatedBytes.sum());
+    }
+
+    /**
+     * Writes the counters, timers and a snapshot of the heap and the garbage collectors as one JSON object.
+     */
+    public void writeJson(@NonNull Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("linesScanned").value(getLinesScanned());
+        json.name("bytesScanned").value(getBytesScanned());
+        json.name("linesPerSecond").value(getLinesPerSecond());
+        json.name("bytesPerSecond").value(getBytesPerSecond());
+        json.name("linesWithoutTimestamp").value(getLinesWithoutTimestamp());
+        json.name("beginsWithoutEnd").value(getBeginsWithoutEnd());
+        json.name("endsWithoutBegin").value(getEndsWithoutBegin());
+        json.name("eventsParsed").value(getEventsParsed());
+
+        json.name("eventsBySubtest").beginObject();
+        for (Map.Entry<String, Long> entry : getEventsBySubtest().entrySet()) {
+            json.name(entry.getKey()).value(entry.getValue());
+        }
+        json.endObject();
+
+        json.name("stages").beginArray();
+        for (Stage stage : new TreeMap<>(stages).values()) {
+            json.beginObject();
+            json.name("stage").value(stage.name);
+            json.name("runs").value(stage.runs.sum());
+            json.name("millis").value(stage.nanos.sum() / 1_000_000);
+            json.name("allocatedBytes").value(stage.allocatedBytes.sum());
+            json.endObject();
+        }
+        json.endArray();
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        json.name("heap").beginObject();
+        json.name("usedBytes").value(heap.getUsed());
+        json.name("committedBytes").value(heap.getCommitted());
+        json.endObject();
+
+        json.name("garbageCollectors").beginArray();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            json.beginObject();
+            json.name("name").value(collector.getName());
+            json.name("collections").value(collector.getCollectionCount());
+            json.name("millis").value(collector.getCollectionTime());
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * Writes the counters, timers and a snapshot of the heap and the garbage collectors in the Prometheus text
+     * exposition format.
+     */
+    public void writePrometheus(@NonNull Writer writer) throws IOException {
+        counter(writer, "atelog_lines_scanned_total", "Lines read by the parsers", getLinesScanned());
+        counter(writer, "atelog_bytes_scanned_total", "Bytes read by the parsers", getBytesScanned());
+        counter(writer, "atelog_lines_without_timestamp_total", "Lines skipped for lacking a timestamp",
+                getLinesWithoutTimestamp());
+        header(writer, "atelog_subtest_mismatches_total", "counter", "BEGIN or END lines that did not match");
+        sample(writer, "atelog_subtest_mismatches_total", "kind", "begin_without_end", getBeginsWithoutEnd());
+        sample(writer, "atelog_subtest_mismatches_total", "kind", "end_without_begin", getEndsWithoutBegin());
+        counter(writer, "atelog_events_parsed_total", "Subtest events parsed", getEventsParsed());
+
+        header(writer, "atelog_subtest_events_total", "counter", "Subtest events parsed by subtest");
+        for (Map.Entry<String, Long> entry : getEventsBySubtest().entrySet()) {
+            sample(writer, "atelog_subtest_events_total", "subtest", entry.getKey(), entry.getValue());
+        }
+
+        Map<String, Stage> sortedStages = new TreeMap<>(stages);
+        header(writer, "atelog_stage_runs_total", "counter", "Runs of a pipeline stage");
+        for (Stage stage : sortedStages.values()) {
+            sample(writer, "atelog_stage_runs_total", "stage", stage.name, stage.runs.sum());
+        }
+        header(writer, "atelog_stage_seconds_total", "counter", "Time spent in a pipeline stage, summed over threads");
+        for (Stage stage : sortedStages.values()) {
+            sample(writer, "atelog_stage_seconds_total", "stage", stage.name, stage.nanos.sum() / 1e9);
+        }
+        header(writer, "atelog_stage_allocated_bytes_total", "counter", "Bytes allocated in a pipeline stage");
+        for (Stage stage : sortedStages.values()) {
+            sample(writer, "atelog_stage_allocated_bytes_total", "stage", stage.name, stage.allocatedBytes.sum());
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(writer, "atelog_heap_used_bytes", "gauge", "Heap in use");
+        writer.write("atelog_heap_used_bytes " + heap.getUsed() + "\n");
+        header(writer, "atelog_gc_collections_total", "counter", "Collections by garbage collector");
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(writer, "atelog_gc_collections_total", "gc", collector.getName(), collector.getCollectionCount());
+        }
+        header(writer, "atelog_gc_seconds_total", "counter", "Time spent collecting by garbage collector");
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(writer, "atelog_gc_seconds_total", "gc", collector.getName(), collector.getCollectionTime() / 1e3);
+        }
+        writer.flush();
+    }
+
+    private double perParseSecond(long count) {
+        Stage parse = stages.get(PARSE_STAGE);
+        long nanos = parse == null ? 0 : parse.nanos.sum();
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    private Map<String, Long> stageValues(Function<Stage, Long> value) {
+        Map<String, Long> values = new TreeMap<>();
+        stages.forEach((name, stage) -> values.put(name, value.apply(stage)));
+        return values;
+    }
+
+    private void commitCounters() {
+        CountersEvent event = new CountersEvent();
+        event.lines = getLinesScanned();
+        event.bytes = getBytesScanned();
+        event.linesWithoutTimestamp = getLinesWithoutTimestamp();
+        event.beginsWithoutEnd = getBeginsWithoutEnd();
+        event.endsWithoutBegin = getEndsWithoutBegin();
+        event.events = getEventsParsed();
+        event.commit();
+    }
+
+    private static void counter(Writer writer, String name, String help, long value) throws IOException {
+        header(writer, name, "counter", help);
+        writer.write(name + " " + value + "\n");
+    }
+
+    private static void header(Writer writer, String name, String type, String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(Writer writer, String name, String label, String labelValue, Number value)
+            throws IOException {
+        writer.write(name + "{" + label + "=\"" + escape(labelValue) + "\"} " + value + "\n");
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Totals of all runs of one stage.
+     */
+    static class Stage {
+        final String name;
+        final LongAdder runs = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+
+        Stage(String name) {
+            this.name = name;
+        }
+    }
+}
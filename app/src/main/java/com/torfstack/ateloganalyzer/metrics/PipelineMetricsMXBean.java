@@ -0,0 +1,38 @@
+package com.torfstack.ateloganalyzer.metrics;
+
+import java.util.Map;
+
+/**
+ * The counters of {@link PipelineMetrics} as JMX attributes.
+ */
+public interface PipelineMetricsMXBean {
+    long getLinesScanned();
+
+    long getBytesScanned();
+
+    long getLinesWithoutTimestamp();
+
+    long getBeginsWithoutEnd();
+
+    long getEndsWithoutBegin();
+
+    long getEventsParsed();
+
+    /**
+     * Returns the lines scanned per second of parse time, summed over all threads that parsed.
+     */
+    double getLinesPerSecond();
+
+    double getBytesPerSecond();
+
+    Map<String, Long> getEventsBySubtest();
+
+    Map<String, Long> getStageRuns();
+
+    Map<String, Long> getStageMillis();
+
+    /**
+     * Returns the bytes allocated by the threads that ran every stage, while they ran it.
+     */
+    Map<String, Long> getStageAllocatedBytes();
+}
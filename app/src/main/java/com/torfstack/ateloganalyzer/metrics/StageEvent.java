@@ -0,0 +1,25 @@
+package com.torfstack.ateloganalyzer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for every run of a pipeline stage, so that stages can be lined up with allocation and CPU samples.
+ */
+@Name("com.torfstack.ateloganalyzer.Stage")
+@Label("Pipeline Stage")
+@Category("ATE Log Analyzer")
+@Description("A run of a stage of the analysis, e.g. parsing a file or writing a result")
+class StageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread while it ran the stage")
+    @DataAmount
+    long allocatedBytes;
+}
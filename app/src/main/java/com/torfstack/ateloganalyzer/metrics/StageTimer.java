@@ -0,0 +1,51 @@
+package com.torfstack.ateloganalyzer.metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * One run of a stage, from {@link PipelineMetrics#time(String)} until {@link #close()}. Measures the wall time and
+ * the bytes allocated by the current thread, where the JVM can tell.
+ */
+public class StageTimer implements AutoCloseable {
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final PipelineMetrics.Stage stage;
+    private final StageEvent event = new StageEvent();
+    private final long startNanos;
+    private final long startAllocated;
+
+    StageTimer(PipelineMetrics.Stage stage) {
+        this.stage = stage;
+        event.begin();
+        this.startAllocated = allocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        long elapsed = System.nanoTime() - startNanos;
+        long allocated = Math.max(0, allocatedBytes() - startAllocated);
+        stage.runs.increment();
+        stage.nanos.add(elapsed);
+        stage.allocatedBytes.add(allocated);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage.name;
+            event.allocatedBytes = allocated;
+            event.commit();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,253 @@
+package com.torfstack.ateloganalyzer.output;
+
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.TestAnomaly;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import lombok.NonNull;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DurationVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Exports the events and anomalies as Arrow IPC streams, which dashboards can memory-map instead of parsing JSON.
+ * <p>
+ * Events are written while the log is parsed, by using the serializer as the parser's {@link Consumer}, and
+ * anomalies while they are found. Both are written in record batches of {@value #BATCH_SIZE} rows that reuse the
+ * same vectors, so the export takes the same memory however many events there are. Begin and end are Arrow times,
+ * durations are Arrow durations in milliseconds, and test types and devices are dictionary-encoded strings. The test
+ * type dictionary grows as new test types appear. The device dictionary only holds the devices of the current batch
+ * and is replaced with every batch, which the Arrow file format does not allow, hence the stream format.
+ */
+public class ArrowFileSerializer implements StreamingResultSerializer, Consumer<TestEvent>, Closeable {
+    private static final int BATCH_SIZE = 1 << 16;
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+    private static final long TEST_TYPE_DICTIONARY_ID = 0;
+    private static final long DEVICE_DICTIONARY_ID = 1;
+
+    private final BufferAllocator allocator = new RootAllocator();
+    private final String anomaliesFile;
+
+    private final TimeMilliVector eventBegin;
+    private final TimeMilliVector eventEnd;
+    private final DurationVector eventDuration;
+    private final DictionaryColumn eventTestType;
+    private final DictionaryColumn eventDevice;
+    private Table events;
+
+    private DictionaryColumn anomalyTestType;
+    private DictionaryColumn anomalyDevice;
+    private DurationVector anomalyDuration;
+    private DurationVector anomalyAverage;
+    private DurationVector anomalyStdDev;
+    private Table anomalies = null;
+
+    public ArrowFileSerializer(@NonNull String eventsFile, @NonNull String anomaliesFile) throws IOException {
+        this.anomaliesFile = anomaliesFile;
+        eventBegin = new TimeMilliVector("begin", FieldType.nullable(new ArrowType.Time(TimeUnit.MILLISECOND, 32)),
+                allocator);
+        eventEnd = new TimeMilliVector("end", FieldType.nullable(new ArrowType.Time(TimeUnit.MILLISECOND, 32)),
+                allocator);
+        eventDuration = durationVector("duration");
+        eventTestType = new DictionaryColumn("testType", TEST_TYPE_DICTIONARY_ID, true);
+        eventDevice = new DictionaryColumn("device", DEVICE_DICTIONARY_ID, false);
+        events = new Table(eventsFile, List.of(eventBegin, eventEnd, eventDuration, eventTestType.indices,
+                eventDevice.indices), List.of(eventTestType, eventDevice));
+    }
+
+    @Override
+    public synchronized void accept(@NonNull TestEvent event) {
+        int row = events.row();
+        setTime(eventBegin, row, event.begin());
+        setTime(eventEnd, row, event.end());
+        eventDuration.setSafe(row, event.duration().toMillis());
+        eventTestType.set(row, event.eventType());
+        eventDevice.set(row, event.deviceInfo());
+        try {
+            events.endRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write Arrow events", e);
+        }
+    }
+
+    /**
+     * Completes the events and starts the anomalies.
+     */
+    @Override
+    public synchronized void begin(@NonNull AnalysisResult summary) throws IOException {
+        if (anomalies != null) throw new IllegalStateException("Anomalies can only be exported once");
+        closeEvents();
+
+        anomalyTestType = new DictionaryColumn("testType", TEST_TYPE_DICTIONARY_ID, true);
+        anomalyDevice = new DictionaryColumn("device", DEVICE_DICTIONARY_ID, false);
+        anomalyDuration = durationVector("duration");
+        anomalyAverage = durationVector("average");
+        anomalyStdDev = durationVector("stdDev");
+        anomalies = new Table(anomaliesFile, List.of(anomalyTestType.indices, anomalyDevice.indices, anomalyDuration,
+                anomalyAverage, anomalyStdDev), List.of(anomalyTestType, anomalyDevice));
+    }
+
+    @Override
+    public synchronized void writeAnomaly(@NonNull TestAnomaly anomaly) throws IOException {
+        int row = anomalies.row();
+        anomalyTestType.set(row, anomaly.testType());
+        anomalyDevice.set(row, anomaly.deviceInfo());
+        anomalyDuration.setSafe(row, anomaly.durationMillis());
+        anomalyAverage.setSafe(row, anomaly.averageMillis());
+        anomalyStdDev.setSafe(row, anomaly.stdDevMillis());
+        anomalies.endRow();
+    }
+
+    @Override
+    public synchronized void end() throws IOException {
+        anomalies.flush();
+    }
+
+    /**
+     * Completes both streams. An anomaly stream that was never started is written without batches.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            closeEvents();
+            if (anomalies == null) begin(new AnalysisResult(Map.of(), List.of()));
+            anomalies.close();
+        } finally {
+            allocator.close();
+        }
+    }
+
+    private void closeEvents() throws IOException {
+        if (events == null) return;
+        events.close();
+        events = null;
+    }
+
+    private DurationVector durationVector(String name) {
+        return new DurationVector(name, FieldType.notNullable(new ArrowType.Duration(TimeUnit.MILLISECOND)),
+                allocator);
+    }
+
+    private static void setTime(TimeMilliVector vector, int row, LocalTime time) {
+        if (time != null) {
+            vector.setSafe(row, (int) (time.toNanoOfDay() / 1_000_000));
+        } else {
+            vector.setNull(row);
+        }
+    }
+
+    /**
+     * A dictionary-encoded string column: the indices that are written as the column, and the dictionary of the
+     * strings they refer to.
+     */
+    private class DictionaryColumn {
+        final IntVector indices;
+        final VarCharVector values;
+        final Dictionary dictionary;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final boolean keptAcrossBatches;
+
+        DictionaryColumn(String name, long dictionaryId, boolean keptAcrossBatches) {
+            DictionaryEncoding encoding = new DictionaryEncoding(dictionaryId, false, INDEX_TYPE);
+            this.indices = new IntVector(name, new FieldType(false, INDEX_TYPE, encoding), allocator);
+            this.values = new VarCharVector(name + "Dictionary", allocator);
+            this.values.allocateNew();
+            this.dictionary = new Dictionary(values, encoding);
+            this.keptAcrossBatches = keptAcrossBatches;
+        }
+
+        void set(int row, String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.size();
+                ids.put(value, id);
+                values.setSafe(id, value.getBytes(StandardCharsets.UTF_8));
+                values.setValueCount(ids.size());
+            }
+            indices.setSafe(row, id);
+        }
+
+        void batchWritten() {
+            if (keptAcrossBatches) return;
+            ids.clear();
+            values.reset();
+        }
+    }
+
+    /**
+     * An Arrow stream whose vectors are filled row by row and written whenever a batch is full.
+     */
+    private static class Table implements Closeable {
+        private final VectorSchemaRoot root;
+        private final List<DictionaryColumn> dictionaryColumns;
+        private final ArrowStreamWriter writer;
+        private int rows = 0;
+
+        Table(String filename, List<FieldVector> columns, List<DictionaryColumn> dictionaryColumns)
+                throws IOException {
+            this.root = new VectorSchemaRoot(columns.stream().map(FieldVector::getField).toList(), columns);
+            this.root.allocateNew();
+            this.dictionaryColumns = dictionaryColumns;
+
+            DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+            dictionaryColumns.forEach(column -> provider.put(column.dictionary));
+            this.writer = new ArrowStreamWriter(root, provider, new FileOutputStream(filename).getChannel());
+            this.writer.start();
+        }
+
+        int row() {
+            return rows;
+        }
+
+        /**
+         * Completes the row whose values were set at {@link #row()}.
+         */
+        void endRow() throws IOException {
+            if (++rows == BATCH_SIZE) flush();
+        }
+
+        void flush() throws IOException {
+            if (rows == 0) return;
+
+            root.setRowCount(rows);
+            writer.writeBatch();
+            for (FieldVector vector : root.getFieldVectors()) vector.reset();
+            dictionaryColumns.forEach(DictionaryColumn::batchWritten);
+            rows = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                writer.end();
+            } finally {
+                writer.close();
+                root.close();
+                dictionaryColumns.forEach(column -> column.values.close());
+            }
+        }
+    }
+}
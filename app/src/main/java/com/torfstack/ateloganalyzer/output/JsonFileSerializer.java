@@ -1,31 +1,191 @@
 package com.torfstack.ateloganalyzer.output;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.AnomalySummary;
+import com.torfstack.ateloganalyzer.analysis.DurationPercentiles;
+import com.torfstack.ateloganalyzer.analysis.GroupStatistic;
+import com.torfstack.ateloganalyzer.analysis.TestAnomaly;
+import com.torfstack.ateloganalyzer.analysis.TestStatistic;
+import com.torfstack.ateloganalyzer.analysis.WindowStatistic;
 import lombok.NonNull;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
-public class JsonFileSerializer implements ResultSerializer {
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-
+/**
+ * Writes the result as JSON with a {@link JsonWriter}, without reflection and without building a tree first.
+ * <p>
+ * The pretty-printed output is the same as Gson's for {@link AnalysisResult}, with times written like
+ * {@code "14:05"}. The compact output has no whitespace.
+ */
+public class JsonFileSerializer implements StreamingResultSerializer {
     private final String filename;
+    private final boolean compact;
+    private JsonWriter json = null;
+    private AnalysisResult summary = null;
 
     public JsonFileSerializer(String filename) {
+        this(filename, false);
+    }
+
+    public JsonFileSerializer(String filename, boolean compact) {
         this.filename = filename;
+        this.compact = compact;
     }
 
     @Override
-    public void serialize(@NonNull AnalysisResult result) throws Exception {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            gson.toJson(result, writer);
-            System.out.println("\nAnalysis results written to: " + filename);
-        } catch (JsonIOException e) {
+    public void begin(@NonNull AnalysisResult summary) throws IOException {
+        try {
+            json = new JsonWriter(new BufferedWriter(new FileWriter(filename)));
+            json.setHtmlSafe(true);
+            if (!compact) json.setIndent("  ");
+
+            json.beginObject();
+            json.name("statistics");
+            writeStatistics(summary.statistics());
+            json.name("percentiles").beginObject();
+            for (Map.Entry<String, DurationPercentiles> percentiles : summary.percentiles().entrySet()) {
+                json.name(percentiles.getKey()).beginObject()
+                        .name("p50Millis").value(percentiles.getValue().p50Millis())
+                        .name("p90Millis").value(percentiles.getValue().p90Millis())
+                        .name("p99Millis").value(percentiles.getValue().p99Millis())
+                        .name("p999Millis").value(percentiles.getValue().p999Millis())
+                        .endObject();
+            }
+            json.endObject();
+            json.name("anomalies").beginArray();
+            this.summary = summary;
+        } catch (IOException e) {
+            closeQuietly();
             throw new IOException("Failed to write JSON to file: " + filename, e);
         }
     }
+
+    @Override
+    public void writeAnomaly(@NonNull TestAnomaly anomaly) throws IOException {
+        try {
+            writeAnomalyObject(anomaly);
+        } catch (IOException e) {
+            closeQuietly();
+            throw new IOException("Failed to write JSON to file: " + filename, e);
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        try {
+            json.endArray();
+            if (summary.fileStatistics() != null) {
+                json.name("fileStatistics").beginObject();
+                for (Map.Entry<String, Map<String, TestStatistic>> file : summary.fileStatistics().entrySet()) {
+                    json.name(file.getKey());
+                    writeStatistics(file.getValue());
+                }
+                json.endObject();
+            }
+            if (summary.windows() != null) {
+                json.name("windows").beginArray();
+                for (WindowStatistic window : summary.windows()) {
+                    json.beginObject()
+                            .name("testType").value(window.testType())
+                            .name("start").value(window.start().toString())
+                            .name("end").value(window.end().toString())
+                            .name("statistic");
+                    writeStatistic(window.statistic());
+                    json.endObject();
+                }
+                json.endArray();
+            }
+            if (summary.groups() != null) {
+                json.name("groups").beginArray();
+                for (GroupStatistic group : summary.groups()) {
+                    json.beginObject();
+                    if (group.testType() != null) json.name("testType").value(group.testType());
+                    if (group.lot() != null) json.name("lot").value(group.lot());
+                    if (group.site() != null) json.name("site").value(group.site());
+                    json.name("statistic");
+                    writeStatistic(group.statistic());
+                    json.name("slow").value(group.slow()).endObject();
+                }
+                json.endArray();
+            }
+            if (summary.anomalySummary() != null) writeAnomalySummary(summary.anomalySummary());
+            json.endObject();
+            json.close();
+        } catch (IOException e) {
+            closeQuietly();
+            throw new IOException("Failed to write JSON to file: " + filename, e);
+        }
+        json = null;
+        summary = null;
+    }
+
+    private void writeAnomalySummary(AnomalySummary anomalies) throws IOException {
+        json.name("anomalySummary").beginObject();
+        json.name("counts").beginObject();
+        for (Map.Entry<String, Long> count : anomalies.counts().entrySet()) {
+            json.name(count.getKey()).value(count.getValue());
+        }
+        json.endObject();
+        json.name("slowest").beginObject();
+        for (Map.Entry<String, List<TestAnomaly>> slowest : anomalies.slowest().entrySet()) {
+            json.name(slowest.getKey()).beginArray();
+            for (TestAnomaly anomaly : slowest.getValue()) writeAnomalyObject(anomaly);
+            json.endArray();
+        }
+        json.endObject();
+        json.name("worstDevices").beginArray();
+        for (AnomalySummary.DeviceExcess device : anomalies.worstDevices()) {
+            json.beginObject()
+                    .name("deviceInfo").value(device.deviceInfo())
+                    .name("excessMillis").value(device.excessMillis())
+                    .endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private void writeAnomalyObject(TestAnomaly anomaly) throws IOException {
+        json.beginObject()
+                .name("testType").value(anomaly.testType())
+                .name("deviceInfo").value(anomaly.deviceInfo())
+                .name("durationMillis").value(anomaly.durationMillis())
+                .name("averageMillis").value(anomaly.averageMillis())
+                .name("stdDevMillis").value(anomaly.stdDevMillis())
+                .endObject();
+    }
+
+    private void writeStatistics(Map<String, TestStatistic> statistics) throws IOException {
+        json.beginObject();
+        for (Map.Entry<String, TestStatistic> statistic : statistics.entrySet()) {
+            json.name(statistic.getKey());
+            writeStatistic(statistic.getValue());
+        }
+        json.endObject();
+    }
+
+    private void writeStatistic(TestStatistic statistic) throws IOException {
+        json.beginObject()
+                .name("count").value(statistic.count())
+                .name("totalMillis").value(statistic.totalMillis())
+                .name("avgMillis").value(statistic.avgMillis())
+                .name("stdDevMillis").value(statistic.stdDevMillis())
+                .endObject();
+    }
+
+    private void closeQuietly() {
+        if (json == null) return;
+        try {
+            json.close();
+        } catch (IOException | IllegalStateException ignored) {
+            // Already failed, the original error is reported
+        } finally {
+            json = null;
+            summary = null;
+        }
+    }
 }
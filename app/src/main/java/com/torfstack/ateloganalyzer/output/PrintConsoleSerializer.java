@@ -1,29 +1,125 @@
 package com.torfstack.ateloganalyzer.output;
 
 import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.AnomalySummary;
+import com.torfstack.ateloganalyzer.analysis.DurationPercentiles;
+import com.torfstack.ateloganalyzer.analysis.GroupStatistic;
+import com.torfstack.ateloganalyzer.analysis.TestAnomaly;
+import com.torfstack.ateloganalyzer.analysis.TestStatistic;
+import com.torfstack.ateloganalyzer.analysis.WindowStatistic;
 import lombok.NonNull;
 
-public class PrintConsoleSerializer implements ResultSerializer {
+import java.util.Map;
+
+public class PrintConsoleSerializer implements StreamingResultSerializer {
+    private boolean anomaliesStarted = false;
+
     @Override
     public void serialize(@NonNull AnalysisResult result) {
+        begin(result);
+        result.anomalies().forEach(this::writeAnomaly);
+        end();
+    }
+
+    @Override
+    public void begin(@NonNull AnalysisResult summary) {
         System.out.println("\nSubtest Duration Summaries:");
         System.out.println("----------------------");
-        result.statistics().forEach((testType, stat) -> {
-            System.out.printf("%-30s: Count=%d, Total=%d ms, Avg=%d ms, StdDev=%d ms%n",
-                    testType, stat.count(), stat.totalMillis(), stat.avgMillis(), stat.stdDevMillis());
-        });
+        printStatistics(summary.statistics(), summary.percentiles());
 
-        if (!result.anomalies().isEmpty()) {
+        if (summary.fileStatistics() != null) {
+            summary.fileStatistics().forEach((file, statistics) -> {
+                System.out.println("\nSubtest Duration Summaries for " + file + ":");
+                System.out.println("----------------------");
+                printStatistics(statistics, Map.of());
+            });
+        }
+
+        if (summary.windows() != null) {
+            System.out.println("\nSubtest Duration Windows:");
+            System.out.println("----------------------");
+            for (WindowStatistic window : summary.windows()) {
+                TestStatistic stat = window.statistic();
+                System.out.printf("%s %s-%s %-30s: Count=%d, Avg=%d ms, StdDev=%d ms%n",
+                        window.start().toLocalDate(), window.start().toLocalTime(), window.end().toLocalTime(),
+                        window.testType(), stat.count(), stat.avgMillis(),
+                        stat.stdDevMillis());
+            }
+        }
+
+        if (summary.groups() != null) {
+            System.out.println("\nSubtest Durations by Lot and Site:");
+            System.out.println("----------------------");
+            for (GroupStatistic group : summary.groups()) {
+                TestStatistic stat = group.statistic();
+                String key = group.lot() != null ? "lot " + group.lot()
+                        : group.testType() != null ? group.testType() + " at site " + group.site()
+                        : "site " + group.site();
+                System.out.printf("%-40s: Count=%d, Avg=%d ms, StdDev=%d ms%s%n", key, stat.count(),
+                        stat.avgMillis(), stat.stdDevMillis(), group.slow() ? " (slow site)" : "");
+            }
+        }
+
+        if (summary.anomalySummary() != null) printAnomalySummary(summary.anomalySummary());
+        anomaliesStarted = false;
+    }
+
+    @Override
+    public void writeAnomaly(@NonNull TestAnomaly anomaly) {
+        if (!anomaliesStarted) {
             System.out.println("\nDetected Anomalies:");
             System.out.println("-------------------");
-            result.anomalies().forEach(anomaly -> {
-                System.out.printf("%s for %s took %d ms (average was %d ms, std. deviation was %d)%n",
-                        anomaly.testType(),
-                        anomaly.deviceInfo(),
-                        anomaly.durationMillis(),
-                        anomaly.averageMillis(),
-                        anomaly.stdDevMillis());
-            });
+            anomaliesStarted = true;
+        }
+        printAnomaly(anomaly);
+    }
+
+    @Override
+    public void end() {
+    }
+
+    private static void printAnomalySummary(AnomalySummary anomalies) {
+        System.out.println("\nDetected Anomalies:");
+        System.out.println("-------------------");
+        anomalies.counts().forEach((testType, count) -> System.out.printf("%-30s: %d%n", testType, count));
+
+        anomalies.slowest().forEach((testType, slowest) -> {
+            if (slowest.isEmpty()) return;
+            System.out.println("\nSlowest Anomalies of " + testType + ":");
+            System.out.println("----------------------");
+            slowest.forEach(PrintConsoleSerializer::printAnomaly);
+        });
+
+        if (!anomalies.worstDevices().isEmpty()) {
+            System.out.println("\nDevices with the Most Time Beyond Average:");
+            System.out.println("----------------------");
+            for (AnomalySummary.DeviceExcess device : anomalies.worstDevices()) {
+                System.out.printf("%-40s: %d ms%n", device.deviceInfo(), device.excessMillis());
+            }
         }
     }
+
+    private static void printAnomaly(TestAnomaly anomaly) {
+        System.out.printf("%s for %s took %d ms (average was %d ms, std. deviation was %d)%n",
+                anomaly.testType(),
+                anomaly.deviceInfo(),
+                anomaly.durationMillis(),
+                anomaly.averageMillis(),
+                anomaly.stdDevMillis());
+    }
+
+    private static void printStatistics(Map<String, TestStatistic> statistics,
+                                        Map<String, DurationPercentiles> percentiles) {
+        statistics.forEach((testType, stat) -> {
+            System.out.printf("%-30s: Count=%d, Total=%d ms, Avg=%d ms, StdDev=%d ms",
+                    testType, stat.count(), stat.totalMillis(), stat.avgMillis(), stat.stdDevMillis());
+            DurationPercentiles percentilesOfType = percentiles.get(testType);
+            if (percentilesOfType != null) {
+                System.out.printf(", P50=%d ms, P90=%d ms, P99=%d ms, P99.9=%d ms",
+                        percentilesOfType.p50Millis(), percentilesOfType.p90Millis(), percentilesOfType.p99Millis(),
+                        percentilesOfType.p999Millis());
+            }
+            System.out.println();
+        });
+    }
 }
@@ -0,0 +1,36 @@
+package com.torfstack.ateloganalyzer.output;
+
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.TestAnomaly;
+import lombok.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Serializer that can write the anomalies of a result one by one, as they are found, so that they never have to
+ * be collected in memory.
+ */
+public interface StreamingResultSerializer extends ResultSerializer {
+    /**
+     * Starts a result by writing everything but its anomalies.
+     *
+     * @param summary The result without anomalies. Its anomaly list is not written.
+     */
+    void begin(@NonNull AnalysisResult summary) throws IOException;
+
+    void writeAnomaly(@NonNull TestAnomaly anomaly) throws IOException;
+
+    /**
+     * Completes the result started by {@link #begin(AnalysisResult)}.
+     */
+    void end() throws IOException;
+
+    @Override
+    default void serialize(@NonNull AnalysisResult result) throws Exception {
+        begin(result);
+        for (TestAnomaly anomaly : result.anomalies()) {
+            writeAnomaly(anomaly);
+        }
+        end();
+    }
+}
@@ -0,0 +1,174 @@
+package com.torfstack.ateloganalyzer.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.LiveAnalysis;
+import com.torfstack.ateloganalyzer.analysis.TestStatistic;
+import com.torfstack.ateloganalyzer.analysis.TimedAnomaly;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Answers queries about a {@link LiveAnalysis} over HTTP while logs are still being ingested into it.
+ * <p>
+ * Every request is handled on its own virtual thread and only reads the in-memory aggregates, so many pollers
+ * neither wait for each other nor hold up ingestion. Responses are JSON:
+ * <ul>
+ *     <li>{@code GET /stats} returns the statistics and percentiles of every test type. With {@code from} and
+ *     {@code to} times (e.g. {@code ?from=14:00&to=15:30}) it returns the statistics of the events that ended in
+ *     that range instead, at minute resolution.</li>
+ *     <li>{@code GET /anomalies} returns the most recent anomalies first, optionally only those of one
+ *     {@code device}, between {@code from} and {@code to}, and at most {@code limit} (default
+ *     {@value #DEFAULT_ANOMALY_LIMIT}).</li>
+ * </ul>
+ */
+public class AnalysisServer implements Closeable {
+    private static final int DEFAULT_ANOMALY_LIMIT = 100;
+
+    private final LiveAnalysis analysis;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Gson gson = new Gson();
+
+    public AnalysisServer(@NonNull LiveAnalysis analysis, @NonNull InetSocketAddress address) throws IOException {
+        this.analysis = analysis;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/stats", exchange -> handle(exchange, this::statistics));
+        server.createContext("/anomalies", exchange -> handle(exchange, this::anomalies));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private Object statistics(Map<String, String> query) {
+        LocalTime from = time(query, "from"), to = time(query, "to");
+        if (from == null && to == null) {
+            AnalysisResult snapshot = analysis.snapshot();
+            JsonObject json = new JsonObject();
+            json.add("statistics", gson.toJsonTree(snapshot.statistics()));
+            json.add("percentiles", gson.toJsonTree(snapshot.percentiles()));
+            return json;
+        }
+        if (from == null || to == null) throw new BadRequestException("Time ranges need both from and to");
+
+        Map<String, TestStatistic> statistics = analysis.statistics(from, to);
+        JsonObject json = new JsonObject();
+        json.add("statistics", gson.toJsonTree(statistics));
+        return json;
+    }
+
+    private Object anomalies(Map<String, String> query) {
+        int limit = DEFAULT_ANOMALY_LIMIT;
+        if (query.containsKey("limit")) {
+            try {
+                limit = Integer.parseInt(query.get("limit"));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid limit " + query.get("limit"));
+            }
+        }
+        List<TimedAnomaly> anomalies = analysis.anomalies(query.get("device"), time(query, "from"),
+                time(query, "to"), limit);
+
+        JsonArray json = new JsonArray();
+        for (TimedAnomaly anomaly : anomalies) {
+            JsonObject entry = gson.toJsonTree(anomaly.anomaly()).getAsJsonObject();
+            entry.addProperty("time", anomaly.time() != null ? anomaly.time().toString() : null);
+            json.add(entry);
+        }
+        return json;
+    }
+
+    private void handle(HttpExchange exchange, Query query) throws IOException {
+        try (exchange) {
+            int status;
+            String body;
+            if (!exchange.getRequestMethod().equals("GET")) {
+                status = 405;
+                body = error("Only GET is supported");
+            } else {
+                try {
+                    body = gson.toJson(query.answer(parameters(exchange.getRequestURI().getRawQuery())));
+                    status = 200;
+                } catch (BadRequestException e) {
+                    status = 400;
+                    body = error(e.getMessage());
+                }
+            }
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private String error(String message) {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", message);
+        return gson.toJson(json);
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return parameters;
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals >= 0 ? parameter.substring(0, equals) : parameter;
+            String value = equals >= 0 ? parameter.substring(equals + 1) : "";
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static LocalTime time(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) return null;
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid time " + value + " for " + name + ", expected e.g. 14:30");
+        }
+    }
+
+    private interface Query {
+        Object answer(Map<String, String> parameters);
+    }
+
+    private static class BadRequestException extends RuntimeException {
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.torfstack.ateloganalyzer;
+
+import com.torfstack.ateloganalyzer.input.EventCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ATELogAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void execute_PipelinedParserWithCache_WritesCache() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("pipelined.log");
+        Files.writeString(logFile, """
+                #PE[14:34:31.300] : BEGIN INSERTION "device #13"
+                #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                #PE[14:35:01.600] : END DEVICE_TEST.SUBTEST
+                """);
+
+        // Act
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+        int exitCode;
+        try {
+            exitCode = new CommandLine(new ATELogAnalyzer()).setCaseInsensitiveEnumValuesAllowed(true)
+                    .execute("--parser", "pipelined", "--cache", logFile.toString());
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        // Assert
+        assertEquals(0, exitCode);
+        assertTrue(Files.exists(EventCache.sidecarOf(logFile)));
+    }
+}
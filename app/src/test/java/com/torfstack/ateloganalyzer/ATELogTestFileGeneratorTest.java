@@ -0,0 +1,68 @@
+package com.torfstack.ateloganalyzer;
+
+import com.torfstack.ateloganalyzer.ATELogTestFileGenerator.Settings;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.input.Input;
+import com.torfstack.ateloganalyzer.input.MappedLogScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ATELogTestFileGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void generateLogFile_SameSeedOnMoreThreads_SameFile() throws Exception {
+        // Arrange
+        Path single = tempDir.resolve("single.log");
+        Path parallel = tempDir.resolve("parallel.log");
+        Settings settings = new Settings(42, 0.05, ATELogTestFileGenerator.SUBTESTS, 4, 0.01, 1);
+
+        // Act
+        ATELogTestFileGenerator.generateLogFile(single, 5000, settings, generated -> {
+        });
+        ATELogTestFileGenerator.generateLogFile(parallel, 5000,
+                new Settings(42, 0.05, ATELogTestFileGenerator.SUBTESTS, 4, 0.01, 4), generated -> {
+                });
+
+        // Assert
+        assertEquals(-1, Files.mismatch(single, parallel));
+    }
+
+    @Test
+    void generateLogFile_WithSitesAndMalformedLines_ParsersSkipMalformedLines() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("generated.log");
+        List<String> subtests = List.of("check connection", "stress test");
+
+        // Act
+        ATELogTestFileGenerator.generateLogFile(logFile, 3000, new Settings(7, 0.02, subtests, 3, 0.05, 2),
+                generated -> {
+                });
+
+        // Assert
+        List<TestEvent> events = MappedLogScanner.parseLogFile(logFile.toString());
+        assertEquals(3000 * subtests.size(), events.size());
+        assertEquals(events, Input.parseLogFile(logFile.toString()));
+        assertEquals("device #1 site 1", events.get(0).deviceInfo());
+        assertEquals("device #3000 site 3", events.getLast().deviceInfo());
+        assertTrue(Files.readAllLines(logFile).contains("*** tester heartbeat lost, retrying ***"));
+    }
+
+    @Test
+    void settings_InvalidKnobs_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new Settings(1, 1.5, ATELogTestFileGenerator.SUBTESTS, 0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Settings(1, 0.02, List.of(), 0, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Settings(1, 0.02, ATELogTestFileGenerator.SUBTESTS, -1, 0, 1));
+    }
+}
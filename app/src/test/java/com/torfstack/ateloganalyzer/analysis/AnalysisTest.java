@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -96,6 +97,33 @@ class AnalysisTest {
         assertTrue(result.anomalies().isEmpty());
     }
 
+    @Test
+    void analyzeTestTimes_TopAnomalies_SummaryInsteadOfList() {
+        // Arrange
+        List<TestEvent> events = List.of(
+                createTestEvent("test1", "device1", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device2", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device3", Duration.ofSeconds(4)),
+                createTestEvent("test1", "device4", Duration.ofSeconds(6)),
+                createTestEvent("test1", "device5", Duration.ofSeconds(20)), // Anomaly
+                createTestEvent("test1", "device6", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device7", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device8", Duration.ofSeconds(4)),
+                createTestEvent("test1", "device9", Duration.ofSeconds(6))
+        );
+        TopAnomalies expected = new TopAnomalies(10);
+        Analysis.analyzeTestTimes(events).anomalies().forEach(expected);
+
+        // Act
+        AnalysisResult result = Analysis.analyzeTestTimes(events, null, new TopAnomalies(10));
+
+        // Assert
+        assertTrue(result.anomalies().isEmpty());
+        assertEquals(expected.summary(), result.anomalySummary());
+        assertEquals(Map.of("test1", 1L), result.anomalySummary().counts());
+        assertEquals("device5", result.anomalySummary().worstDevices().getFirst().deviceInfo());
+    }
+
     private TestEvent createTestEvent(String testType, String deviceInfo, Duration duration) {
         return new TestEvent(
                 null, // startTime not needed for analysis yet
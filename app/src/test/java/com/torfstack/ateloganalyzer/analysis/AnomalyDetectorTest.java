@@ -0,0 +1,98 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnomalyDetectorTest {
+
+    @Test
+    void observe_FewerThanMinEvents_ReportsNoAnomaly() {
+        for (Supplier<AnomalyDetector> detectors : List.<Supplier<AnomalyDetector>>of(StdDevDetector::new,
+                EwmaDetector::new, MadDetector::new)) {
+            // Arrange
+            AnomalyDetector detector = detectors.get();
+            for (int i = 0; i < AnomalyDetector.MIN_EVENTS - 1; i++) detector.learn(100 + i % 3);
+
+            // Act & Assert
+            assertFalse(detector.isAnomaly(100_000));
+            detector.learn(101);
+            assertTrue(detector.isAnomaly(100_000));
+        }
+    }
+
+    @Test
+    void observe_SlowDrift_EwmaFollowsDriftAndStillFindsSpike() {
+        // Arrange
+        AnomalyDetector ewma = new EwmaDetector();
+        Random random = new Random(3);
+        List<TestAnomaly> anomalies = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 2000; i++) {
+            long duration = 400 + i / 10 + random.nextInt(20);
+            TestAnomaly anomaly = ewma.observe("calibrate sensors", "device #" + i, duration);
+            if (anomaly != null) anomalies.add(anomaly);
+        }
+        TestAnomaly spike = ewma.observe("calibrate sensors", "device #2000", 1000);
+
+        // Assert
+        assertTrue(anomalies.size() < 10, "Found " + anomalies.size() + " anomalies in the drift");
+        assertNotNull(spike);
+        assertEquals(600, spike.averageMillis(), 15);
+    }
+
+    @Test
+    void observe_ManyOutliers_MadIsNotMaskedByThem() {
+        // Arrange
+        AnomalyDetector mad = new MadDetector();
+        AnomalyDetector stdDev = new StdDevDetector();
+        Random random = new Random(5);
+        int madAnomalies = 0, stdDevAnomalies = 0, outliers = 0;
+
+        // Act
+        for (int i = 0; i < 5000; i++) {
+            boolean outlier = i >= 100 && i % 4 == 0;
+            long duration = outlier ? 300 + random.nextInt(100) : 100 + random.nextInt(10);
+            if (outlier) outliers++;
+            if (mad.observe("test", "device", duration) != null) madAnomalies++;
+            if (stdDev.observe("test", "device", duration) != null) stdDevAnomalies++;
+        }
+
+        // Assert
+        assertEquals(outliers, madAnomalies);
+        assertTrue(stdDevAnomalies < outliers / 2, "Found " + stdDevAnomalies + " of " + outliers + " outliers");
+        assertEquals(104, mad.expectedMillis(), 2);
+    }
+
+    @Test
+    void analyzeTestTimes_Detectors_SameAnomaliesForListAndColumns() {
+        // Arrange
+        Random random = new Random(9);
+        List<TestEvent> events = new ArrayList<>();
+        EventStore store = new EventStore();
+        for (int i = 0; i < 3000; i++) {
+            long duration = random.nextInt(50) == 0 ? 2000 : 200 + random.nextInt(40);
+            TestEvent event = new TestEvent(LocalTime.NOON, LocalTime.NOON.plusNanos(duration * 1_000_000),
+                    Duration.ofMillis(duration), "test" + i % 3, "device #" + i);
+            events.add(event);
+            store.accept(event);
+        }
+
+        // Act
+        AnalysisResult list = Analysis.analyzeTestTimes(events, MadDetector::new);
+        AnalysisResult columns = Analysis.analyzeTestTimes(store, MadDetector::new);
+
+        // Assert
+        assertFalse(list.anomalies().isEmpty());
+        assertEquals(list.anomalies(), columns.anomalies());
+        assertEquals(Analysis.analyzeTestTimes(events).statistics(), list.statistics());
+    }
+}
@@ -0,0 +1,105 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationHistogramTest {
+
+    @Test
+    void valueAtQuantile_RandomDurations_WithinOnePercentOfExactQuantile() {
+        // Arrange
+        Random random = new Random(7);
+        long[] durations = new long[100_000];
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = (long) Math.exp(random.nextGaussian() * 2 + 7);
+            histogram.record(durations[i]);
+        }
+        Arrays.sort(durations);
+
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            // Act
+            long approximate = histogram.valueAtQuantile(quantile);
+
+            // Assert
+            long exact = durations[(int) Math.ceil(quantile * durations.length) - 1];
+            assertEquals(exact, approximate, exact * 0.01, "quantile " + quantile);
+        }
+    }
+
+    @Test
+    void valueAtQuantile_ShortDurations_Exact() {
+        // Arrange
+        DurationHistogram histogram = new DurationHistogram();
+        for (long duration = 1; duration <= 100; duration++) histogram.record(duration);
+
+        // Act
+        DurationPercentiles percentiles = histogram.percentiles();
+
+        // Assert
+        assertEquals(new DurationPercentiles(50, 90, 99, 100), percentiles);
+    }
+
+    @Test
+    void merge_SameQuantilesAsRecordingAllDurations() {
+        // Arrange
+        Random random = new Random(11);
+        DurationHistogram all = new DurationHistogram();
+        DurationHistogram first = new DurationHistogram();
+        DurationHistogram second = new DurationHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            long duration = random.nextInt(1_000_000);
+            all.record(duration);
+            (i % 2 == 0 ? first : second).record(duration);
+        }
+
+        // Act
+        first.merge(second);
+
+        // Assert
+        assertEquals(all.count(), first.count());
+        assertEquals(all.percentiles(), first.percentiles());
+    }
+
+    @Test
+    void medianAbsoluteDeviation_ShortDurations_Exact() {
+        // Arrange
+        DurationHistogram histogram = new DurationHistogram();
+        for (long duration : new long[]{1, 1, 2, 2, 4, 6, 9}) histogram.record(duration);
+
+        // Act
+        long mad = histogram.medianAbsoluteDeviation(histogram.valueAtQuantile(0.5));
+
+        // Assert
+        assertEquals(1, mad);
+        assertEquals(0, new DurationHistogram().medianAbsoluteDeviation(5));
+    }
+
+    @Test
+    void analyzeTestTimes_ReportsPercentilesPerTestType() {
+        // Arrange
+        List<TestEvent> events = new ArrayList<>();
+        for (int millis = 1; millis <= 1000; millis++) {
+            events.add(new TestEvent(LocalTime.NOON, LocalTime.NOON.plusNanos(millis * 1_000_000L),
+                    Duration.ofMillis(millis), "check connection", "device #" + millis));
+        }
+
+        // Act
+        AnalysisResult result = Analysis.analyzeTestTimes(events);
+
+        // Assert
+        DurationPercentiles percentiles = result.percentiles().get("check connection");
+        assertEquals(500, percentiles.p50Millis(), 5);
+        assertEquals(900, percentiles.p90Millis(), 9);
+        assertEquals(990, percentiles.p99Millis(), 10);
+        assertEquals(999, percentiles.p999Millis(), 10);
+    }
+}
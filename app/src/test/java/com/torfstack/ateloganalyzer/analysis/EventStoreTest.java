@@ -0,0 +1,165 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventStoreTest {
+
+    @Test
+    void accept_StoresColumnsAndInternsNames() {
+        // Arrange
+        EventStore store = new EventStore();
+        LocalTime begin = LocalTime.of(14, 35, 1, 300_000_000);
+
+        // Act
+        store.accept(new TestEvent(begin, begin.plusNanos(400_000_000), Duration.ofMillis(400), "test1", "device1"));
+        store.accept(new TestEvent(begin, begin.plusNanos(200_000_000), Duration.ofMillis(200), "test2", "device1"));
+        store.accept(new TestEvent(null, null, Duration.ofMillis(100), "test1", "device2"));
+
+        // Assert
+        assertEquals(3, store.size());
+        assertEquals(52_501_300, store.beginMillis(0));
+        assertEquals(52_501_700, store.endMillis(0));
+        assertEquals(400, store.durationMillis(0));
+        assertEquals(100, store.durationMillis(2));
+        assertEquals(store.testTypeId(0), store.testTypeId(2));
+        assertEquals(store.deviceId(0), store.deviceId(1));
+        assertEquals(2, store.testTypes().size());
+        assertEquals("device2", store.devices().name(store.deviceId(2)));
+    }
+
+    @Test
+    void accept_BeyondOneBlock_KeepsAllEvents() {
+        // Arrange
+        EventStore store = new EventStore();
+
+        // Act
+        for (int i = 0; i < 200_000; i++) store.add(i, i + i % 1000, "test" + i % 7, "device" + i / 7);
+
+        // Assert
+        assertEquals(200_000, store.size());
+        assertEquals(199_999 % 1000, store.durationMillis(199_999));
+        assertEquals("device" + 199_999 / 7, store.devices().name(store.deviceId(199_999)));
+    }
+
+    @Test
+    void analyzeTestTimes_SameResultAsListAnalysis() {
+        // Arrange
+        Random random = new Random(7);
+        List<TestEvent> events = new ArrayList<>();
+        EventStore store = new EventStore();
+        for (int device = 0; device < 500; device++) {
+            for (String testType : List.of("check connection", "validate memory", "stress test")) {
+                long millis = random.nextInt(50) == 0 ? 5000 + random.nextInt(5000) : 50 + random.nextInt(150);
+                TestEvent event = new TestEvent(null, null, Duration.ofMillis(millis), testType, "device #" + device);
+                events.add(event);
+                store.accept(event);
+            }
+        }
+
+        // Act
+        AnalysisResult expected = Analysis.analyzeTestTimes(events);
+        AnalysisResult actual = Analysis.analyzeTestTimes(store);
+
+        // Assert
+        assertEquals(expected.statistics().keySet(), actual.statistics().keySet());
+        expected.statistics().forEach((testType, statistic) -> {
+            TestStatistic columnar = actual.statistics().get(testType);
+            assertEquals(statistic.count(), columnar.count());
+            assertEquals(statistic.totalMillis(), columnar.totalMillis());
+            assertEquals(statistic.avgMillis(), columnar.avgMillis());
+            assertEquals(statistic.stdDevMillis(), columnar.stdDevMillis());
+        });
+        assertEquals(expected.anomalies(), actual.anomalies());
+    }
+
+    @Test
+    void add_PastMidnight_RollsOverToNextDay() {
+        // Arrange
+        EventStore store = new EventStore(LocalDate.of(2024, 3, 1));
+
+        // Act
+        store.add(millisOfDay(23, 59), millisOfDay(23, 59) + 120_000, "test", "device");
+        store.add(millisOfDay(0, 1), millisOfDay(0, 2), "test", "device");
+        store.add(millisOfDay(23, 58), millisOfDay(23, 59), "test", "device"); // Logged after midnight
+        store.add(millisOfDay(8, 0), millisOfDay(8, 1), "test", "device");
+
+        // Assert
+        assertEquals(epochMillis(2024, 3, 1, 23, 59), store.beginMillis(0));
+        assertEquals(epochMillis(2024, 3, 2, 0, 1), store.endMillis(0));
+        assertEquals(epochMillis(2024, 3, 2, 0, 1), store.beginMillis(1));
+        assertEquals(epochMillis(2024, 3, 1, 23, 58), store.beginMillis(2));
+        assertEquals(epochMillis(2024, 3, 2, 8, 0), store.beginMillis(3));
+    }
+
+    @Test
+    void add_BeginsMoreThanAMonthApart_KeepsExactBegins() {
+        // Arrange
+        EventStore store = new EventStore(LocalDate.of(2024, 3, 1));
+
+        // Act
+        for (int day = 0; day < 40; day++) {
+            for (int hour = 0; hour < 24; hour += 8) {
+                store.add(millisOfDay(hour, 0), millisOfDay(hour, 1), "test", "device");
+            }
+        }
+
+        // Assert
+        assertEquals(120, store.size());
+        for (int day = 0; day < 40; day++) {
+            LocalDateTime midnight = LocalDate.of(2024, 3, 1).plusDays(day).atStartOfDay();
+            assertEquals(midnight.toInstant(ZoneOffset.UTC).toEpochMilli(), store.beginMillis(3 * day));
+            assertEquals(midnight.plusHours(16).plusMinutes(1).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                    store.endMillis(3 * day + 2));
+        }
+    }
+
+    @Test
+    void merge_StoresInBeginOrder_MergesByBeginAndRemapsIds() {
+        // Arrange
+        Random random = new Random(3);
+        List<EventStore> stores = new ArrayList<>();
+        for (int file = 0; file < 5; file++) {
+            EventStore store = new EventStore();
+            int beginMillis = random.nextInt(1000);
+            for (int event = 0; event < 1000; event++) {
+                beginMillis += random.nextInt(100);
+                store.add(beginMillis, beginMillis + file, "test" + (event + file) % 3, "device" + file);
+            }
+            stores.add(store);
+        }
+        stores.add(new EventStore());
+
+        // Act
+        EventStore merged = EventStore.merge(stores);
+
+        // Assert
+        assertEquals(5000, merged.size());
+        for (int event = 1; event < merged.size(); event++) {
+            assertTrue(merged.beginMillis(event - 1) <= merged.beginMillis(event));
+        }
+        for (int event = 0; event < merged.size(); event++) {
+            String device = merged.devices().name(merged.deviceId(event));
+            assertEquals(Integer.parseInt(device.substring("device".length())), merged.durationMillis(event));
+        }
+        assertEquals(3, merged.testTypes().size());
+    }
+
+    private static int millisOfDay(int hour, int minute) {
+        return (int) (LocalTime.of(hour, minute).toNanoOfDay() / 1_000_000);
+    }
+
+    private static long epochMillis(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
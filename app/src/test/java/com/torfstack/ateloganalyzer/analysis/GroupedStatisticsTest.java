@@ -0,0 +1,81 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupedStatisticsTest {
+
+    @Test
+    void groups_LotsAndSitesInDeviceStrings_ReturnsStatisticsOfEveryGroup() {
+        // Arrange
+        GroupedStatistics groups = new GroupedStatistics();
+
+        // Act
+        groups.accept(event("check connection", "device #1 lot A17 site 1", 100));
+        groups.accept(event("check connection", "device #2 Lot A17 Site 2", 300));
+        groups.accept(event("measure", "device #3 site 2", 50));
+
+        // Assert
+        assertEquals(List.of(
+                new GroupStatistic(null, "A17", null, new TestStatistic(2, 400, 200, 100), false),
+                new GroupStatistic(null, "unknown", null, new TestStatistic(1, 50, 50, 0), false),
+                new GroupStatistic(null, null, "1", new TestStatistic(1, 100, 100, 0), false),
+                new GroupStatistic(null, null, "2", new TestStatistic(2, 350, 175, 125), false),
+                new GroupStatistic("check connection", null, "1", new TestStatistic(1, 100, 100, 0), false),
+                new GroupStatistic("check connection", null, "2", new TestStatistic(1, 300, 300, 0), false),
+                new GroupStatistic("measure", null, "2", new TestStatistic(1, 50, 50, 0), false)), groups.groups());
+    }
+
+    @Test
+    void groups_OneSiteSlower_CallsOutOnlyThatSite() {
+        // Arrange
+        GroupedStatistics groups = new GroupedStatistics(Pattern.compile("S(?<site>\\d+)$"));
+        Random random = new Random(11);
+
+        // Act
+        for (int i = 0; i < 4000; i++) {
+            int site = i % 4;
+            long durationMillis = 200 + random.nextInt(40) + (site == 3 ? 30 : 0);
+            groups.accept(event("check connection", "device #" + i + " S" + site, durationMillis));
+        }
+
+        // Assert
+        List<String> slowSites = groups.groups().stream()
+                .filter(GroupStatistic::slow)
+                .map(GroupStatistic::site)
+                .toList();
+        assertEquals(List.of("3"), slowSites);
+    }
+
+    @Test
+    void accept_FromSeveralThreads_SameGroupsAsSequentially() {
+        // Arrange
+        Random random = new Random(5);
+        List<TestEvent> events = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            events.add(event("test" + random.nextInt(3), "device lot L" + random.nextInt(5) + " site "
+                    + random.nextInt(8), 50 + random.nextInt(500)));
+        }
+        GroupedStatistics sequential = new GroupedStatistics();
+        events.forEach(sequential);
+        GroupedStatistics concurrent = new GroupedStatistics();
+
+        // Act
+        IntStream.range(0, events.size()).parallel().forEach(i -> concurrent.accept(events.get(i)));
+
+        // Assert
+        assertEquals(sequential.groups(), concurrent.groups());
+    }
+
+    private static TestEvent event(String testType, String device, long durationMillis) {
+        return new TestEvent(null, null, Duration.ofMillis(durationMillis), testType, device);
+    }
+}
@@ -0,0 +1,61 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveAnalysisTest {
+
+    @Test
+    void statistics_TimeRange_OnlyEventsEndingInRange() {
+        // Arrange
+        LiveAnalysis analysis = new LiveAnalysis();
+        analysis.accept(event("test1", "device1", LocalTime.of(13, 59, 59), 100));
+        analysis.accept(event("test1", "device2", LocalTime.of(14, 0), 200));
+        analysis.accept(event("test1", "device3", LocalTime.of(14, 29, 59), 400));
+        analysis.accept(event("test2", "device4", LocalTime.of(14, 30), 800));
+        analysis.accept(event("test2", "device5", LocalTime.of(23, 59), 1600));
+
+        // Act
+        Map<String, TestStatistic> range = analysis.statistics(LocalTime.of(14, 0), LocalTime.of(14, 30));
+        Map<String, TestStatistic> overMidnight = analysis.statistics(LocalTime.of(23, 0), LocalTime.of(13, 0));
+
+        // Assert
+        assertEquals(Map.of("test1", new TestStatistic(2, 600, 300, 100)), range);
+        assertEquals(Map.of("test2", new TestStatistic(1, 1600, 1600, 0)), overMidnight);
+    }
+
+    @Test
+    void anomalies_ByDeviceAndTime_MostRecentFirst() {
+        // Arrange
+        LiveAnalysis analysis = new LiveAnalysis(3);
+        for (int i = 0; i < 10; i++) {
+            analysis.accept(event("test1", "device" + i, LocalTime.of(8, i), 1000));
+        }
+        analysis.accept(event("test1", "slow", LocalTime.of(9, 0), 5000));
+        analysis.accept(event("test1", "other", LocalTime.of(9, 1), 6000));
+        analysis.accept(event("test1", "slow", LocalTime.of(9, 2), 7000));
+        analysis.accept(event("test1", "slow", LocalTime.of(9, 3), 8000));
+
+        // Act
+        List<TimedAnomaly> slow = analysis.anomalies("slow", null, null, 10);
+        List<TimedAnomaly> inRange = analysis.anomalies(null, LocalTime.of(9, 1), LocalTime.of(9, 3), 10);
+        List<TimedAnomaly> limited = analysis.anomalies(null, null, null, 1);
+
+        // Assert
+        assertEquals(List.of(LocalTime.of(9, 3), LocalTime.of(9, 2)), slow.stream().map(TimedAnomaly::time).toList());
+        assertEquals(List.of("slow", "other"), inRange.stream().map(a -> a.anomaly().deviceInfo()).toList());
+        assertEquals(8000, limited.getFirst().anomaly().durationMillis());
+        assertEquals(3, analysis.snapshot().anomalies().size());
+    }
+
+    private static TestEvent event(String testType, String device, LocalTime end, long durationMillis) {
+        return new TestEvent(end.minusNanos(durationMillis * 1_000_000), end, Duration.ofMillis(durationMillis),
+                testType, device);
+    }
+}
@@ -0,0 +1,94 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import com.torfstack.ateloganalyzer.input.MappedLogScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiFileAnalysisTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void analyzeTestTimes_SeveralFiles_SameResultAsOneConcatenatedFile() throws Exception {
+        // Arrange
+        Random random = new Random(3);
+        StringBuilder all = new StringBuilder();
+        List<Path> files = List.of(tempDir.resolve("a.log"), tempDir.resolve("b.log"), tempDir.resolve("c.log"));
+        for (Path file : files) {
+            String log = log(random, 100);
+            Files.writeString(file, log);
+            all.append(log);
+        }
+        Path concatenated = tempDir.resolve("all.log");
+        Files.writeString(concatenated, all);
+
+        // Act
+        AnalysisResult expected = Analysis.analyzeTestTimes(MappedLogScanner.parseLogFile(concatenated.toString()));
+        AnalysisResult actual;
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            actual = MultiFileAnalysis.analyzeTestTimes(files, MappedLogScanner::parseLogFile, executor, true);
+        }
+
+        // Assert
+        assertEquals(expected.statistics().keySet(), actual.statistics().keySet());
+        expected.statistics().forEach((testType, statistic) -> {
+            TestStatistic merged = actual.statistics().get(testType);
+            assertEquals(statistic.count(), merged.count());
+            assertEquals(statistic.totalMillis(), merged.totalMillis());
+            assertEquals(statistic.avgMillis(), merged.avgMillis());
+            assertEquals(statistic.stdDevMillis(), merged.stdDevMillis());
+        });
+        assertEquals(flagged(expected), flagged(actual));
+        assertEquals(3, actual.fileStatistics().size());
+        assertEquals(100, actual.fileStatistics().get(files.getFirst().toString()).get("s0").count());
+    }
+
+    @Test
+    void merge_SameStatisticAsAddingAllDurations() {
+        // Arrange
+        StatisticSums all = new StatisticSums();
+        StatisticSums first = new StatisticSums();
+        StatisticSums second = new StatisticSums();
+        for (long duration = 1; duration <= 100; duration++) {
+            all.add(duration * duration);
+            (duration % 3 == 0 ? first : second).add(duration * duration);
+        }
+
+        // Act
+        first.merge(second);
+
+        // Assert
+        assertEquals(all.count(), first.count());
+        assertEquals(all.toTestStatistic(), first.toTestStatistic());
+    }
+
+    private static List<String> flagged(AnalysisResult result) {
+        return result.anomalies().stream()
+                .map(anomaly -> anomaly.testType() + "/" + anomaly.deviceInfo() + "/" + anomaly.durationMillis())
+                .toList();
+    }
+
+    private static String log(Random random, int devices) {
+        StringBuilder log = new StringBuilder();
+        for (int device = 0; device < devices; device++) {
+            log.append("#PE[08:00:00.000] : BEGIN INSERTION \"device #").append(random.nextInt()).append("\"\n");
+            for (int subtest = 0; subtest < 3; subtest++) {
+                int duration = random.nextInt(30) == 0 ? 5000 + random.nextInt(999) : 100 + random.nextInt(99);
+                log.append("#PE[08:00:01.000] : BEGIN DEVICE_TEST.SUBTEST \"s").append(subtest).append("\"\n");
+                log.append("#PE[08:00:0").append(1 + duration / 1000).append('.')
+                        .append(String.format("%03d", duration % 1000)).append("] : END DEVICE_TEST.SUBTEST\n");
+            }
+        }
+        return log.toString();
+    }
+}
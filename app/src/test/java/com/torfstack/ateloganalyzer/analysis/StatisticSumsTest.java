@@ -0,0 +1,57 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticSumsTest {
+
+    @Test
+    void toTestStatistic_SmallAndHugeDurations_ExactTruncatedStandardDeviation() {
+        Random random = new Random(42);
+        for (long bound : new long[]{10, 1_000, 100_000_000, 1L << 40}) {
+            // Arrange
+            StatisticSums sums = new StatisticSums();
+            BigInteger total = BigInteger.ZERO, squares = BigInteger.ZERO;
+            int count = 1 + random.nextInt(5_000);
+            for (int i = 0; i < count; i++) {
+                long duration = random.nextLong(bound);
+                sums.add(duration);
+                total = total.add(BigInteger.valueOf(duration));
+                squares = squares.add(BigInteger.valueOf(duration).pow(2));
+            }
+            BigInteger n = BigInteger.valueOf(count);
+            long expected = squares.multiply(n).subtract(total.pow(2)).sqrt().divide(n).longValueExact();
+
+            // Act
+            TestStatistic statistic = sums.toTestStatistic();
+
+            // Assert
+            assertEquals(count, statistic.count());
+            assertEquals(total.longValueExact(), statistic.totalMillis());
+            assertEquals(expected, statistic.stdDevMillis(), "Durations below " + bound);
+        }
+    }
+
+    @Test
+    void subtract_PartOfTheDurations_SameAsWithoutThem() {
+        // Arrange
+        StatisticSums kept = new StatisticSums();
+        StatisticSums removed = new StatisticSums();
+        StatisticSums all = new StatisticSums();
+        for (long duration = 1; duration <= 1_000; duration++) {
+            long durationMillis = duration * duration * duration;
+            (duration % 7 == 0 ? removed : kept).add(durationMillis);
+            all.add(durationMillis);
+        }
+
+        // Act
+        all.subtract(removed);
+
+        // Assert
+        assertEquals(kept.toTestStatistic(), all.toTestStatistic());
+    }
+}
@@ -0,0 +1,90 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingAnalysisTest {
+
+    @Test
+    void finish_NoEvents_ReturnsEmptyResult() throws Exception {
+        // Arrange
+        try (StreamingAnalysis analysis = new StreamingAnalysis()) {
+            // Act
+            AnalysisResult result = analysis.finish();
+
+            // Assert
+            assertTrue(result.statistics().isEmpty());
+            assertTrue(result.anomalies().isEmpty());
+        }
+    }
+
+    @Test
+    void finish_DetectsAnomalies() throws Exception {
+        // Arrange
+        List<TestEvent> events = List.of(
+                createTestEvent("test1", "device1", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device2", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device3", Duration.ofSeconds(4)),
+                createTestEvent("test1", "device4", Duration.ofSeconds(6)),
+                createTestEvent("test1", "device5", Duration.ofSeconds(20)), // Anomaly
+                createTestEvent("test1", "device6", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device7", Duration.ofSeconds(5)),
+                createTestEvent("test1", "device8", Duration.ofSeconds(4)),
+                createTestEvent("test1", "device9", Duration.ofSeconds(6))
+        );
+
+        // Act
+        AnalysisResult result = analyze(events);
+
+        // Assert
+        assertEquals(1, result.anomalies().size());
+        assertEquals("device5", result.anomalies().getFirst().deviceInfo());
+        assertEquals(20000, result.anomalies().getFirst().durationMillis());
+    }
+
+    @Test
+    void finish_SameResultAsAnalysis() throws Exception {
+        // Arrange
+        Random random = new Random(7);
+        List<String> testTypes = List.of("check connection", "validate memory", "stress test");
+        List<TestEvent> events = new ArrayList<>();
+        for (int device = 0; device < 500; device++) {
+            for (String testType : testTypes) {
+                long millis = random.nextInt(50) == 0 ? 5000 + random.nextInt(5000) : 50 + random.nextInt(150);
+                events.add(createTestEvent(testType, "device #" + device / 2, Duration.ofMillis(millis)));
+            }
+        }
+
+        // Act
+        AnalysisResult expected = Analysis.analyzeTestTimes(events);
+        AnalysisResult actual = analyze(events);
+
+        // Assert
+        assertEquals(expected.statistics().keySet(), actual.statistics().keySet());
+        expected.statistics().forEach((testType, statistic) -> {
+            TestStatistic streamed = actual.statistics().get(testType);
+            assertEquals(statistic.count(), streamed.count());
+            assertEquals(statistic.totalMillis(), streamed.totalMillis());
+            assertEquals(statistic.avgMillis(), streamed.avgMillis());
+            assertEquals(statistic.stdDevMillis(), streamed.stdDevMillis());
+        });
+        assertEquals(expected.anomalies().size(), actual.anomalies().size());
+    }
+
+    private AnalysisResult analyze(List<TestEvent> events) throws Exception {
+        try (StreamingAnalysis analysis = new StreamingAnalysis()) {
+            events.forEach(analysis);
+            return analysis.finish();
+        }
+    }
+
+    private TestEvent createTestEvent(String testType, String deviceInfo, Duration duration) {
+        return new TestEvent(null, null, duration, testType, deviceInfo);
+    }
+}
@@ -0,0 +1,65 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void id_SameNameAsStringAndBytes_SameId() {
+        // Arrange
+        StringDictionary dictionary = new StringDictionary();
+        ByteBuffer line = ByteBuffer.wrap("BEGIN \"check connection\" on \"Pr\u00fcfplatz 2\"".getBytes(
+                StandardCharsets.UTF_8));
+
+        // Act
+        int ascii = dictionary.id(line, 7, 23);
+        int utf8 = dictionary.id(line, 29, line.limit() - 1);
+
+        // Assert
+        assertEquals(ascii, dictionary.id("check connection"));
+        assertEquals(utf8, dictionary.id("Pr\u00fcfplatz 2"));
+        assertEquals("check connection", dictionary.name(ascii));
+        assertEquals("Pr\u00fcfplatz 2", dictionary.name(utf8));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void id_InvalidUtf8_SameIdAsTheNameItDecodesTo() {
+        // Arrange
+        StringDictionary dictionary = new StringDictionary();
+        byte[] invalid = {'d', 'e', 'v', (byte) 0xff};
+
+        // Act
+        int id = dictionary.id(ByteBuffer.wrap(invalid), 0, invalid.length);
+
+        // Assert
+        assertEquals(id, dictionary.id("dev\ufffd"));
+        assertEquals(id, dictionary.id(ByteBuffer.wrap(invalid), 0, invalid.length));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void ids_ManyNames_SameNamesInOtherDictionary() {
+        // Arrange
+        StringDictionary devices = new StringDictionary();
+        for (int device = 0; device < 20_000; device++) devices.id("device #" + device);
+        StringDictionary other = new StringDictionary();
+        other.id("device #17");
+
+        // Act
+        int[] ids = other.ids(devices);
+
+        // Assert
+        assertEquals(20_000, other.size());
+        assertEquals(0, ids[17]);
+        for (int device = 0; device < 20_000; device++) {
+            assertEquals("device #" + device, other.name(ids[device]));
+            assertEquals(device, devices.id("device #" + device));
+        }
+    }
+}
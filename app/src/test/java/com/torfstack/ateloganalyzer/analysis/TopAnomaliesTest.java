@@ -0,0 +1,110 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopAnomaliesTest {
+
+    @Test
+    void accept_MoreAnomaliesThanLimit_KeepsCountAndSlowest() {
+        // Arrange
+        TopAnomalies top = new TopAnomalies(3);
+
+        // Act
+        for (long durationMillis : new long[]{500, 900, 100, 700, 300, 800}) {
+            top.accept(new TestAnomaly("s0", "device #" + durationMillis, durationMillis, 200, 50));
+        }
+
+        // Assert
+        AnomalySummary summary = top.summary();
+        assertEquals(Map.of("s0", 6L), summary.counts());
+        assertEquals(List.of(900L, 800L, 700L),
+                summary.slowest().get("s0").stream().map(TestAnomaly::durationMillis).toList());
+        assertEquals(List.of(new AnomalySummary.DeviceExcess("device #900", 700),
+                new AnomalySummary.DeviceExcess("device #800", 600),
+                new AnomalySummary.DeviceExcess("device #700", 500)), summary.worstDevices());
+    }
+
+    @Test
+    void accept_DeviceWithSeveralAnomalies_AddsUpTimeBeyondAverage() {
+        // Arrange
+        TopAnomalies top = new TopAnomalies(2);
+
+        // Act
+        top.accept(new TestAnomaly("s0", "device #1", 400, 100, 50));
+        top.accept(new TestAnomaly("s0", "device #2", 500, 100, 50));
+        top.accept(new TestAnomaly("s1", "device #1", 300, 100, 50));
+        top.accept(new TestAnomaly("s1", "device #3", 10, 100, 30));
+
+        // Assert
+        assertEquals(List.of(new AnomalySummary.DeviceExcess("device #1", 500),
+                new AnomalySummary.DeviceExcess("device #2", 400)), top.summary().worstDevices());
+        assertEquals(Map.of("s0", 2L, "s1", 2L), top.summary().counts());
+    }
+
+    @Test
+    void accept_ManySmallAnomaliesOfOneDevice_OutrankOneLargeAnomaly() {
+        // Arrange
+        TopAnomalies top = new TopAnomalies(2);
+        top.accept(new TestAnomaly("s0", "device #1", 900, 100, 50));
+        top.accept(new TestAnomaly("s0", "device #2", 800, 100, 50));
+
+        // Act
+        for (int i = 0; i < 20; i++) top.accept(new TestAnomaly("s0", "device #3", 200, 100, 30));
+
+        // Assert
+        assertEquals(List.of(new AnomalySummary.DeviceExcess("device #3", 2000),
+                new AnomalySummary.DeviceExcess("device #1", 800)), top.summary().worstDevices());
+    }
+
+    @Test
+    void merge_AnomaliesSplitIntoParts_SameSummaryAsAllAtOnce() {
+        // Arrange
+        List<TestAnomaly> anomalies = anomalies(new Random(5), 2000);
+        TopAnomalies whole = new TopAnomalies(50);
+        anomalies.forEach(whole);
+        TopAnomalies merged = new TopAnomalies(50);
+
+        // Act
+        for (int from = 0; from < anomalies.size(); from += 700) {
+            TopAnomalies part = new TopAnomalies(50);
+            anomalies.subList(from, Math.min(from + 700, anomalies.size())).forEach(part);
+            merged.merge(part);
+        }
+
+        // Assert
+        assertEquals(whole.summary(), merged.summary());
+        assertEquals(slowest(anomalies, 50), merged.summary().slowest());
+        assertEquals(50, merged.summary().worstDevices().size());
+    }
+
+    /**
+     * Anomalies of more devices than are kept, with distinct durations, so that the slowest are well-defined.
+     */
+    private static List<TestAnomaly> anomalies(Random random, int count) {
+        List<TestAnomaly> anomalies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            anomalies.add(new TestAnomaly("s" + random.nextInt(3), "device #" + random.nextInt(400),
+                    i * 7919L % 100_003, 50_000, 10_000));
+        }
+        return anomalies;
+    }
+
+    private static Map<String, List<TestAnomaly>> slowest(List<TestAnomaly> anomalies, int limit) {
+        Map<String, List<TestAnomaly>> slowest = new LinkedHashMap<>();
+        for (TestAnomaly anomaly : anomalies) {
+            slowest.computeIfAbsent(anomaly.testType(), k -> new ArrayList<>()).add(anomaly);
+        }
+        slowest.replaceAll((testType, anomaliesOfType) -> anomaliesOfType.stream()
+                .sorted(Comparator.comparingLong(TestAnomaly::durationMillis).reversed()).limit(limit).toList());
+        return slowest;
+    }
+}
@@ -0,0 +1,170 @@
+package com.torfstack.ateloganalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowedStatisticsTest {
+
+    @Test
+    void windows_Tumbling_ReturnsStatisticsOfEveryWindow() {
+        // Arrange
+        WindowedStatistics windows = WindowedStatistics.tumbling(Duration.ofMinutes(5));
+
+        // Act
+        windows.accept(event("calibrate", LocalTime.of(8, 0, 10), 100));
+        windows.accept(event("calibrate", LocalTime.of(8, 3), 300));
+        windows.accept(event("measure", LocalTime.of(8, 4), 50));
+        windows.accept(event("calibrate", LocalTime.of(8, 7), 500));
+        windows.accept(event("calibrate", LocalTime.of(9, 1), 700));
+        windows.finish();
+
+        // Assert
+        assertEquals(List.of(
+                new WindowStatistic("calibrate", at(8, 0), at(8, 5),
+                        new TestStatistic(2, 400, 200, 100)),
+                new WindowStatistic("measure", at(8, 0), at(8, 5),
+                        new TestStatistic(1, 50, 50, 0)),
+                new WindowStatistic("calibrate", at(8, 5), at(8, 10),
+                        new TestStatistic(1, 500, 500, 0)),
+                new WindowStatistic("calibrate", at(9, 0), at(9, 5),
+                        new TestStatistic(1, 700, 700, 0))), windows.windows());
+    }
+
+    @Test
+    void windows_Sliding_SameAsRecomputingEveryWindow() {
+        // Arrange
+        Duration length = Duration.ofMinutes(10), slide = Duration.ofMinutes(4);
+        WindowedStatistics windows = new WindowedStatistics(length, slide);
+        Random random = new Random(42);
+        List<TestEvent> events = new ArrayList<>();
+        LocalTime begin = LocalTime.of(6, 0);
+        for (int i = 0; i < 2000; i++) {
+            begin = begin.plusSeconds(random.nextInt(30));
+            events.add(event(random.nextBoolean() ? "a" : "b", begin, 100 + random.nextInt(500)));
+        }
+
+        // Act
+        events.forEach(windows);
+        windows.finish();
+
+        // Assert
+        List<WindowStatistic> expected = new ArrayList<>();
+        for (LocalTime end = LocalTime.of(6, 4); !end.isAfter(begin.plus(length)); end = end.plus(slide)) {
+            for (String testType : List.of("a", "b")) {
+                LocalTime start = end.minus(length), windowEnd = end;
+                StatisticSums statistic = new StatisticSums();
+                events.stream()
+                        .filter(event -> event.eventType().equals(testType))
+                        .filter(event -> !event.begin().isBefore(start) && event.begin().isBefore(windowEnd))
+                        .forEach(event -> statistic.add(event.duration().toMillis()));
+                if (statistic.count() > 0) {
+                    expected.add(new WindowStatistic(testType, LocalDate.EPOCH.atTime(start),
+                            LocalDate.EPOCH.atTime(end), statistic.toTestStatistic()));
+                }
+            }
+        }
+        List<WindowStatistic> actual = new ArrayList<>(windows.windows());
+        actual.sort((x, y) -> x.end().equals(y.end()) ? x.testType().compareTo(y.testType())
+                : x.end().compareTo(y.end()));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void accept_PastMidnightAndOutOfOrder_ContinuesOnNextDayAndSkipsLateEvents() {
+        // Arrange
+        WindowedStatistics windows = WindowedStatistics.tumbling(Duration.ofHours(1));
+
+        // Act
+        windows.accept(event("a", LocalTime.of(23, 30), 100));
+        windows.accept(event("a", LocalTime.of(0, 10), 200));
+        windows.accept(event("a", LocalTime.of(23, 50), 300)); // Before the window of the latest event
+        windows.accept(event("a", LocalTime.of(0, 20), 400));
+        windows.finish();
+
+        // Assert
+        assertEquals(List.of(
+                new WindowStatistic("a", at(23, 0), at(0, 0).plusDays(1), new TestStatistic(1, 100, 100, 0)),
+                new WindowStatistic("a", at(0, 0).plusDays(1), at(1, 0).plusDays(1),
+                        new TestStatistic(2, 600, 300, 100))),
+                windows.windows());
+        assertEquals(1, windows.lateEvents());
+    }
+
+    @Test
+    void merge_WindowsOfTwoFiles_AddsUpSameWindows() {
+        // Arrange
+        WindowedStatistics first = WindowedStatistics.tumbling(Duration.ofMinutes(5));
+        WindowedStatistics second = WindowedStatistics.tumbling(Duration.ofMinutes(5));
+        first.accept(event("a", LocalTime.of(8, 1), 100));
+        second.accept(event("a", LocalTime.of(8, 2), 300));
+        second.accept(event("a", LocalTime.of(8, 6), 500));
+        first.finish();
+        second.finish();
+        WindowedStatistics merged = WindowedStatistics.tumbling(Duration.ofMinutes(5));
+
+        // Act
+        merged.merge(first);
+        merged.merge(second);
+
+        // Assert
+        assertEquals(List.of(
+                new WindowStatistic("a", at(8, 0), at(8, 5), new TestStatistic(2, 400, 200, 100)),
+                new WindowStatistic("a", at(8, 5), at(8, 10), new TestStatistic(1, 500, 500, 0))),
+                merged.windows());
+        assertThrows(IllegalArgumentException.class,
+                () -> merged.merge(WindowedStatistics.tumbling(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    void merge_WindowsOfFilesOfDifferentDays_KeepsDaysApart() {
+        // Arrange
+        LocalDate firstDay = LocalDate.of(2026, 10, 17);
+        WindowedStatistics first = new WindowedStatistics(Duration.ofMinutes(5), Duration.ofMinutes(5), firstDay);
+        WindowedStatistics second = new WindowedStatistics(Duration.ofMinutes(5), Duration.ofMinutes(5),
+                firstDay.plusDays(1));
+        first.accept(event("a", LocalTime.of(8, 1), 100));
+        second.accept(event("a", LocalTime.of(8, 2), 300));
+        first.finish();
+        second.finish();
+        WindowedStatistics merged = WindowedStatistics.tumbling(Duration.ofMinutes(5));
+
+        // Act
+        merged.merge(second);
+        merged.merge(first);
+
+        // Assert
+        assertEquals(List.of(
+                new WindowStatistic("a", firstDay.atTime(8, 0), firstDay.atTime(8, 5),
+                        new TestStatistic(1, 100, 100, 0)),
+                new WindowStatistic("a", firstDay.plusDays(1).atTime(8, 0), firstDay.plusDays(1).atTime(8, 5),
+                        new TestStatistic(1, 300, 300, 0))), merged.windows());
+    }
+
+    @Test
+    void constructor_InvalidWindows_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new WindowedStatistics(Duration.ofMinutes(1), Duration.ofMinutes(2)));
+        assertThrows(IllegalArgumentException.class, () -> WindowedStatistics.tumbling(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WindowedStatistics(Duration.ofHours(24), Duration.ofMillis(7)));
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return LocalDate.EPOCH.atTime(hour, minute);
+    }
+
+    private static TestEvent event(String testType, LocalTime begin, long durationMillis) {
+        return new TestEvent(begin, begin.plusNanos(durationMillis * 1_000_000), Duration.ofMillis(durationMillis),
+                testType, "device");
+    }
+}
@@ -0,0 +1,153 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.Analysis;
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.AnomalyDetector;
+import com.torfstack.ateloganalyzer.analysis.EwmaDetector;
+import com.torfstack.ateloganalyzer.analysis.MadDetector;
+import com.torfstack.ateloganalyzer.analysis.StdDevDetector;
+import com.torfstack.ateloganalyzer.analysis.TopAnomalies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisCheckpointTest {
+
+    private static final Map<String, Supplier<AnomalyDetector>> DETECTORS = Map.of(
+            "stddev", StdDevDetector::new, "ewma", EwmaDetector::new, "mad", MadDetector::new);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void analyzeLogFile_LogGrowsInPieces_SameResultAsFullAnalysis() throws Exception {
+        // Arrange
+        byte[] log = growingLog(300).getBytes(StandardCharsets.UTF_8);
+        int[] cuts = {0, 1, log.length / 5, log.length / 3 + 7, log.length / 2, log.length - 3, log.length};
+
+        for (Map.Entry<String, Supplier<AnomalyDetector>> detector : DETECTORS.entrySet()) {
+            Path logFile = tempDir.resolve(detector.getKey() + ".log");
+            Path checkpoint = tempDir.resolve(detector.getKey() + ".checkpoint");
+            Files.write(logFile, new byte[0]);
+
+            for (int i = 1; i < cuts.length; i++) {
+                // Act
+                Files.write(logFile, Arrays.copyOfRange(log, cuts[i - 1], cuts[i]), StandardOpenOption.APPEND);
+                AnalysisCheckpoint.Resumed resumed = AnalysisCheckpoint.analyzeLogFile(logFile.toString(),
+                        checkpoint, LogDialect.DEFAULT, detector.getKey(), detector.getValue());
+
+                // Assert
+                AnalysisResult expected = Analysis.analyzeTestTimes(
+                        MappedLogScanner.parseLogFile(logFile.toString()), detector.getValue());
+                assertEquals(expected, resumed.result(), detector.getKey() + " after " + cuts[i] + " bytes");
+                assertTrue(resumed.resumedOffset() <= cuts[i - 1]);
+                assertEquals(cuts[i], resumed.logSize());
+            }
+        }
+    }
+
+    @Test
+    void analyzeLogFile_TopAnomalies_SameSummaryAsFullAnalysis() throws Exception {
+        // Arrange
+        byte[] log = growingLog(300).getBytes(StandardCharsets.UTF_8);
+        Path logFile = tempDir.resolve("top.log");
+        Path checkpoint = tempDir.resolve("top.checkpoint");
+        Files.write(logFile, new byte[0]);
+
+        for (int cut : new int[]{log.length / 4, log.length / 2 + 5, log.length}) {
+            // Act
+            Files.write(logFile, Arrays.copyOfRange(log, (int) Files.size(logFile), cut), StandardOpenOption.APPEND);
+            AnalysisCheckpoint.Resumed resumed = AnalysisCheckpoint.analyzeLogFile(logFile.toString(), checkpoint,
+                    LogDialect.DEFAULT, "stddev", StdDevDetector::new, 3);
+
+            // Assert
+            AnalysisResult expected = Analysis.analyzeTestTimes(MappedLogScanner.parseLogFile(logFile.toString()),
+                    StdDevDetector::new, new TopAnomalies(3));
+            assertEquals(expected, resumed.result(), "after " + cut + " bytes");
+            assertTrue(resumed.result().anomalies().isEmpty());
+        }
+
+        // Act
+        AnalysisCheckpoint.Resumed otherLimit = AnalysisCheckpoint.analyzeLogFile(logFile.toString(), checkpoint,
+                LogDialect.DEFAULT, "stddev", StdDevDetector::new, 5);
+
+        // Assert
+        assertEquals(0, otherLimit.resumedOffset());
+    }
+
+    @Test
+    void analyzeLogFile_LogRewritten_AnalyzesFromStart() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("rewritten.log");
+        Path checkpoint = tempDir.resolve("rewritten.checkpoint");
+        Files.writeString(logFile, growingLog(50));
+        AnalysisCheckpoint.analyzeLogFile(logFile.toString(), checkpoint, LogDialect.DEFAULT, "stddev",
+                StdDevDetector::new);
+        Files.writeString(logFile, growingLog(60).replace("device #", "unit #"));
+
+        // Act
+        AnalysisCheckpoint.Resumed resumed = AnalysisCheckpoint.analyzeLogFile(logFile.toString(), checkpoint,
+                LogDialect.DEFAULT, "stddev", StdDevDetector::new);
+
+        // Assert
+        assertEquals(0, resumed.resumedOffset());
+        assertEquals(Analysis.analyzeTestTimes(MappedLogScanner.parseLogFile(logFile.toString()),
+                StdDevDetector::new), resumed.result());
+    }
+
+    @Test
+    void analyzeLogFile_OtherDetector_AnalyzesFromStart() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("detector.log");
+        Path checkpoint = tempDir.resolve("detector.checkpoint");
+        Files.writeString(logFile, growingLog(50));
+        AnalysisCheckpoint.analyzeLogFile(logFile.toString(), checkpoint, LogDialect.DEFAULT, "stddev",
+                StdDevDetector::new);
+
+        // Act
+        AnalysisCheckpoint.Resumed resumed = AnalysisCheckpoint.analyzeLogFile(logFile.toString(), checkpoint,
+                LogDialect.DEFAULT, "mad", MadDetector::new);
+
+        // Assert
+        assertEquals(0, resumed.resumedOffset());
+        assertEquals(Analysis.analyzeTestTimes(MappedLogScanner.parseLogFile(logFile.toString()),
+                MadDetector::new), resumed.result());
+    }
+
+    /**
+     * Builds a log with outliers, subtests past midnight, and missing BEGIN and END lines.
+     */
+    private static String growingLog(int devices) {
+        Random random = new Random(7);
+        StringBuilder log = new StringBuilder();
+        int millis = 23 * 3600 * 1000;
+        for (int device = 1; device <= devices; device++) {
+            log.append(line(millis += 100, "BEGIN INSERTION \"device #" + device + "\""));
+            for (int subtest = 0; subtest < 3; subtest++) {
+                int duration = 50 + random.nextInt(20) + (random.nextInt(30) == 0 ? 500 : 0);
+                if (random.nextInt(25) != 0) {
+                    log.append(line(millis += 10, "BEGIN DEVICE_TEST.SUBTEST \"s" + subtest + "\""));
+                }
+                if (random.nextInt(25) != 0) log.append(line(millis += duration, "END DEVICE_TEST.SUBTEST"));
+            }
+            log.append(line(millis += 10, "END REMOVAL"));
+        }
+        return log.toString();
+    }
+
+    private static String line(int millis, String message) {
+        int millisOfDay = millis % (24 * 3600 * 1000);
+        return String.format("#PE[%02d:%02d:%02d.%03d] : %s%n", millisOfDay / 3_600_000, millisOfDay / 60_000 % 60,
+                millisOfDay / 1000 % 60, millisOfDay % 1000, message);
+    }
+}
@@ -0,0 +1,176 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.input.CompressedLogScanner.Compression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedLogScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void detect_MagicBytes_ReturnsCompression() throws Exception {
+        // Arrange
+        Path plain = tempDir.resolve("plain.log");
+        Path gzip = tempDir.resolve("log.gz");
+        Path zstd = tempDir.resolve("log.zst");
+        Files.writeString(plain, "#PE[14:34:31.300] : BEGIN INSERTION \"device #13\"\n");
+        Files.write(gzip, gzip(log(1)));
+        Files.write(zstd, zstdFrame(log(1)));
+
+        // Act & Assert
+        assertEquals(Compression.NONE, CompressedLogScanner.detect(plain));
+        assertEquals(Compression.GZIP, CompressedLogScanner.detect(gzip));
+        assertEquals(Compression.ZSTD, CompressedLogScanner.detect(zstd));
+    }
+
+    @Test
+    void parseLogFile_Gzip_SameEventsAsUncompressedFile() throws Exception {
+        // Arrange
+        byte[] log = log(5000);
+        Path plain = tempDir.resolve("plain.log");
+        Path gzip = tempDir.resolve("log.gz");
+        Files.write(plain, log);
+        Files.write(gzip, gzip(log));
+
+        // Act
+        List<TestEvent> events = CompressedLogScanner.parseLogFile(gzip.toString());
+
+        // Assert
+        assertEquals(15000, events.size());
+        assertEquals(MappedLogScanner.parseLogFile(plain.toString()), events);
+    }
+
+    @Test
+    void parseLogFile_BgzfInParallel_SameEventsAsUncompressedFile() throws Exception {
+        // Arrange
+        byte[] log = log(5000);
+        Path plain = tempDir.resolve("plain.log");
+        Path bgzf = tempDir.resolve("log.bgz");
+        Files.write(plain, log);
+        Files.write(bgzf, bgzf(log, 1000));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<TestEvent> events = new ArrayList<>();
+
+        // Act
+        CompressedLogScanner.parseLogFile(bgzf.toString(), pool, 2000, events::add);
+
+        // Assert
+        assertEquals(MappedLogScanner.parseLogFile(plain.toString()), events);
+        pool.shutdown();
+    }
+
+    @Test
+    void splitPoints_ZstdFrames_ReturnsFrameStarts() throws Exception {
+        // Arrange
+        byte[] first = zstdFrame(log(1));
+        byte[] skippable = {0x50, 0x2A, 0x4D, 0x18, 2, 0, 0, 0, 7, 7};
+        byte[] second = zstdFrame(log(2));
+        Path zstd = tempDir.resolve("log.zst");
+        Files.write(zstd, concat(first, skippable, second));
+
+        // Act
+        List<Long> splitPoints;
+        try (FileChannel channel = FileChannel.open(zstd)) {
+            splitPoints = CompressedLogScanner.splitPoints(channel, Compression.ZSTD);
+        }
+
+        // Assert
+        long secondStart = first.length + skippable.length;
+        assertEquals(List.of(0L, (long) first.length, secondStart, secondStart + second.length), splitPoints);
+    }
+
+    @Test
+    void splitPoints_PlainGzip_ReturnsNull() throws Exception {
+        // Arrange
+        Path gzip = tempDir.resolve("log.gz");
+        Files.write(gzip, gzip(log(10)));
+
+        // Act & Assert
+        try (FileChannel channel = FileChannel.open(gzip)) {
+            assertNull(CompressedLogScanner.splitPoints(channel, Compression.GZIP));
+        }
+    }
+
+    private static byte[] log(int devices) {
+        StringBuilder log = new StringBuilder();
+        for (int device = 0; device < devices; device++) {
+            log.append("#PE[08:00:00.000] : BEGIN INSERTION \"device #").append(device).append("\"\n");
+            for (int subtest = 0; subtest < 3; subtest++) {
+                log.append("#PE[08:00:01.000] : BEGIN DEVICE_TEST.SUBTEST \"s").append(subtest).append("\"\n");
+                log.append("#PE[08:00:01.").append(String.format("%03d", (device + subtest) % 1000))
+                        .append("] : END DEVICE_TEST.SUBTEST\n");
+            }
+        }
+        return log.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes {@code data} as BGZF, i.e. as gzip members of at most {@code blockSize} bytes of data that store their
+     * own compressed size in a {@code BC} extra field.
+     */
+    private static byte[] bgzf(byte[] data, int blockSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int from = 0; from < data.length; from += blockSize) {
+            int length = Math.min(blockSize, data.length - from);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            deflater.setInput(data, from, length);
+            deflater.finish();
+            byte[] deflated = new byte[length + 1024];
+            int deflatedLength = deflater.deflate(deflated);
+            deflater.end();
+            CRC32 crc = new CRC32();
+            crc.update(data, from, length);
+
+            ByteBuffer member = ByteBuffer.allocate(18 + deflatedLength + 8).order(ByteOrder.LITTLE_ENDIAN);
+            member.put(new byte[]{0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff}).putShort((short) 6);
+            member.put((byte) 'B').put((byte) 'C').putShort((short) 2).putShort((short) (member.capacity() - 1));
+            member.put(deflated, 0, deflatedLength).putInt((int) crc.getValue()).putInt(length);
+            out.writeBytes(member.array());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes {@code data} as a zstd frame of a single raw (uncompressed) block.
+     */
+    private static byte[] zstdFrame(byte[] data) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + 1 + 4 + 3 + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        frame.putInt(0xFD2FB528).put((byte) 0xA0).putInt(data.length); // Single segment, 4 byte content size
+        int blockHeader = data.length << 3 | 1; // Raw, last block
+        frame.put((byte) blockHeader).put((byte) (blockHeader >>> 8)).put((byte) (blockHeader >>> 16));
+        return frame.put(data).array();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) out.writeBytes(part);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,107 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parseLogFile_UnchangedLog_ReplaysSameEventsFromSidecar() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("test.log");
+        Files.writeString(logFile, log(0, 100));
+        List<TestEvent> expected = MappedLogScanner.parseLogFile(logFile.toString());
+
+        // Act
+        List<TestEvent> firstRun = EventCache.parseLogFile(logFile.toString());
+        FileTime sidecarWritten = Files.getLastModifiedTime(EventCache.sidecarOf(logFile));
+        List<TestEvent> secondRun = EventCache.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(300, expected.size());
+        assertEquals(expected, firstRun);
+        assertEquals(expected, secondRun);
+        assertEquals(sidecarWritten, Files.getLastModifiedTime(EventCache.sidecarOf(logFile)));
+    }
+
+    @Test
+    void parseLogFile_AppendedLog_SameEventsAsParsingWholeLog() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("test.log");
+        String log = log(0, 100) + log(100, 50);
+        int split = log.indexOf("END DEVICE_TEST", log(0, 100).length());
+        Files.writeString(logFile, log.substring(0, split)); // Ends within a line
+        EventCache.parseLogFile(logFile.toString());
+        Files.writeString(logFile, log.substring(split), StandardOpenOption.APPEND);
+
+        // Act
+        List<TestEvent> appended = EventCache.parseLogFile(logFile.toString());
+        List<TestEvent> replayed = EventCache.parseLogFile(logFile.toString());
+
+        // Assert
+        List<TestEvent> expected = MappedLogScanner.parseLogFile(logFile.toString());
+        assertEquals(450, expected.size());
+        assertEquals(expected, appended);
+        assertEquals(expected, replayed);
+    }
+
+    @Test
+    void parseLogFile_RewrittenLog_ParsesLogAgain() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("test.log");
+        Files.writeString(logFile, log(0, 100));
+        EventCache.parseLogFile(logFile.toString());
+        Files.writeString(logFile, log(500, 120));
+
+        // Act
+        List<TestEvent> events = EventCache.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(MappedLogScanner.parseLogFile(logFile.toString()), events);
+    }
+
+    @Test
+    void parseLogFile_CorruptSidecar_ParsesLogAgain() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("test.log");
+        Files.writeString(logFile, log(0, 100));
+        EventCache.parseLogFile(logFile.toString());
+        Path sidecar = EventCache.sidecarOf(logFile);
+        byte[] bytes = Files.readAllBytes(sidecar);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(sidecar, bytes);
+
+        // Act
+        List<TestEvent> events = EventCache.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(MappedLogScanner.parseLogFile(logFile.toString()), events);
+    }
+
+    private static String log(int firstDevice, int devices) {
+        StringBuilder log = new StringBuilder();
+        for (int device = firstDevice; device < firstDevice + devices; device++) {
+            log.append("#PE[23:59:50.000] : BEGIN INSERTION \"device #").append(device).append("\"\n");
+            for (int subtest = 0; subtest < 3; subtest++) {
+                // The last subtest of every device runs past midnight
+                log.append("#PE[23:59:5").append(subtest * 3).append(".000] : BEGIN DEVICE_TEST.SUBTEST \"s")
+                        .append(device % 7 + subtest).append("\"\n");
+                log.append(subtest == 2 ? "#PE[00:00:01." : "#PE[23:59:5" + (subtest * 3 + 1) + ".")
+                        .append(String.format("%03d", device % 1000)).append("] : END DEVICE_TEST.SUBTEST\n");
+            }
+        }
+        return log.toString();
+    }
+}
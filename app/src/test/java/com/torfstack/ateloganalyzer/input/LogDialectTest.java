@@ -0,0 +1,159 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.input.LogDialect.Definition;
+import com.torfstack.ateloganalyzer.input.LogDialect.QuoteEnd;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogDialectTest {
+
+    private static final Definition VENDOR = new Definition("vendor", "", "yyyy-MM-dd'T'HH:mm:ss,SSSSSS", " ",
+            "LOAD DUT", "TEST START", "TEST STOP", "<", ">", QuoteEnd.FIRST);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parseLogFile_VendorDialect_ReturnsTestEvents() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("vendor.log");
+        Files.writeString(logFile, """
+                2025-03-14T14:34:31,300000 LOAD DUT <socket 1> <lot 7>
+                2025-03-14T14:35:01,300000 TEST START <check connection>
+                2025-03-14T14:35:01,600500 TEST STOP
+                2025-03-14T14:35:02,000000 TEST START check memory
+                2025-03-14T14:35:02,250000 TEST STOP
+                #PE[14:35:03.000] : BEGIN DEVICE_TEST.SUBTEST "ignored"
+                """);
+        List<TestEvent> events = new ArrayList<>();
+
+        // Act
+        MappedLogScanner.parseLogFile(logFile.toString(), LogDialect.compile(VENDOR), events::add);
+
+        // Assert
+        assertEquals(List.of(
+                new TestEvent(LocalTime.of(14, 35, 1, 300_000_000), LocalTime.of(14, 35, 1, 600_000_000),
+                        java.time.Duration.ofMillis(300), "check connection", "socket 1"),
+                new TestEvent(LocalTime.of(14, 35, 2), LocalTime.of(14, 35, 2, 250_000_000),
+                        java.time.Duration.ofMillis(250), "Unknown Subtest", "socket 1")), events);
+    }
+
+    @Test
+    void parseLogFile_DefaultDialectInParallel_SameEventsAsRegexParser() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("ate.log");
+        StringBuilder log = new StringBuilder();
+        for (int device = 0; device < 2000; device++) {
+            log.append("#PE[08:00:00.000] : BEGIN INSERTION \"device #").append(device).append("\"\n");
+            log.append("#PE[08:00:01.000] : BEGIN DEVICE_TEST.SUBTEST \"s \"quoted\"\"\n");
+            log.append("#PE[08:00:01.").append(String.format("%03d", device % 1000))
+                    .append("] : END DEVICE_TEST.SUBTEST\n");
+        }
+        Files.writeString(logFile, log);
+        List<TestEvent> events = new ArrayList<>();
+
+        // Act
+        ParallelLogScanner.parseLogFile(logFile.toString(), ForkJoinPool.commonPool(), LogDialect.DEFAULT, events::add);
+
+        // Assert
+        assertEquals(Input.parseLogFile(logFile.toString()), events);
+    }
+
+    @Test
+    void compile_OverlappingMarkers_FindsEveryMarker() {
+        // Arrange
+        LogDialect dialect = LogDialect.compile(new Definition("overlapping", "[", "HH:mm:ss", "]", "SETUP",
+                "STEP", "STEP END", null, null, null));
+        List<TestEvent> events = new ArrayList<>();
+        ParseContext context = new ParseContext(dialect);
+
+        // Act
+        scan("[10:00:00] SETUP \"dut\"", context, events);
+        scan("[10:00:01] STEP \"first\"", context, events);
+        scan("[10:00:03] STEP END", context, events);
+
+        // Assert
+        assertEquals(1, events.size());
+        assertEquals("dut", events.getFirst().deviceInfo());
+        assertEquals("first", events.getFirst().eventType());
+        assertEquals(2000, events.getFirst().duration().toMillis());
+        assertTrue(dialect.containsInsertion(bytes("xxSETSETUPxx"), 0, 12));
+        assertFalse(dialect.containsInsertion(bytes("xxSETSETxx"), 0, 10));
+    }
+
+    @Test
+    void decode_Layouts_ReturnsMillisOfDay() {
+        // Act & Assert
+        assertEquals(52_501_300, TimestampLayout.compile("HH:mm:ss.SSS").decode(bytes("14:35:01.300]"), 0, 13));
+        assertEquals(52_501_300, TimestampLayout.compile("HH:mm:ss.S").decode(bytes("14:35:01.3"), 0, 10));
+        assertEquals(52_501_123, TimestampLayout.compile("HHmmssSSSSSSSSS").decode(bytes("143501123456789"), 0, 15));
+        assertEquals(-1, TimestampLayout.compile("HH:mm:ss.SSS").decode(bytes("14:35:61.300"), 0, 12));
+        assertEquals(-1, TimestampLayout.compile("yyyy-MM-dd HH:mm").decode(bytes("2025-13-01 14:35"), 0, 16));
+        assertEquals(-1, TimestampLayout.compile("HH:mm:ss.SSS").decode(bytes("14:35:01.3"), 0, 10));
+    }
+
+    @Test
+    void compile_InvalidDefinition_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> TimestampLayout.compile("hh:mm:ss"));
+        assertThrows(IllegalArgumentException.class, () -> TimestampLayout.compile("mm:ss"));
+        assertThrows(IllegalArgumentException.class, () -> LogDialect.compile(new Definition("incomplete", "[",
+                "HH:mm:ss", "]", "SETUP", null, "STEP END", null, null, null)));
+    }
+
+    @Test
+    void load_JsonFile_ReturnsDialect() throws Exception {
+        // Arrange
+        Path dialectFile = tempDir.resolve("vendor.json");
+        Files.writeString(dialectFile, """
+                {
+                  "name": "vendor",
+                  "timestampPrefix": "<",
+                  "timestampLayout": "HH:mm:ss.SSS",
+                  "timestampSuffix": ">",
+                  "insertionMarker": "DUT",
+                  "beginSubtestMarker": "BEGIN",
+                  "endSubtestMarker": "FINISH",
+                  "openQuote": "'",
+                  "quoteEnd": "LAST"
+                }""");
+        Path invalidFile = tempDir.resolve("invalid.json");
+        Files.writeString(invalidFile, "{\"name\": \"invalid\", \"timestampLayout\": \"HH:mm\"}");
+
+        // Act
+        LogDialect dialect = LogDialect.load(dialectFile);
+        List<TestEvent> events = new ArrayList<>();
+        ParseContext context = new ParseContext(dialect);
+        scan("<09:00:00.000> DUT 'a'", context, events);
+        scan("<09:00:00.100> BEGIN 'it''s'", context, events);
+        scan("<09:00:00.400> FINISH", context, events);
+
+        // Assert
+        assertEquals("vendor", dialect.name());
+        assertEquals("it''s", events.getFirst().eventType());
+        assertEquals(300, events.getFirst().duration().toMillis());
+        assertThrows(IOException.class, () -> LogDialect.load(invalidFile));
+    }
+
+    private static void scan(String line, ParseContext context, List<TestEvent> events) {
+        ByteBuffer bytes = bytes(line);
+        MappedLogScanner.scanLine(bytes, 0, bytes.limit(), context, events::add);
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,121 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTailerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void poll_AppendedLines_CompletesSubtestAcrossPolls() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("growing.log");
+        Files.writeString(logFile, """
+                #PE[14:34:31.300] : BEGIN INSERTION "device #13"
+                #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                #PE[14:35:01.600] : END DEVICE_TE""");
+        List<TestEvent> events = new ArrayList<>();
+
+        try (LogTailer tailer = new LogTailer(logFile, events::add)) {
+            // Act
+            tailer.poll();
+            List<TestEvent> beforeLineCompleted = List.copyOf(events);
+            append(logFile, "ST.SUBTEST\n");
+            tailer.poll();
+
+            // Assert
+            assertTrue(beforeLineCompleted.isEmpty());
+            assertEquals(1, events.size());
+            assertEquals("device #13", events.getFirst().deviceInfo());
+            assertEquals(300, events.getFirst().duration().toMillis());
+            assertEquals(0, tailer.poll());
+        }
+    }
+
+    @Test
+    void poll_TruncatedFile_RereadsFromStart() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("truncated.log");
+        Files.writeString(logFile, subtest("check connection", "01.300", "01.600")
+                + subtest("validate memory", "02.300", "02.600"));
+        List<TestEvent> events = new ArrayList<>();
+
+        try (LogTailer tailer = new LogTailer(logFile, events::add)) {
+            // Act
+            tailer.poll();
+            Files.writeString(logFile, subtest("stress test", "03.000", "03.100"));
+            tailer.poll();
+
+            // Assert
+            assertEquals(3, events.size());
+            assertEquals("stress test", events.get(2).eventType());
+        }
+    }
+
+    @Test
+    void poll_TruncatedWhileSubtestOpen_ForgetsDeviceAndSubtest() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("truncated-open.log");
+        Files.writeString(logFile, """
+                #PE[14:34:31.300] : BEGIN INSERTION "device #13"
+                #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                """);
+        List<TestEvent> events = new ArrayList<>();
+
+        try (LogTailer tailer = new LogTailer(logFile, events::add)) {
+            // Act
+            tailer.poll();
+            Files.writeString(logFile, subtest("stress test", "03.000", "03.100"));
+            tailer.poll();
+
+            // Assert
+            assertEquals(1, events.size());
+            assertEquals("stress test", events.getFirst().eventType());
+            assertEquals(ParseContext.UNKNOWN_DEVICE, events.getFirst().deviceInfo());
+            assertEquals(100, events.getFirst().duration().toMillis());
+        }
+    }
+
+    @Test
+    void poll_RotatedFile_ReadsRestOfOldFileThenNewFile() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("rotated.log");
+        Files.writeString(logFile, subtest("check connection", "01.300", "01.600"));
+        List<TestEvent> events = new ArrayList<>();
+
+        try (LogTailer tailer = new LogTailer(logFile, events::add)) {
+            // Act
+            tailer.poll();
+            append(logFile, subtest("validate memory", "02.300", "02.600"));
+            Files.move(logFile, tempDir.resolve("rotated.log.1"));
+            assertEquals(0, tailer.poll());
+            Files.writeString(logFile, subtest("stress test", "03.000", "03.100"));
+            tailer.poll();
+
+            // Assert
+            assertEquals(3, events.size());
+            assertEquals("validate memory", events.get(1).eventType());
+            assertEquals("stress test", events.get(2).eventType());
+        }
+    }
+
+    private static String subtest(String name, String begin, String end) {
+        return "#PE[14:35:" + begin + "] : BEGIN DEVICE_TEST.SUBTEST \"" + name + "\"\n"
+                + "#PE[14:35:" + end + "] : END DEVICE_TEST.SUBTEST\n";
+    }
+
+    private static void append(Path file, String text) throws Exception {
+        Files.writeString(file, text, StandardOpenOption.APPEND);
+    }
+}
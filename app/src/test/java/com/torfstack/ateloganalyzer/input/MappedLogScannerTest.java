@@ -0,0 +1,222 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.EventStore;
+import com.torfstack.ateloganalyzer.analysis.StringDictionary;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLogScannerTest {
+
+    private static final String LOG = """
+            #PE[14:34:31.300] : BEGIN INSERTION "device #13"
+            #PE[14:34:33.400] : END INSERTION
+            #PE[14:34:33.500] : BEGIN DEVICE_TEST
+            #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+            #PE[14:35:01.600] : END DEVICE_TEST.SUBTEST
+            #PE[14:35:01.800] : BEGIN DEVICE_TEST.SUBTEST "measure leakage current"
+            #PE[14:35:02.100] : END DEVICE_TEST.SUBTEST
+            #PE[14:36:02.300] : END DEVICE_TEST
+
+            BEGIN INSERTION "device #14"
+            #PE[14:39:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+            #PE[14:39:01.400] : BEGIN DEVICE_TEST.SUBTEST "validate memory"
+            #PE[14:39:01.600] : END DEVICE_TEST.SUBTEST
+            #PE[14:39:01.700] : END DEVICE_TEST.SUBTEST
+            #PE[14:39:01.800] : BEGIN DEVICE_TEST.SUBTEST
+            #PE[14:39:02.200] : END DEVICE_TEST.SUBTEST
+            #PE[23:59:59.999] : BEGIN DEVICE_TEST.SUBTEST "stress test" "with quotes"
+            #PE[23:59:59.999] : END DEVICE_TEST.SUBTEST""";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parseLogFile_ValidLogFile_ReturnsTestEvents() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("valid.log");
+        Files.writeString(logFile, LOG);
+
+        // Act
+        List<TestEvent> events = MappedLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(5, events.size());
+        assertEquals("device #13", events.get(0).deviceInfo());
+        assertEquals("check connection", events.get(0).eventType());
+        assertEquals(LocalTime.of(14, 35, 1, 300_000_000), events.get(0).begin());
+        assertEquals(Duration.ofMillis(300), events.get(0).duration());
+        assertEquals("device #14", events.get(2).deviceInfo());
+        assertEquals("check connection", events.get(2).eventType());
+        assertEquals("Unknown Subtest", events.get(3).eventType());
+        assertEquals("stress test\" \"with quotes", events.get(4).eventType());
+    }
+
+    @Test
+    void parseLogFile_SameEventsAsRegexParser() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("valid.log");
+        Files.writeString(logFile, LOG);
+
+        // Act
+        List<TestEvent> expected = Input.parseLogFile(logFile.toString());
+        List<TestEvent> actual = MappedLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void parseLogFile_WindowsLineEndings_ReturnsTestEvents() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("crlf.log");
+        Files.writeString(logFile, LOG.replace("\n", "\r\n"));
+
+        // Act
+        List<TestEvent> events = MappedLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(Input.parseLogFile(logFile.toString()), events);
+    }
+
+    @Test
+    void parseLogFile_EmptyFile_ReturnsEmptyList() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("empty.log");
+        Files.writeString(logFile, "");
+
+        // Act
+        List<TestEvent> events = MappedLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void parseLogFile_NonexistentFile_ThrowsException() {
+        assertThrows(IOException.class, () ->
+                MappedLogScanner.parseLogFile("nonexistent.log")
+        );
+    }
+
+    @Test
+    void parseLogFile_MalformedTimestamp_SkipsLine() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("malformed.log");
+        Files.writeString(logFile, """
+                #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                #PE[14:35:61.600] : END DEVICE_TEST.SUBTEST
+                #PE[14:35:1.600] : END DEVICE_TEST.SUBTEST
+                #PE[14:35:01.700] : END DEVICE_TEST.SUBTEST
+                """);
+
+        // Act
+        List<TestEvent> events = MappedLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(1, events.size());
+        assertEquals(Duration.ofMillis(400), events.get(0).duration());
+    }
+
+    @Test
+    void parseLogFile_PastMidnight_AddsADay() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("midnight.log");
+        Files.writeString(logFile, """
+                #PE[23:59:59.800] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                #PE[00:00:00.300] : END DEVICE_TEST.SUBTEST
+                """);
+
+        // Act
+        List<TestEvent> events = MappedLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(1, events.size());
+        assertEquals(Duration.ofMillis(500), events.get(0).duration());
+    }
+
+    @Test
+    void parseLogFile_Columns_SameEventsAsObjects() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("valid.log");
+        Files.writeString(logFile, LOG + """
+
+                #PE[23:59:59.800] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                #PE[00:00:00.300] : END DEVICE_TEST.SUBTEST
+                """);
+        EventStore store = new EventStore();
+
+        // Act
+        List<TestEvent> expected = MappedLogScanner.parseLogFile(logFile.toString());
+        MappedLogScanner.parseLogFile(logFile.toString(), LogDialect.DEFAULT, store);
+
+        // Assert
+        assertEquals(expected.size(), store.size());
+        for (int event = 0; event < store.size(); event++) {
+            assertEquals(expected.get(event).eventType(), store.testTypes().name(store.testTypeId(event)));
+            assertEquals(expected.get(event).deviceInfo(), store.devices().name(store.deviceId(event)));
+            assertEquals(expected.get(event).duration().toMillis(), store.durationMillis(event));
+        }
+    }
+
+    @Test
+    void parseLogFile_ColumnsWithSubtestThatNeverEnds_InternsOnlyNamesWithEvents() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("open.log");
+        Files.writeString(logFile, """
+                #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                #PE[14:35:01.600] : END DEVICE_TEST.SUBTEST
+                #PE[14:35:01.800] : BEGIN DEVICE_TEST.SUBTEST "measure leakage current"
+                """);
+        EventStore store = new EventStore();
+
+        // Act
+        MappedLogScanner.parseLogFile(logFile.toString(), LogDialect.DEFAULT, store);
+
+        // Assert
+        assertEquals(1, store.size());
+        assertEquals(1, store.testTypes().size());
+        assertEquals("check connection", store.testTypes().name(store.testTypeId(0)));
+    }
+
+    @Test
+    void parseLogFile_ColumnsWithKnownNames_AllocatesNothingPerLine() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("large.log");
+        String block = """
+                #PE[14:34:31.300] : BEGIN INSERTION "device #13"
+                #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+                #PE[14:35:01.600] : END DEVICE_TEST.SUBTEST
+                #PE[14:35:01.800] : BEGIN DEVICE_TEST.SUBTEST "measure leakage current"
+                #PE[14:35:02.100] : END DEVICE_TEST.SUBTEST
+                """;
+        Files.writeString(logFile, block.repeat(20_000));
+        long lines = block.lines().count() * 20_000;
+        StringDictionary testTypes = new StringDictionary(), devices = new StringDictionary();
+        long[] durations = new long[1];
+        MappedLogScanner.parseLogFile(logFile.toString(), LogDialect.DEFAULT, testTypes, devices,
+                (beginMillis, endMillis, testTypeId, deviceId) -> durations[0] += endMillis - beginMillis);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+        // Act
+        MappedLogScanner.parseLogFile(logFile.toString(), LogDialect.DEFAULT, testTypes, devices,
+                (beginMillis, endMillis, testTypeId, deviceId) -> durations[0] += endMillis - beginMillis);
+
+        // Assert
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        assertTrue(allocated < lines, allocated + " bytes allocated for " + lines + " lines");
+        assertEquals(2, testTypes.size());
+    }
+}
@@ -0,0 +1,131 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.metrics.PipelineMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelLogScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parseLogFile_SmallChunks_SameEventsAndWarningsAsSequentialParser() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("irregular.log");
+        Files.writeString(logFile, irregularLog(200));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (long chunkSize : new long[]{64, 300, 4096}) {
+            // Act
+            ParseResult expected = parseCapturingWarnings(() -> MappedLogScanner.parseLogFile(logFile.toString()));
+            ParseResult actual = parseCapturingWarnings(() ->
+                    ParallelLogScanner.parseLogFile(logFile.toString(), pool, chunkSize));
+
+            // Assert
+            assertFalse(expected.events().isEmpty());
+            assertEquals(expected.events(), actual.events(), "events for chunk size " + chunkSize);
+            assertEquals(expected.warnings(), actual.warnings(), "warnings for chunk size " + chunkSize);
+            assertTrue(expected.mismatches() > 0);
+            assertEquals(expected.mismatches(), actual.mismatches(), "mismatches for chunk size " + chunkSize);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void parseLogFile_SmallChunks_SameEventMetricsAsSequentialParser() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("metrics.log");
+        Files.writeString(logFile, irregularLog(200));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (long chunkSize : new long[]{64, 300, 4096}) {
+            // Act
+            ParseResult expected = parseCapturingWarnings(() -> MappedLogScanner.parseLogFile(logFile.toString()));
+            ParseResult actual = parseCapturingWarnings(() ->
+                    ParallelLogScanner.parseLogFile(logFile.toString(), pool, chunkSize));
+
+            // Assert
+            assertEquals(expected.events().size(), expected.eventsParsed());
+            assertEquals(expected.eventsParsed(), actual.eventsParsed(), "events for chunk size " + chunkSize);
+            assertEquals(expected.eventsBySubtest(), actual.eventsBySubtest(),
+                    "events by subtest for chunk size " + chunkSize);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void parseLogFile_EmptyFile_ReturnsEmptyList() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("empty.log");
+        Files.writeString(logFile, "");
+
+        // Act
+        List<TestEvent> events = ParallelLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertTrue(events.isEmpty());
+    }
+
+    private interface Parse {
+        List<TestEvent> run() throws Exception;
+    }
+
+    private record ParseResult(List<TestEvent> events, String warnings, long mismatches, long eventsParsed,
+                               Map<String, Long> eventsBySubtest) {
+    }
+
+    private static ParseResult parseCapturingWarnings(Parse parse) throws Exception {
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(warnings, true));
+        PipelineMetrics metrics = PipelineMetrics.get();
+        metrics.reset();
+        try {
+            List<TestEvent> events = parse.run();
+            return new ParseResult(events, warnings.toString(),
+                    metrics.getBeginsWithoutEnd() + metrics.getEndsWithoutBegin(), metrics.getEventsParsed(),
+                    metrics.getEventsBySubtest());
+        } finally {
+            System.setErr(originalErr);
+        }
+    }
+
+    /**
+     * Builds a log with subtests that span insertions, missing BEGIN and END lines and lines without stamps.
+     */
+    private static String irregularLog(int devices) {
+        Random random = new Random(42);
+        StringBuilder log = new StringBuilder();
+        int millis = 8 * 3600 * 1000;
+        for (int device = 1; device <= devices; device++) {
+            log.append(line(millis += 100, "BEGIN INSERTION \"device #" + device + "\""));
+            for (int subtest = 0; subtest < 3; subtest++) {
+                if (random.nextInt(10) != 0) {
+                    log.append(line(millis += 10, "BEGIN DEVICE_TEST.SUBTEST \"s" + subtest + "\""));
+                }
+                if (random.nextInt(20) == 0) log.append("noise without a stamp\n");
+                if (random.nextInt(10) != 0) log.append(line(millis += random.nextInt(100), "END DEVICE_TEST.SUBTEST"));
+            }
+            log.append(line(millis += 10, "END REMOVAL"));
+        }
+        return log.toString();
+    }
+
+    private static String line(int millisOfDay, String message) {
+        return String.format("#PE[%02d:%02d:%02d.%03d] : %s%n", millisOfDay / 3_600_000, millisOfDay / 60_000 % 60,
+                millisOfDay / 1000 % 60, millisOfDay % 1000, message);
+    }
+}
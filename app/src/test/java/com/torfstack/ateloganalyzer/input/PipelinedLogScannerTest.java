@@ -0,0 +1,79 @@
+package com.torfstack.ateloganalyzer.input;
+
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedLogScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parseLogFile_SeveralBlocks_SameEventsAsMappedScanner() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("large.log");
+        Files.writeString(logFile, log(20000) + "#PE[08:00:02.000] : BEGIN DEVICE_TEST.SUBTEST \"last\"\n"
+                + "#PE[08:00:02.500] : END DEVICE_TEST.SUBTEST");
+
+        // Act
+        List<TestEvent> events = PipelinedLogScanner.parseLogFile(logFile.toString());
+
+        // Assert
+        assertTrue(Files.size(logFile) > 4 * CompressedLogScanner.BLOCK_SIZE);
+        assertEquals(60001, events.size());
+        assertEquals(MappedLogScanner.parseLogFile(logFile.toString()), events);
+    }
+
+    @Test
+    void parseLogFile_Gzip_SameEventsAsUncompressedFile() throws Exception {
+        // Arrange
+        Path plain = tempDir.resolve("plain.log");
+        Path gzip = tempDir.resolve("log.gz");
+        Files.writeString(plain, log(5000));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(Files.readAllBytes(plain));
+        }
+
+        // Act
+        List<TestEvent> events = PipelinedLogScanner.parseLogFile(gzip.toString());
+
+        // Assert
+        assertEquals(MappedLogScanner.parseLogFile(plain.toString()), events);
+    }
+
+    @Test
+    void parseLogFile_ConsumerFails_StopsWithConsumerException() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("large.log");
+        Files.writeString(logFile, log(20000));
+
+        // Act & Assert
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+                PipelinedLogScanner.parseLogFile(logFile.toString(), event -> {
+                    throw new IllegalStateException("analysis failed");
+                }));
+        assertEquals("analysis failed", thrown.getMessage());
+    }
+
+    private static String log(int devices) {
+        StringBuilder log = new StringBuilder();
+        for (int device = 0; device < devices; device++) {
+            log.append("#PE[08:00:00.000] : BEGIN INSERTION \"device #").append(device).append("\"\n");
+            for (int subtest = 0; subtest < 3; subtest++) {
+                log.append("#PE[08:00:01.000] : BEGIN DEVICE_TEST.SUBTEST \"s").append(subtest).append("\"\n");
+                log.append("#PE[08:00:01.").append(String.format("%03d", (device + subtest) % 1000))
+                        .append("] : END DEVICE_TEST.SUBTEST\n");
+            }
+        }
+        return log.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.torfstack.ateloganalyzer.metrics;
+
+import com.torfstack.ateloganalyzer.input.Input;
+import com.torfstack.ateloganalyzer.input.MappedLogScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineMetricsTest {
+
+    private static final String LOG = """
+            #PE[14:34:31.300] : BEGIN INSERTION "device #13"
+            #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+            #PE[14:35:01.600] : END DEVICE_TEST.SUBTEST
+            #PE[14:35:01.800] : BEGIN DEVICE_TEST.SUBTEST "measure leakage current"
+            #PE[14:35:01.900] : BEGIN DEVICE_TEST.SUBTEST "validate memory"
+            #PE[14:35:02.100] : END DEVICE_TEST.SUBTEST
+            #PE[14:35:02.200] : END DEVICE_TEST.SUBTEST
+            noise without a stamp
+            #PE[14:35:03.300] : BEGIN DEVICE_TEST.SUBTEST "check connection"
+            #PE[14:35:03.500] : END DEVICE_TEST.SUBTEST
+            """;
+
+    private final PipelineMetrics metrics = PipelineMetrics.get();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parseLogFile_IrregularLog_CountsLinesMismatchesAndEvents() throws Exception {
+        // Arrange
+        metrics.reset();
+        Path logFile = tempDir.resolve("irregular.log");
+        Files.writeString(logFile, LOG);
+
+        // Act
+        PrintStream originalErr = System.err;
+        System.setErr(new PrintStream(PrintStream.nullOutputStream()));
+        try {
+            MappedLogScanner.parseLogFile(logFile.toString());
+        } finally {
+            System.setErr(originalErr);
+        }
+
+        // Assert
+        assertEquals(10, metrics.getLinesScanned());
+        assertEquals(Files.size(logFile), metrics.getBytesScanned());
+        assertEquals(1, metrics.getLinesWithoutTimestamp());
+        assertEquals(1, metrics.getBeginsWithoutEnd());
+        assertEquals(1, metrics.getEndsWithoutBegin());
+        assertEquals(3, metrics.getEventsParsed());
+        assertEquals(Map.of("check connection", 2L, "measure leakage current", 1L), metrics.getEventsBySubtest());
+    }
+
+    @Test
+    void parseLogFile_CrlfLogWithUtf8Names_RegexParserCountsSameBytesAsMappedParser() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("crlf.log");
+        Files.writeString(logFile, """
+                #PE[14:34:31.300] : BEGIN INSERTION "Pr\u00fcfling #13"\r
+                #PE[14:35:01.300] : BEGIN DEVICE_TEST.SUBTEST "Messung \u00b5A"\r
+                #PE[14:35:01.600] : END DEVICE_TEST.SUBTEST\r
+                """);
+        metrics.reset();
+        MappedLogScanner.parseLogFile(logFile.toString());
+        long mappedBytes = metrics.getBytesScanned();
+        metrics.reset();
+
+        // Act
+        Input.parseLogFile(logFile.toString());
+
+        // Assert
+        assertEquals(Files.size(logFile), mappedBytes);
+        assertEquals(mappedBytes, metrics.getBytesScanned());
+        assertEquals(3, metrics.getLinesScanned());
+        assertEquals(1, metrics.getEventsParsed());
+    }
+
+    @Test
+    void time_ClosedTimers_CountsRunsOfEveryStage() {
+        // Arrange
+        metrics.reset();
+        metrics.linesScanned(1, 100);
+
+        // Act
+        try (StageTimer timer = metrics.time(PipelineMetrics.PARSE_STAGE)) {
+            assertNotNull(timer);
+        }
+        try (StageTimer timer = metrics.time(PipelineMetrics.PARSE_STAGE)) {
+            assertNotNull(timer);
+        }
+        try (StageTimer timer = metrics.time("analyze")) {
+            assertNotNull(timer);
+        }
+
+        // Assert
+        assertEquals(Map.of("analyze", 1L, "parse", 2L), metrics.getStageRuns());
+        assertTrue(metrics.getBytesPerSecond() > 0);
+    }
+
+    @Test
+    void writePrometheus_Counters_WritesSamplesWithEscapedLabels() throws Exception {
+        // Arrange
+        metrics.reset();
+        metrics.linesScanned(1, 42);
+        metrics.mismatch(PipelineMetrics.Mismatch.END_WITHOUT_BEGIN);
+        metrics.events("say \"hello\"", 1);
+        StringWriter writer = new StringWriter();
+
+        // Act
+        metrics.writePrometheus(writer);
+
+        // Assert
+        String text = writer.toString();
+        assertTrue(text.contains("# TYPE atelog_lines_scanned_total counter\natelog_lines_scanned_total 1\n"));
+        assertTrue(text.contains("atelog_bytes_scanned_total 42\n"));
+        assertTrue(text.contains("atelog_subtest_mismatches_total{kind=\"end_without_begin\"} 1\n"));
+        assertTrue(text.contains("atelog_subtest_events_total{subtest=\"say \\\"hello\\\"\"} 1\n"));
+        assertTrue(text.contains("atelog_gc_collections_total{gc="));
+    }
+
+    @Test
+    void writeJson_Counters_WritesCountersAndGarbageCollectors() throws Exception {
+        // Arrange
+        metrics.reset();
+        metrics.linesWithoutTimestamp(1);
+        metrics.events("check connection", 1);
+        StringWriter writer = new StringWriter();
+
+        // Act
+        metrics.writeJson(writer);
+
+        // Assert
+        String json = writer.toString();
+        assertTrue(json.contains("\"linesWithoutTimestamp\": 1"));
+        assertTrue(json.contains("\"eventsBySubtest\": {\n    \"check connection\": 1\n  }"));
+        assertTrue(json.contains("\"garbageCollectors\": ["));
+    }
+
+    @Test
+    void register_TwiceAndRead_ExposesCountersOverJmx() throws Exception {
+        // Arrange
+        metrics.reset();
+        metrics.register();
+        metrics.register();
+        metrics.mismatch(PipelineMetrics.Mismatch.BEGIN_WITHOUT_END);
+
+        // Act
+        Object begins = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(PipelineMetrics.OBJECT_NAME), "BeginsWithoutEnd");
+
+        // Assert
+        assertEquals(1L, begins);
+    }
+}
@@ -0,0 +1,149 @@
+package com.torfstack.ateloganalyzer.output;
+
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.TestAnomaly;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DurationVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrowFileSerializerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void accept_EventsOverSeveralBatches_ReadBackWithDecodedDictionaries() throws Exception {
+        // Arrange
+        Path eventsFile = tempDir.resolve("events.arrows");
+        List<TestEvent> events = new ArrayList<>();
+        for (int i = 0; i < 150_000; i++) {
+            LocalTime begin = LocalTime.of(14, 0).plusNanos(i * 1_000_000L);
+            events.add(new TestEvent(begin, begin.plusNanos((i % 500) * 1_000_000L), Duration.ofMillis(i % 500),
+                    "test " + (i % 7), "device #" + (i / 3)));
+        }
+
+        // Act
+        try (ArrowFileSerializer serializer = new ArrowFileSerializer(eventsFile.toString(),
+                tempDir.resolve("anomalies.arrows").toString())) {
+            events.forEach(serializer);
+        }
+
+        // Assert
+        List<String> rows = new ArrayList<>();
+        int batches = readRows(eventsFile, root -> {
+            TimeMilliVector begin = (TimeMilliVector) root.getVector("begin");
+            TimeMilliVector end = (TimeMilliVector) root.getVector("end");
+            DurationVector duration = (DurationVector) root.getVector("duration");
+            return row -> LocalTime.ofNanoOfDay(begin.get(row) * 1_000_000L) + " "
+                    + LocalTime.ofNanoOfDay(end.get(row) * 1_000_000L) + " " + duration.getObject(row).toMillis();
+        }, rows);
+        assertEquals(3, batches);
+        assertEquals(events.size(), rows.size());
+        for (int i = 0; i < events.size(); i += 997) {
+            TestEvent event = events.get(i);
+            assertEquals(event.eventType() + " " + event.deviceInfo() + " " + event.begin() + " " + event.end() + " "
+                    + event.duration().toMillis(), rows.get(i));
+        }
+    }
+
+    @Test
+    void serialize_Anomalies_WritesAnomalyColumns() throws Exception {
+        // Arrange
+        Path anomaliesFile = tempDir.resolve("anomalies.arrows");
+        List<TestAnomaly> anomalies = List.of(
+                new TestAnomaly("stress test", "device #1", 900, 300, 100),
+                new TestAnomaly("check connection", "device #2", 50, 310, 70),
+                new TestAnomaly("stress test", "device #3", 1000, 300, 100));
+
+        // Act
+        try (ArrowFileSerializer serializer = new ArrowFileSerializer(tempDir.resolve("events.arrows").toString(),
+                anomaliesFile.toString())) {
+            serializer.serialize(new AnalysisResult(Map.of(), anomalies));
+        }
+
+        // Assert
+        List<String> rows = new ArrayList<>();
+        readRows(anomaliesFile, root -> {
+            DurationVector duration = (DurationVector) root.getVector("duration");
+            DurationVector average = (DurationVector) root.getVector("average");
+            DurationVector stdDev = (DurationVector) root.getVector("stdDev");
+            return row -> duration.getObject(row).toMillis() + " " + average.getObject(row).toMillis() + " "
+                    + stdDev.getObject(row).toMillis();
+        }, rows);
+        assertEquals(List.of("stress test device #1 900 300 100", "check connection device #2 50 310 70",
+                "stress test device #3 1000 300 100"), rows);
+    }
+
+    @Test
+    void close_NothingWritten_WritesEmptyStreams() throws Exception {
+        // Arrange
+        Path eventsFile = tempDir.resolve("events.arrows");
+        Path anomaliesFile = tempDir.resolve("anomalies.arrows");
+
+        // Act
+        new ArrowFileSerializer(eventsFile.toString(), anomaliesFile.toString()).close();
+
+        // Assert
+        List<String> rows = new ArrayList<>();
+        assertEquals(0, readRows(eventsFile, root -> row -> "", rows));
+        assertEquals(0, readRows(anomaliesFile, root -> row -> "", rows));
+        assertTrue(rows.isEmpty());
+    }
+
+    /**
+     * Reads every row as its decoded test type, device and the columns formatted by the given format.
+     *
+     * @return The number of batches.
+     */
+    private static int readRows(Path file, Function<VectorSchemaRoot, IntFunction<String>> formats, List<String> rows)
+            throws Exception {
+        int batches = 0;
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new FileInputStream(file.toFile()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            IntFunction<String> format = formats.apply(root);
+            while (reader.loadNextBatch()) {
+                batches++;
+                IntVector testTypes = (IntVector) root.getVector("testType");
+                IntVector devices = (IntVector) root.getVector("device");
+                VarCharVector testTypeNames = dictionary(reader, testTypes);
+                VarCharVector deviceNames = dictionary(reader, devices);
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    rows.add(string(testTypeNames, testTypes.get(row)) + " " + string(deviceNames, devices.get(row))
+                            + " " + format.apply(row));
+                }
+            }
+        }
+        return batches;
+    }
+
+    private static VarCharVector dictionary(ArrowStreamReader reader, IntVector indices) throws Exception {
+        long id = indices.getField().getDictionary().getId();
+        return (VarCharVector) reader.getDictionaryVectors().get(id).getVector();
+    }
+
+    private static String string(VarCharVector values, int index) {
+        return new String(values.get(index), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package com.torfstack.ateloganalyzer.output;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.DurationPercentiles;
+import com.torfstack.ateloganalyzer.analysis.GroupStatistic;
+import com.torfstack.ateloganalyzer.analysis.TestAnomaly;
+import com.torfstack.ateloganalyzer.analysis.TestStatistic;
+import com.torfstack.ateloganalyzer.analysis.TopAnomalies;
+import com.torfstack.ateloganalyzer.analysis.WindowStatistic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonFileSerializerTest {
+    private static final AnalysisResult RESULT = new AnalysisResult(
+            Map.of("check <connection>", new TestStatistic(3, 900, 300, 100)),
+            Map.of("check <connection>", new DurationPercentiles(250, 400, 420, 420)),
+            List.of(new TestAnomaly("check <connection>", "device #13 \"A&B\"", 700, 300, 100),
+                    new TestAnomaly("check <connection>", "device #14", 20, 300, 100)),
+            Map.of("a.log", Map.of("check <connection>", new TestStatistic(3, 900, 300, 100))),
+            List.of(new WindowStatistic("check <connection>", LocalDateTime.of(2026, 10, 17, 23, 55),
+                    LocalDateTime.of(2026, 10, 18, 0, 0),
+                    new TestStatistic(3, 900, 300, 100))),
+            List.of(new GroupStatistic(null, "A17", null, new TestStatistic(3, 900, 300, 100), false),
+                    new GroupStatistic("check <connection>", null, "2", new TestStatistic(3, 900, 300, 100), true)));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void serialize_Pretty_SameOutputAsGson() throws Exception {
+        // Arrange
+        Path jsonFile = tempDir.resolve("result.json");
+
+        // Act
+        new JsonFileSerializer(jsonFile.toString()).serialize(RESULT);
+
+        // Assert
+        assertEquals(gson().setPrettyPrinting().create().toJson(RESULT), Files.readString(jsonFile));
+    }
+
+    @Test
+    void serialize_AnomalySummary_SameOutputAsGson() throws Exception {
+        // Arrange
+        Path jsonFile = tempDir.resolve("result.json");
+        TopAnomalies top = new TopAnomalies(1);
+        RESULT.anomalies().forEach(top);
+        AnalysisResult summarized = RESULT.withAnomalySummary(top.summary());
+
+        // Act
+        new JsonFileSerializer(jsonFile.toString()).serialize(summarized);
+
+        // Assert
+        assertEquals(gson().setPrettyPrinting().create().toJson(summarized), Files.readString(jsonFile));
+    }
+
+    @Test
+    void serialize_Compact_SameDocumentWithoutWhitespace() throws Exception {
+        // Arrange
+        Path jsonFile = tempDir.resolve("result.json");
+
+        // Act
+        new JsonFileSerializer(jsonFile.toString(), true).serialize(RESULT);
+
+        // Assert
+        String json = Files.readString(jsonFile);
+        assertFalse(json.contains("\n"));
+        assertEquals(JsonParser.parseString(gson().create().toJson(RESULT)), JsonParser.parseString(json));
+    }
+
+    @Test
+    void writeAnomaly_AnomaliesWrittenOneByOne_SameOutputAsWholeResult() throws Exception {
+        // Arrange
+        Path wholeFile = tempDir.resolve("whole.json");
+        Path streamedFile = tempDir.resolve("streamed.json");
+        new JsonFileSerializer(wholeFile.toString()).serialize(RESULT);
+        JsonFileSerializer serializer = new JsonFileSerializer(streamedFile.toString());
+
+        // Act
+        serializer.begin(new AnalysisResult(RESULT.statistics(), RESULT.percentiles(), List.of(),
+                RESULT.fileStatistics(), RESULT.windows(), RESULT.groups()));
+        for (TestAnomaly anomaly : RESULT.anomalies()) serializer.writeAnomaly(anomaly);
+        serializer.end();
+
+        // Assert
+        assertEquals(Files.readString(wholeFile), Files.readString(streamedFile));
+    }
+
+    private static GsonBuilder gson() {
+        return new GsonBuilder().registerTypeAdapter(LocalDateTime.class,
+                (JsonSerializer<LocalDateTime>) (time, type, context) -> new JsonPrimitive(time.toString()));
+    }
+}
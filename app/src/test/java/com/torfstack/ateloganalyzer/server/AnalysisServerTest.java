@@ -0,0 +1,70 @@
+package com.torfstack.ateloganalyzer.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.torfstack.ateloganalyzer.analysis.LiveAnalysis;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void get_StatsAndAnomalies_ReturnsJson() throws Exception {
+        // Arrange
+        LiveAnalysis analysis = new LiveAnalysis();
+        for (int i = 0; i < 10; i++) analysis.accept(event("device" + i, LocalTime.of(14, i), 1000));
+        analysis.accept(event("device #13", LocalTime.of(15, 0), 9000));
+
+        try (AnalysisServer server = new AnalysisServer(analysis,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+
+            // Act
+            HttpResponse<String> stats = get(server, "/stats");
+            HttpResponse<String> range = get(server, "/stats?from=14:00&to=14:05");
+            HttpResponse<String> anomalies = get(server, "/anomalies?device=device%20%2313");
+            HttpResponse<String> invalid = get(server, "/stats?from=noon&to=14:05");
+
+            // Assert
+            assertEquals(200, stats.statusCode());
+            JsonObject statistics = JsonParser.parseString(stats.body()).getAsJsonObject();
+            assertEquals(11, statistics.getAsJsonObject("statistics").getAsJsonObject("check").get("count").getAsInt());
+            assertTrue(statistics.getAsJsonObject("percentiles").has("check"));
+
+            JsonObject rangeStatistics = JsonParser.parseString(range.body()).getAsJsonObject();
+            assertEquals(5, rangeStatistics.getAsJsonObject("statistics").getAsJsonObject("check").get("count")
+                    .getAsInt());
+
+            JsonArray found = JsonParser.parseString(anomalies.body()).getAsJsonArray();
+            assertEquals(1, found.size());
+            assertEquals("15:00", found.get(0).getAsJsonObject().get("time").getAsString());
+            assertEquals(9000, found.get(0).getAsJsonObject().get("durationMillis").getAsLong());
+
+            assertEquals(400, invalid.statusCode());
+        }
+    }
+
+    private HttpResponse<String> get(AnalysisServer server, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static TestEvent event(String device, LocalTime end, long durationMillis) {
+        return new TestEvent(end.minusNanos(durationMillis * 1_000_000), end, Duration.ofMillis(durationMillis),
+                "check", device);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * JMH benchmarks for parsing, analysis and serialization.
+ *
+ * Run with ./gradlew :jmh:jmh. Input sizes can be restricted with -Pdevices=1000,100000, and extra JVM
+ * arguments for the forked benchmark JVMs (e.g. a larger heap for 10M devices) passed with -PjmhJvmArgs="-Xmx16g".
+ */
+
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmhImplementation(project(":app"))
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    benchmarkMode = listOf("thrpt", "sample")
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+
+    project.findProperty("devices")?.let { devices ->
+        benchmarkParameters.put("devices", objects.listProperty<String>().value(devices.toString().split(",")))
+    }
+    project.findProperty("jmhJvmArgs")?.let { jvmArgs ->
+        jvmArgsAppend = jvmArgs.toString().split(" ")
+    }
+}
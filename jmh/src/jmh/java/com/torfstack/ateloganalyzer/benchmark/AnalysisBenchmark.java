@@ -0,0 +1,53 @@
+package com.torfstack.ateloganalyzer.benchmark;
+
+import com.torfstack.ateloganalyzer.analysis.Analysis;
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.EventStore;
+import com.torfstack.ateloganalyzer.analysis.StreamingAnalysis;
+import com.torfstack.ateloganalyzer.analysis.TestEvent;
+import com.torfstack.ateloganalyzer.input.MappedLogScanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyzes pre-parsed events with every analysis engine.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnalysisBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int devices;
+
+    private List<TestEvent> events;
+    private EventStore eventStore;
+
+    @Setup(Level.Trial)
+    public void parseInput() throws IOException {
+        String logFile = BenchmarkInputs.logFile(devices).toString();
+        events = MappedLogScanner.parseLogFile(logFile);
+        eventStore = new EventStore();
+        events.forEach(eventStore);
+    }
+
+    @Benchmark
+    public AnalysisResult analyzeList() {
+        return Analysis.analyzeTestTimes(events);
+    }
+
+    @Benchmark
+    public AnalysisResult analyzeColumnar() {
+        return Analysis.analyzeTestTimes(eventStore);
+    }
+
+    @Benchmark
+    public AnalysisResult analyzeStreaming() throws IOException {
+        try (StreamingAnalysis analysis = new StreamingAnalysis()) {
+            events.forEach(analysis);
+            return analysis.finish();
+        }
+    }
+}
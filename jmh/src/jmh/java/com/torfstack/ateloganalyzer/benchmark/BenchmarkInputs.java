@@ -0,0 +1,27 @@
+package com.torfstack.ateloganalyzer.benchmark;
+
+import com.torfstack.ateloganalyzer.ATELogTestFileGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Generated log files shared by all benchmarks. Files are generated with a fixed seed, so every run measures the
+ * same input, and are kept between runs since generating the large ones takes a while.
+ */
+class BenchmarkInputs {
+    static final long SEED = 42L;
+    private static final Path INPUT_DIRECTORY = Path.of("build", "jmh-inputs");
+
+    static Path logFile(int devices) throws IOException {
+        Path logFile = INPUT_DIRECTORY.resolve("ate-" + devices + "-" + SEED + ".log");
+        if (Files.exists(logFile)) return logFile;
+
+        Files.createDirectories(INPUT_DIRECTORY);
+        Path partialFile = Files.createTempFile(INPUT_DIRECTORY, "ate-" + devices, ".partial");
+        ATELogTestFileGenerator.generateLogFile(partialFile.toString(), devices, SEED);
+        return Files.move(partialFile, logFile, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
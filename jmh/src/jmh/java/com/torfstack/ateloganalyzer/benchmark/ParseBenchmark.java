@@ -0,0 +1,57 @@
+package com.torfstack.ateloganalyzer.benchmark;
+
+import com.torfstack.ateloganalyzer.analysis.StringDictionary;
+import com.torfstack.ateloganalyzer.input.Input;
+import com.torfstack.ateloganalyzer.input.LogDialect;
+import com.torfstack.ateloganalyzer.input.MappedLogScanner;
+import com.torfstack.ateloganalyzer.input.ParallelLogScanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a generated log file with every parser. Events go straight into a {@link Blackhole}, so only the
+ * parser itself is measured.
+ * <p>
+ * The {@code columns} parser hands primitive columns to the {@link Blackhole} instead of events. Its dictionaries are
+ * kept across invocations, so with {@code -prof gc} it shows the steady state, in which no line allocates.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParseBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int devices;
+
+    @Param({"regex", "mapped", "parallel", "columns"})
+    String parser;
+
+    private String logFile;
+    private final StringDictionary testTypeNames = new StringDictionary();
+    private final StringDictionary deviceNames = new StringDictionary();
+
+    @Setup(Level.Trial)
+    public void generateInput() throws IOException {
+        logFile = BenchmarkInputs.logFile(devices).toString();
+    }
+
+    @Benchmark
+    public void parseLogFile(Blackhole blackhole) throws IOException {
+        switch (parser) {
+            case "regex" -> Input.parseLogFile(logFile, blackhole::consume);
+            case "mapped" -> MappedLogScanner.parseLogFile(logFile, blackhole::consume);
+            case "parallel" -> ParallelLogScanner.parseLogFile(logFile, ForkJoinPool.commonPool(), blackhole::consume);
+            case "columns" -> MappedLogScanner.parseLogFile(logFile, LogDialect.DEFAULT, testTypeNames, deviceNames,
+                    (beginMillis, endMillis, testTypeId, deviceId) -> {
+                        blackhole.consume(beginMillis);
+                        blackhole.consume(endMillis);
+                        blackhole.consume(testTypeId);
+                        blackhole.consume(deviceId);
+                    });
+            default -> throw new IllegalArgumentException("Unknown parser: " + parser);
+        }
+    }
+}
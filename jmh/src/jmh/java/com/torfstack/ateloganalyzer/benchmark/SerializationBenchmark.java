@@ -0,0 +1,59 @@
+package com.torfstack.ateloganalyzer.benchmark;
+
+import com.torfstack.ateloganalyzer.analysis.Analysis;
+import com.torfstack.ateloganalyzer.analysis.AnalysisResult;
+import com.torfstack.ateloganalyzer.analysis.EventStore;
+import com.torfstack.ateloganalyzer.input.MappedLogScanner;
+import com.torfstack.ateloganalyzer.output.JsonFileSerializer;
+import com.torfstack.ateloganalyzer.output.PrintConsoleSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the analysis result of a generated log file. Console output is discarded so that the terminal does
+ * not distort the measurement.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int devices;
+
+    private AnalysisResult result;
+    private Path jsonFile;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void analyzeInput() throws IOException {
+        EventStore events = new EventStore();
+        MappedLogScanner.parseLogFile(BenchmarkInputs.logFile(devices).toString(), events);
+        result = Analysis.analyzeTestTimes(events);
+
+        jsonFile = Files.createTempFile("ateloganalyzer-benchmark", ".json");
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOutput() throws IOException {
+        System.setOut(originalOut);
+        Files.deleteIfExists(jsonFile);
+    }
+
+    @Benchmark
+    public void serializeJson() throws Exception {
+        new JsonFileSerializer(jsonFile.toString()).serialize(result);
+    }
+
+    @Benchmark
+    public void serializeConsole() {
+        new PrintConsoleSerializer().serialize(result);
+    }
+}
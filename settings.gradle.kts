@@ -12,3 +12,4 @@ plugins {
 
 rootProject.name = "loganalyzer"
 include("app")
+include("jmh")